@@ -42,6 +42,8 @@ import cn.nukkit.utils.TextFormat;
 import com.larryTheCoder.command.Admin;
 import com.larryTheCoder.command.Quests;
 import com.larryTheCoder.database.Database;
+import com.larryTheCoder.database.DatabaseExecutor;
+import com.larryTheCoder.database.WriteBehindDatabase;
 import com.larryTheCoder.database.config.MySQLConfig;
 import com.larryTheCoder.database.config.SQLiteConfig;
 import com.larryTheCoder.database.database.MysqlConnection;
@@ -57,14 +59,19 @@ import com.larryTheCoder.listener.invitation.InvitationHandler;
 import com.larryTheCoder.locales.ASlocales;
 import com.larryTheCoder.panels.Panel;
 import com.larryTheCoder.player.PlayerData;
+import com.larryTheCoder.player.PlayerSessionCache;
 import com.larryTheCoder.player.TeamManager;
 import com.larryTheCoder.player.TeleportLogic;
 import com.larryTheCoder.schematic.SchematicHandler;
 import com.larryTheCoder.storage.InventorySave;
 import com.larryTheCoder.storage.IslandData;
 import com.larryTheCoder.storage.WorldSettings;
+import com.larryTheCoder.storage.WorldRegistry;
+import com.larryTheCoder.task.DeletionQueue;
 import com.larryTheCoder.task.LevelCalcTask;
+import com.larryTheCoder.task.SnapshotService;
 import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.utils.CobbleStats;
 import com.larryTheCoder.utils.ConfigManager;
 import com.larryTheCoder.utils.Settings;
 import com.larryTheCoder.utils.Utils;
@@ -104,6 +111,7 @@ public class ASkyBlock extends PluginBase {
     private Config worldConfig;
     // Managers
     private Database db = null;
+    private DatabaseExecutor databaseExecutor;
     private ChatHandler chatHandler;
     private InvitationHandler invitationHandler;
     private IslandManager manager;
@@ -114,6 +122,12 @@ public class ASkyBlock extends PluginBase {
     private Quests challengesCommand;
     private Messages messageModule;
     private Panel panel;
+    private PlayerSessionCache playerCache;
+    private DeletionQueue deletionQueue;
+    private LevelCalcTask levelCalcTask;
+    private SnapshotService snapshots;
+    private final WorldRegistry worlds = new WorldRegistry();
+    private final CobbleStats cobbleStats = new CobbleStats();
 
     private boolean disabled = false;
     // Localization Strings
@@ -144,6 +158,13 @@ public class ASkyBlock extends PluginBase {
 
         // Wohooo! Fast! Unique and Colorful!
         generateLevel(); // Regenerate The world
+        // Some upgrades needs the world settings
+        db.upgrade();
+        if (cfg.getBoolean("database.warmup.enable", false)) {
+            db.warmup(cfg.getInt("database.warmup.fetchSize", 1000));
+        }
+        deletionQueue = new DeletionQueue(this);
+        snapshots = new SnapshotService(cfg.getInt("island.snapshotBudget", 2));
         getServer().getLogger().info(getPrefix() + "§7Enabling ASkyBlock - Founders Edition (API 24)");
         if (cfg.getBoolean("fastLoad")) {
             TaskManager.runTaskLater(this::start, 100);
@@ -162,9 +183,21 @@ public class ASkyBlock extends PluginBase {
     public void onDisable() {
         Utils.send("&7Saving islands framework");
         saveLevel(true);
+        if (deletionQueue != null) {
+            deletionQueue.save();
+        }
+        if (manager != null) {
+            manager.getAllocator().save();
+            manager.getPool().save();
+        }
+        if (databaseExecutor != null) {
+            databaseExecutor.shutdown();
+        }
+        if (playerCache != null) {
+            playerCache.saveAll();
+        }
         this.db.close();
         messageModule.saveMessages();
-        LavaCheck.clearStats();
         Utils.send("&cASkyBlock has successfully disabled. Goodbye");
     }
 
@@ -173,6 +206,15 @@ public class ASkyBlock extends PluginBase {
         return cfg;
     }
 
+    /**
+     * Get the settings of every SkyBlock world, worlds.yml
+     *
+     * @return Config
+     */
+    public Config getWorldConfig() {
+        return worldConfig;
+    }
+
     private void test() {
   
     }
@@ -204,19 +246,19 @@ public class ASkyBlock extends PluginBase {
         // To be done: DbLib defined database, JSON, YML
         // Warning: MySQL Database may result an error while attempting to create a connection
         //          With the server because there is no error in it
+        databaseExecutor = new DatabaseExecutor(cfg.getInt("database.asyncThreads", 4), cfg.getInt("database.asyncQueue", 1024));
         boolean fireSql = false;
         if (cfg.getString("database.connection").equalsIgnoreCase("mysql")) {
             try {
-                MySQLConfig config = new MySQLConfig(cfg.getString("database.MySQL.host"), cfg.getInt("database.MySQL.port"), cfg.getString("database.MySQL.database"), cfg.getString("database.MySQL.username"), cfg.getString("database.MySQL.password"));
+                MySQLConfig config = new MySQLConfig(cfg.getString("database.MySQL.host"), cfg.getInt("database.MySQL.port"), cfg.getString("database.MySQL.database"), cfg.getString("database.MySQL.username"), cfg.getString("database.MySQL.password"), cfg.getSection("database.pool"));
                 db = new MysqlConnection(this, config, cfg.getString("prefix", ""));
-                return;
             } catch (SQLException | ClassNotFoundException ex) {
                 Utils.send("§cUnable to create a connection with MySQL Server... Please make sure that your server is up and running or check your config again.");
                 fireSql = true;
             }
         } else {
             try {
-                SQLiteConfig config = new SQLiteConfig(new File(getDataFolder(), cfg.getString("database.SQLite.file-name") + ".db"));
+                SQLiteConfig config = new SQLiteConfig(new File(getDataFolder(), cfg.getString("database.SQLite.file-name") + ".db"), cfg.getSection("database.pool"));
                 db = new SqlConnection(this, config);
             } catch (SQLException | ClassNotFoundException ex) {
                 Utils.send("§cUnable to create a connection with the database for SQLite, please check back your config!");
@@ -225,7 +267,7 @@ public class ASkyBlock extends PluginBase {
 
         if (fireSql) {
             try {
-                SQLiteConfig config = new SQLiteConfig(new File(getDataFolder(), cfg.getString("database.SQLite.file-name") + ".db"));
+                SQLiteConfig config = new SQLiteConfig(new File(getDataFolder(), cfg.getString("database.SQLite.file-name") + ".db"), cfg.getSection("database.pool"));
                 db = new SqlConnection(this, config);
             } catch (SQLException | ClassNotFoundException ex) {
                 Utils.send("§cUnable to create a connection with the database for SQLite, please check back your config!");
@@ -234,6 +276,14 @@ public class ASkyBlock extends PluginBase {
                 disabled = true;
             }
         }
+
+        // Queue the writes so the database won't block the server thread
+        if (db != null && cfg.getBoolean("database.writeBehind.enable", true)) {
+            db = new WriteBehindDatabase(db,
+                    cfg.getInt("database.writeBehind.flushInterval", 5),
+                    cfg.getInt("database.writeBehind.batchSize", 500),
+                    cfg.getInt("database.writeBehind.retries", 5));
+        }
     }
 
     /**
@@ -248,11 +298,13 @@ public class ASkyBlock extends PluginBase {
         teleportLogic = new TeleportLogic(this);
         invitationHandler = new InvitationHandler(this);
         panel = new Panel(this);
+        playerCache = new PlayerSessionCache(this, cfg.getInt("database.offlinePlayerCache", 30));
         // This should be loaded first
         messageModule = new Messages(this);
         messageModule.loadMessages();
-        //new LevelCalcTask(this);
+        levelCalcTask = new LevelCalcTask(this);
 
+        pm.registerEvents(worlds, this);
         pm.registerEvents(chatHandler, this);
         pm.registerEvents(new IslandListener(this), this);
         pm.registerEvents(new LavaCheck(this), this);
@@ -287,6 +339,9 @@ public class ASkyBlock extends PluginBase {
         if (getResource("quests.yml") != null) {
             saveResource("quests.yml");
         }
+        if (getResource("blockvalues.yml") != null) {
+            saveResource("blockvalues.yml");
+        }
 
         saveResource("schematics/island.schematic", false);
         saveResource("schematics/featured.schematic", false);
@@ -378,14 +433,14 @@ public class ASkyBlock extends PluginBase {
                 if (plotRange < 0) {
                     plotRange = 0;
                 }
-                worldSettings = new WorldSettings(permission, level, maxPlot, plotSize, plotRange, stopTime, seaLevel);
+                worldSettings = new WorldSettings(permission, level, maxPlot, plotSize, plotRange, stopTime, seaLevel, getWorldKeyIndex(levelName));
             } else {
                 // Default arguments
                 String permission = "";
                 int plotSize = 100;
                 int plotRange = 200;
                 int seaLevel = 3;
-                worldSettings = new WorldSettings(permission, level, 5, plotSize, plotRange, false, seaLevel);
+                worldSettings = new WorldSettings(permission, level, 5, plotSize, plotRange, false, seaLevel, getWorldKeyIndex(levelName));
                 cfg.set(levelName + ".permission", permission);
                 cfg.set(levelName + ".maxHome", 5);
                 cfg.set(levelName + ".plotSize", plotSize);
@@ -393,6 +448,8 @@ public class ASkyBlock extends PluginBase {
                 cfg.set(levelName + ".stopTime", false);
                 cfg.set(levelName + ".seaLevel", seaLevel);
                 cfg.set(levelName + ".USE_CONFIG_CHEST", true);
+                cfg.set(levelName + ".pool.size", 0);
+                cfg.set(levelName + ".pool.refillTicks", 200);
                 cfg.save();
             }
 
@@ -400,6 +457,31 @@ public class ASkyBlock extends PluginBase {
             loadedLevel.add(levelName);
         }
         this.level = settings;
+        worlds.rebuild(settings);
+    }
+
+    /**
+     * Get the index of the world in the island keys. A world gets
+     * the next free index the first time it is seen and keeps it,
+     * the index is stored in worlds.yml.
+     *
+     * @param levelName The world name
+     * @return The index of the world
+     */
+    public int getWorldKeyIndex(String levelName) {
+        int index = worldConfig.getInt(levelName + ".keyIndex", -1);
+        if (index != -1) {
+            return index;
+        }
+        for (String key : worldConfig.getKeys(false)) {
+            if (worldConfig.isSection(key)) {
+                index = Math.max(index, worldConfig.getSection(key).getInt("keyIndex", -1));
+            }
+        }
+        index++;
+        worldConfig.set(levelName + ".keyIndex", index);
+        worldConfig.save();
+        return index;
     }
 
     /**
@@ -419,11 +501,7 @@ public class ASkyBlock extends PluginBase {
      * @return A list of string
      */
     public ArrayList<String> getLevels() {
-        ArrayList<String> level = new ArrayList<>();
-        for (WorldSettings settings : this.level) {
-            level.add(settings.getLevel().getName());
-        }
-        return level;
+        return new ArrayList<>(worlds.getNames());
     }
 
     /**
@@ -436,12 +514,27 @@ public class ASkyBlock extends PluginBase {
      * @return WorldSettings
      */
     public WorldSettings getSettings(String level) {
-        for (WorldSettings settings : this.level) {
-            if (settings.getLevel().getName().equalsIgnoreCase(level)) {
-                return settings;
-            }
-        }
-        return null;
+        return worlds.get(level);
+    }
+
+    /**
+     * Get the world registry, the indexes of
+     * the SkyBlock worlds by level and name
+     *
+     * @return WorldRegistry
+     */
+    public WorldRegistry getWorldRegistry() {
+        return worlds;
+    }
+
+    /**
+     * Get the statistics of the magic
+     * cobble stone generator
+     *
+     * @return CobbleStats
+     */
+    public CobbleStats getCobbleStats() {
+        return cobbleStats;
     }
 
     /**
@@ -571,6 +664,46 @@ public class ASkyBlock extends PluginBase {
         return db;
     }
 
+    /**
+     * Get the threads that runs the asynchronous
+     * database requests
+     *
+     * @return DatabaseExecutor
+     */
+    public DatabaseExecutor getDatabaseExecutor() {
+        return databaseExecutor;
+    }
+
+    /**
+     * Get the task that calculates the island
+     * levels
+     *
+     * @return LevelCalcTask
+     */
+    public LevelCalcTask getLevelCalcTask() {
+        return levelCalcTask;
+    }
+
+    /**
+     * Get the service that copies chunks for
+     * the scans that run off the main thread
+     *
+     * @return SnapshotService
+     */
+    public SnapshotService getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Get the queue that clears the chunks of
+     * deleted islands
+     *
+     * @return DeletionQueue
+     */
+    public DeletionQueue getDeletionQueue() {
+        return deletionQueue;
+    }
+
     /**
      * Get the chat handler for coop islands
      *
@@ -708,7 +841,31 @@ public class ASkyBlock extends PluginBase {
      * @return PlayerData class
      */
     public PlayerData getPlayerInfo(Player player) {
-        return getDatabase().getPlayerData(player.getName());
+        return getPlayerInfo(player.getName());
+    }
+
+    /**
+     * Get the data for the player by their name, online
+     * players are served from the session cache.
+     *
+     * @param player The name of the player
+     * @return PlayerData class
+     */
+    public PlayerData getPlayerInfo(String player) {
+        if (playerCache == null) {
+            return getDatabase().getPlayerData(player);
+        }
+        return playerCache.get(player);
+    }
+
+    /**
+     * Get the session cache that holds the data
+     * of the online players.
+     *
+     * @return PlayerSessionCache class
+     */
+    public PlayerSessionCache getPlayerCache() {
+        return playerCache;
     }
 
     /**
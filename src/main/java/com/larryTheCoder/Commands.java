@@ -71,12 +71,14 @@ class Commands extends PluginCommand<ASkyBlock> {
 //        this.loadSubCommand(new InviteSubCommand(getPlugin()));
 //        this.loadSubCommand(new MessageSubCommand(getPlugin()));
         this.loadSubCommand(new LocaleSubCommand(getPlugin()));
+        this.loadSubCommand(new BiomeSubCommand(getPlugin()));
         this.loadSubCommand(new CreateISubCommand(getPlugin()));
         this.loadSubCommand(new DeleteSubCommand(getPlugin()));
         this.loadSubCommand(new ExpelSubCommand(getPlugin()));
         this.loadSubCommand(new HomeSubCommand(getPlugin()));
         this.loadSubCommand(new InfoSubCommand(getPlugin()));
         this.loadSubCommand(new LeaveSubCommand(getPlugin()));
+        this.loadSubCommand(new LevelSubCommand(getPlugin()));
         this.loadSubCommand(new ProtectionSubCommand(getPlugin()));
         this.loadSubCommand(new SetHomeSubCommand(getPlugin()));
         this.loadSubCommand(new SettingsSubCommand(getPlugin()));
@@ -29,7 +29,6 @@ package com.larryTheCoder.command;
 import cn.nukkit.IPlayer;
 import cn.nukkit.Player;
 import cn.nukkit.Server;
-import cn.nukkit.block.Block;
 import cn.nukkit.command.Command;
 import cn.nukkit.command.CommandSender;
 import cn.nukkit.command.ConsoleCommandSender;
@@ -37,15 +36,24 @@ import cn.nukkit.utils.Config;
 import cn.nukkit.utils.TextFormat;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.SkyBlockGenerator;
+import com.larryTheCoder.database.Database;
+import com.larryTheCoder.database.DatabaseExecutor;
+import com.larryTheCoder.database.WriteBehindDatabase;
+import com.larryTheCoder.database.config.ConnectionPool;
 import com.larryTheCoder.listener.LavaCheck;
 import com.larryTheCoder.player.PlayerData;
 import com.larryTheCoder.storage.IslandData;
 import com.larryTheCoder.storage.WorldSettings;
 import com.larryTheCoder.task.DeleteIslandTask;
 import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.utils.CobbleStats;
 import com.larryTheCoder.utils.Utils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
 import java.text.Collator;
 import java.util.*;
 
@@ -99,16 +107,18 @@ public class Admin extends Command {
                 } else if (!plugin.getServer().isLevelGenerated(args[1])) {
                     plugin.getServer().generateLevel(args[1], System.currentTimeMillis(), SkyBlockGenerator.class);
                     plugin.getServer().loadLevel(args[1]);
-                    WorldSettings world = new WorldSettings(plugin.getServer().getLevelByName(args[1]));
-                    Config cfg = new Config(new File(plugin.getDataFolder(), "worlds.yml"), Config.YAML);
+                    WorldSettings world = new WorldSettings(plugin.getServer().getLevelByName(args[1]), plugin.getWorldKeyIndex(args[1]));
+                    Config cfg = plugin.getWorldConfig();
                     cfg.set(args[1] + ".permission", world.getPermission());
                     cfg.set(args[1] + ".maxHome", world.getMaximumIsland());
                     cfg.set(args[1] + ".protectionRange", world.getProtectionRange());
                     cfg.set(args[1] + ".stopTime", world.isStopTime());
                     cfg.set(args[1] + ".seaLevel", world.getSeaLevel());
+                    cfg.set(args[1] + ".keyIndex", world.getKeyIndex());
                     cfg.save();
                     plugin.saveLevel(false);
                     plugin.level.add(world);
+                    plugin.getWorldRegistry().rebuild(plugin.level);
                     sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).generalSuccess);
                     break;
                 }
@@ -147,47 +157,42 @@ public class Admin extends Command {
                     break;
                 }
 
-                IslandData pd = plugin.getIslandInfo(args[1]);
-                if (pd == null) {
-                    sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorNoIslandOther);
-                    break;
-                }
-                pd.setName(args[2]);
-                boolean success = plugin.getDatabase().saveIsland(pd);
-                if (success) {
-                    sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).renameSuccess);
-                } else {
-                    sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedNormal);
-                }
+                String newName = args[2];
+                TaskManager.whenDone(plugin.getDatabase().getIslandAsync(args[1], 1), pd -> {
+                    if (pd == null) {
+                        sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorNoIslandOther);
+                        return;
+                    }
+                    pd.setName(newName);
+                    TaskManager.whenDone(plugin.getDatabase().saveIslandAsync(pd), success -> {
+                        if (success) {
+                            sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).renameSuccess);
+                        } else {
+                            sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedNormal);
+                        }
+                    });
+                });
                 break;
             case "cobblestats":
                 if (!sender.hasPermission("is.admin.cobblestats")) {
                     sender.sendMessage(plugin.getLocale(p).errorNoPermission);
                     break;
                 }
-                if (LavaCheck.getStats().size() == 0) {
-                    sender.sendMessage(TextFormat.OBFUSCATED + "");
-                    break;
+                if (args.length >= 2 && args[1].equalsIgnoreCase("clear")) {
+                    plugin.getCobbleStats().clear();
+                    sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).generalSuccess);
+                } else if (args.length >= 2 && args[1].equalsIgnoreCase("export")) {
+                    exportCobbleStats(sender, args.length >= 3 ? args[2] : "csv", args.length >= 4 ? args[3] : null);
+                } else {
+                    showCobbleStats(sender, p, args.length >= 2 ? args[1] : null);
                 }
-                // Display by level
-                for (Integer level : LavaCheck.getStats().keySet()) {
-                    if (level == Integer.MIN_VALUE) {
-                        sender.sendMessage(plugin.getLocale(p).challengesLevel + ": Default");
-                    } else {
-                        sender.sendMessage(plugin.getLocale(p).challengesLevel + ": " + level);
-                    }
-                    // Collect and sort
-                    Collection<String> result = new TreeSet<>(Collator.getInstance());
-                    for (Block mat : LavaCheck.getStats().get(level).elementSet()) {
-                        result.add("   " + Utils.prettifyText(mat.toString()) + ": " + LavaCheck.getStats().get(level).count(mat) + "/" + LavaCheck.getStats().get(level).size() + " or "
-                                + ((int) ((double) LavaCheck.getStats().get(level).count(mat) / LavaCheck.getStats().get(level).size() * 100))
-                                + "% (config = " + String.valueOf(LavaCheck.getConfigChances(level, mat)) + "%)");
-                    }
-                    // Send to player
-                    for (String r : result) {
-                        sender.sendMessage(r);
-                    }
+                break;
+            case "dbstats":
+                if (!sender.hasPermission("is.admin.dbstats")) {
+                    sender.sendMessage(plugin.getLocale(p).errorNoPermission);
+                    break;
                 }
+                showDatabaseStats(sender);
                 break;
 			case "cc":
             case "completechallenge":
@@ -200,7 +205,7 @@ public class Admin extends Command {
                     break;
                 }
                 IPlayer offlinePlayer = Server.getInstance().getOfflinePlayer(args[1]);
-                PlayerData pld = plugin.getDatabase().getPlayerData(offlinePlayer.getName());
+                PlayerData pld = plugin.getPlayerInfo(offlinePlayer.getName());
                 if (pld == null) {
                     sender.sendMessage(TextFormat.RED + plugin.getLocale(p).errorUnknownPlayer);
                     break;
@@ -211,7 +216,6 @@ public class Admin extends Command {
                 }
                 pld.completeChallenge(args[2].toLowerCase());
                 pld.saveData();
-                ASkyBlock.get().getDatabase().savePlayerData(pld);
                 sender.sendMessage(TextFormat.YELLOW + plugin.getLocale(p).completeChallengeCompleted
                         .replace("[challengename]", args[2].toLowerCase())
                         .replace("[name]", args[1]));
@@ -228,7 +232,7 @@ public class Admin extends Command {
                 }
 
                 offlinePlayer = Server.getInstance().getOfflinePlayer(args[1]);
-                pld = plugin.getDatabase().getPlayerData(offlinePlayer.getName());
+                pld = plugin.getPlayerInfo(offlinePlayer.getName());
                 if (pld == null) {
                     sender.sendMessage(TextFormat.RED + plugin.getLocale(p).errorUnknownPlayer);
                     break;
@@ -260,14 +264,15 @@ public class Admin extends Command {
 
                     // Show them, lets see if this dude got a data in database
                     offlinePlayer = Server.getInstance().getOfflinePlayer(args[1]);
-                    island = plugin.getDatabase().getIsland(offlinePlayer.getName(), id);
-                    if (island == null) {
-                        sender.sendMessage(plugin.getLocale(null).errorUnknownPlayer);
-                        break;
-                    }
-
-                    sender.sendMessage(plugin.getLocale(null).deleteRemoving.replace("[name]", "null"));
-                    deleteIslands(island, sender);
+                    TaskManager.whenDone(plugin.getDatabase().getIslandAsync(offlinePlayer.getName(), id), target -> {
+                        if (target == null) {
+                            sender.sendMessage(plugin.getLocale(null).errorUnknownPlayer);
+                            return;
+                        }
+
+                        sender.sendMessage(plugin.getLocale(null).deleteRemoving.replace("[name]", "null"));
+                        deleteIslands(target, sender);
+                    });
                     break;
                 }
 
@@ -370,6 +375,123 @@ public class Admin extends Command {
         sender.sendMessage(TextFormat.GREEN + plugin.getLocale(p).generalSuccess);
     }
 
+    /**
+     * Shows the magic cobble stone generator stats
+     * of the last minutes.
+     *
+     * @param sender     Sender who performed the command
+     * @param p          The player, or null for the console
+     * @param minutesArg The number of minutes, or null for the whole window
+     */
+    private void showCobbleStats(CommandSender sender, Player p, String minutesArg) {
+        int minutes = parseMinutes(minutesArg);
+        Map<Integer, Map<Integer, Long>> stats = plugin.getCobbleStats().getTotals(minutes);
+        if (stats.isEmpty()) {
+            sender.sendMessage(TextFormat.OBFUSCATED + "");
+            return;
+        }
+        sender.sendMessage(TextFormat.YELLOW + "Last " + TextFormat.GREEN + minutes + TextFormat.YELLOW + " minutes");
+        // Display by level
+        for (Map.Entry<Integer, Map<Integer, Long>> entry : stats.entrySet()) {
+            int level = entry.getKey();
+            if (level == Integer.MIN_VALUE) {
+                sender.sendMessage(plugin.getLocale(p).challengesLevel + ": Default");
+            } else {
+                sender.sendMessage(plugin.getLocale(p).challengesLevel + ": " + level);
+            }
+            long total = 0;
+            for (long count : entry.getValue().values()) {
+                total += count;
+            }
+            // Collect and sort
+            Collection<String> result = new TreeSet<>(Collator.getInstance());
+            for (Map.Entry<Integer, Long> mat : entry.getValue().entrySet()) {
+                result.add("   " + Utils.prettifyText(CobbleStats.getBlockName(mat.getKey())) + ": " + mat.getValue() + "/" + total + " or "
+                        + ((int) ((double) mat.getValue() / total * 100))
+                        + "% (config = " + String.valueOf(LavaCheck.getConfigChances(level, mat.getKey())) + "%)");
+            }
+            // Send to player
+            for (String r : result) {
+                sender.sendMessage(r);
+            }
+        }
+    }
+
+    /**
+     * Writes the magic cobble stone generator stats
+     * into the plugin folder.
+     *
+     * @param sender     Sender who performed the command
+     * @param format     Either csv or json
+     * @param minutesArg The number of minutes, or null for the whole window
+     */
+    private void exportCobbleStats(CommandSender sender, String format, String minutesArg) {
+        if (!format.equalsIgnoreCase("csv") && !format.equalsIgnoreCase("json")) {
+            sender.sendMessage(TextFormat.RED + "Usage: cobblestats export <csv|json> [minutes]");
+            return;
+        }
+        int minutes = parseMinutes(minutesArg);
+        // The stats are read here, only the file is written in the background
+        String text = format.equalsIgnoreCase("csv") ? plugin.getCobbleStats().toCsv(minutes) : plugin.getCobbleStats().toJson(minutes);
+        String name = "cobblestats-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "." + format.toLowerCase();
+        File file = new File(plugin.getDataFolder(), name);
+        TaskManager.runTaskAsync(() -> {
+            try {
+                Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                Utils.send("&cUnable to export the cobble stats: " + e.getMessage());
+            }
+        });
+        sender.sendMessage(TextFormat.YELLOW + "Exporting the last " + TextFormat.GREEN + minutes + TextFormat.YELLOW + " minutes to " + TextFormat.GREEN + name);
+    }
+
+    private int parseMinutes(String minutesArg) {
+        if (minutesArg == null || minutesArg.isEmpty() || minutesArg.length() > 4 || !Utils.isNumeric(minutesArg)) {
+            return CobbleStats.WINDOW_MINUTES;
+        }
+        return Math.max(1, Math.min(Integer.parseInt(minutesArg), CobbleStats.WINDOW_MINUTES));
+    }
+
+    /**
+     * Shows the statistics of the database and its
+     * write-behind queue.
+     *
+     * @param sender Sender who performed the command
+     */
+    private void showDatabaseStats(CommandSender sender) {
+        Database db = plugin.getDatabase();
+        sender.sendMessage(TextFormat.YELLOW + "Cached islands: " + TextFormat.GREEN + db.getIslandCache().size());
+        if (plugin.getPlayerCache() != null) {
+            sender.sendMessage(TextFormat.YELLOW + "Cached players: " + TextFormat.GREEN + plugin.getPlayerCache().size());
+        }
+        DatabaseExecutor executor = plugin.getDatabaseExecutor();
+        if (executor != null) {
+            sender.sendMessage(TextFormat.YELLOW + "Async requests: " + TextFormat.GREEN + executor.getActive() + " running"
+                    + TextFormat.YELLOW + ", " + TextFormat.GREEN + executor.getQueued() + " queued"
+                    + TextFormat.YELLOW + ", " + TextFormat.RED + executor.getRejected() + " rejected");
+        }
+        ConnectionPool pool = db.getPool();
+        if (pool != null) {
+            sender.sendMessage(TextFormat.YELLOW + "Connections: " + TextFormat.GREEN + pool.getActiveConnections() + " active"
+                    + TextFormat.YELLOW + ", " + TextFormat.GREEN + pool.getIdleConnections() + " idle"
+                    + TextFormat.YELLOW + ", " + TextFormat.RED + pool.getWaitingThreads() + " waiting");
+            sender.sendMessage(TextFormat.YELLOW + "Connection wait: " + TextFormat.GREEN + String.format("%.2f", pool.getAverageWaitTime()) + "ms"
+                    + TextFormat.YELLOW + " (max " + String.format("%.2f", pool.getMaxWaitTime()) + "ms, "
+                    + pool.getConnectionTimeouts() + " timeouts)");
+        }
+        if (!(db instanceof WriteBehindDatabase)) {
+            sender.sendMessage(TextFormat.YELLOW + "Write-behind queue: " + TextFormat.RED + "disabled");
+            return;
+        }
+        WriteBehindDatabase queue = (WriteBehindDatabase) db;
+        sender.sendMessage(TextFormat.YELLOW + "Queue depth: " + TextFormat.GREEN + queue.getQueueSize());
+        sender.sendMessage(TextFormat.YELLOW + "Written: " + TextFormat.GREEN + queue.getFlushedWrites()
+                + TextFormat.YELLOW + " Failed: " + TextFormat.RED + queue.getFailedWrites()
+                + TextFormat.YELLOW + " Dropped: " + TextFormat.RED + queue.getDroppedWrites());
+        sender.sendMessage(TextFormat.YELLOW + "Flush latency: " + TextFormat.GREEN + queue.getLastFlushTime() + "ms"
+                + TextFormat.YELLOW + " (avg " + String.format("%.2f", queue.getAverageFlushTime()) + "ms, max " + queue.getMaxFlushTime() + "ms)");
+    }
+
     /**
      * Shows info on the challenge situation for player,
      *
@@ -377,7 +499,7 @@ public class Admin extends Command {
      * @param sender Sender who performed the command
      */
     private void showInfoChallenges(IPlayer player, CommandSender sender) {
-        PlayerData pd = plugin.getDatabase().getPlayerData(player.getName());
+        PlayerData pd = plugin.getPlayerInfo(player.getName());
         // No way
         if (pd == null) {
             sender.sendMessage(TextFormat.RED + plugin.getLocale(null).errorUnknownPlayer);
@@ -450,10 +572,11 @@ public class Admin extends Command {
         helpList.add("&7" + label + " delete &l&5»&r&f &a" + plugin.getLocale(p).adminHelpDelete);
         helpList.add("&7" + label + " addmessage &l&5»&r&f &a" + plugin.getLocale(p).adminHelpMessage);
         helpList.add("&7" + label + " clear &l&5»&r&f &a" + plugin.getLocale(p).adminHelpClear);
-        helpList.add("&7" + label + " cobblestats &l&5»&r&f &a" + plugin.getLocale(p).adminHelpDelete);
+        helpList.add("&7" + label + " cobblestats [minutes|export|clear] &l&5»&r&f &a" + plugin.getLocale(p).adminHelpDelete);
         helpList.add("&7" + label + " completechallenge &l&5»&r&f &a" + plugin.getLocale(p).adminHelpMessage);
         helpList.add("&7" + label + " resetchallenge &l&5»&r&f &a" + plugin.getLocale(p).adminHelpClear);
         helpList.add("&7" + label + " challenges &l&5»&r&f &a" + plugin.getLocale(p).adminHelpInfo);
+        helpList.add("&7" + label + " dbstats &l&5»&r&f &a" + plugin.getLocale(p).adminHelpStats);
 
         if (label.length() > 4) {
             helpList.add("");
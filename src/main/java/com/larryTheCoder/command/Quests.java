@@ -37,11 +37,15 @@ import cn.nukkit.utils.TextFormat;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.events.ChallengeLevelCompleteEvent;
 import com.larryTheCoder.player.PlayerData;
+import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.utils.AreaScanner;
 import com.larryTheCoder.utils.Settings;
 import com.larryTheCoder.utils.Utils;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author larryTheCoder
@@ -49,9 +53,15 @@ import java.util.*;
  */
 public class Quests extends Command {
 
+    // How long an island challenge scan is kept in milliseconds
+    private static final long SCAN_CACHE_TIME = 5000;
+
     private final ASkyBlock plugin;
     private final Config challengeFile;
     private final LinkedHashMap<String, List<String>> challengeList = new LinkedHashMap<>();
+    // Island challenge scans, by player and challenge
+    // Island challenge scans by player and challenge, filled by the scanning threads
+    private final Map<String, IslandScan> islandScans = new ConcurrentHashMap<>();
 
     public Quests(ASkyBlock plugin) {
         super("quest");
@@ -181,56 +191,17 @@ public class Quests extends Command {
                 }
                 break;
             case 2:
-                if (checkIfCanCompleteChallenge(p, args[1].toLowerCase())) {
-                    int oldLevel = getLevelDone(p);
-                    giveReward(p, args[1].toLowerCase());
-                    int newLevel = getLevelDone(p);
-                    // Fire an event if they are different
-                    //Utils.send("DEBUG: " + oldLevel + " " + newLevel);
-                    if (oldLevel < newLevel) {
-                        // Update chat
-                        plugin.getChatHandlers().setPlayerChallengeLevel(p);
-                        // Run commands and give rewards but only if they haven't done it below
-                        //Utils.send("DEBUG: old level = " + oldLevel + " new level = " + newLevel);
-                        String level = Settings.challengeLevels.get(newLevel);
-                        if (!level.isEmpty() && !checkChallenge(p, level)) {
-                            //Utils.send("DEBUG: level name = " + level);
-                            completeChallenge(p, level);
-                            String message = TextFormat.colorize('&', getChallengeConfig().getString("challenges.levelUnlock." + level + ".message", ""));
-                            if (!message.isEmpty()) {
-                                p.sendMessage(plugin.getPrefix() + TextFormat.GREEN + message);
-                            }
-                            String[] itemReward = getChallengeConfig().getString("challenges.levelUnlock." + level + ".itemReward", "").split(" ");
-                            String rewardDesc = getChallengeConfig().getString("challenges.levelUnlock." + level + ".rewardDesc", "");
-                            if (!rewardDesc.isEmpty()) {
-                                p.sendMessage(plugin.getPrefix() + TextFormat.GOLD + ": " + TextFormat.WHITE + rewardDesc);
-                            }
-                            List<Item> rewardedItems = giveItems(p, itemReward);
-                            double moneyReward = getChallengeConfig().getDouble("challenges.levelUnlock." + level + ".moneyReward", 0D);
-                            int expReward = getChallengeConfig().getInt("challenges.levelUnlock." + level + ".expReward", 0);
-                            if (expReward > 0) {
-                                p.sendMessage(plugin.getPrefix() + TextFormat.GOLD + "You got Exp: " + TextFormat.WHITE + expReward);
-                                p.addExperience(expReward);
-                            }
-                            if (Settings.useEconomy && moneyReward > 0 && (ASkyBlock.econ != null)) {
-                                ASkyBlock.econ.addMoney(p, moneyReward);
-                                p.sendMessage(plugin.getPrefix() + TextFormat.GOLD + "You received : " + TextFormat.WHITE + "$" + moneyReward);
-                            }
-                            String[] permList = getChallengeConfig().getString("challenges.levelUnlock." + level + ".permissionReward", "").split(" ");
-
-                            for (final String s : permList) {
-                                if (!s.isEmpty()) {
-                                    p.addAttachment(plugin).setPermission(s, true);
-                                    Utils.send("Added permission " + s + " to " + p.getName() + "");
-                                }
-                            }
-                            List<String> commands = getChallengeConfig().getStringList("challenges.levelUnlock." + level + ".commands");
-                            runCommands(p, commands);
-                            // Fire event
-                            ChallengeLevelCompleteEvent event = new ChallengeLevelCompleteEvent(p, oldLevel, newLevel, rewardedItems);
-                            plugin.getServer().getPluginManager().callEvent(event);
+                String challenge = args[1].toLowerCase();
+                // The blocks around the player are counted off the main thread first
+                CompletableFuture<long[]> scan = scanIsland(p, challenge);
+                if (scan == null) {
+                    completeQuest(p, challenge);
+                } else {
+                    TaskManager.whenDone(scan, counts -> {
+                        if (p.isOnline()) {
+                            completeQuest(p, challenge);
                         }
-                    }
+                    });
                 }
                 break;
         }
@@ -238,6 +209,60 @@ public class Quests extends Command {
         return true;
     }
 
+    private void completeQuest(Player p, String challenge) {
+        if (checkIfCanCompleteChallenge(p, challenge)) {
+            int oldLevel = getLevelDone(p);
+            giveReward(p, challenge);
+            int newLevel = getLevelDone(p);
+            // Fire an event if they are different
+            //Utils.send("DEBUG: " + oldLevel + " " + newLevel);
+            if (oldLevel < newLevel) {
+                // Update chat
+                plugin.getChatHandlers().setPlayerChallengeLevel(p);
+                // Run commands and give rewards but only if they haven't done it below
+                //Utils.send("DEBUG: old level = " + oldLevel + " new level = " + newLevel);
+                String level = Settings.challengeLevels.get(newLevel);
+                if (!level.isEmpty() && !checkChallenge(p, level)) {
+                    //Utils.send("DEBUG: level name = " + level);
+                    completeChallenge(p, level);
+                    String message = TextFormat.colorize('&', getChallengeConfig().getString("challenges.levelUnlock." + level + ".message", ""));
+                    if (!message.isEmpty()) {
+                        p.sendMessage(plugin.getPrefix() + TextFormat.GREEN + message);
+                    }
+                    String[] itemReward = getChallengeConfig().getString("challenges.levelUnlock." + level + ".itemReward", "").split(" ");
+                    String rewardDesc = getChallengeConfig().getString("challenges.levelUnlock." + level + ".rewardDesc", "");
+                    if (!rewardDesc.isEmpty()) {
+                        p.sendMessage(plugin.getPrefix() + TextFormat.GOLD + ": " + TextFormat.WHITE + rewardDesc);
+                    }
+                    List<Item> rewardedItems = giveItems(p, itemReward);
+                    double moneyReward = getChallengeConfig().getDouble("challenges.levelUnlock." + level + ".moneyReward", 0D);
+                    int expReward = getChallengeConfig().getInt("challenges.levelUnlock." + level + ".expReward", 0);
+                    if (expReward > 0) {
+                        p.sendMessage(plugin.getPrefix() + TextFormat.GOLD + "You got Exp: " + TextFormat.WHITE + expReward);
+                        p.addExperience(expReward);
+                    }
+                    if (Settings.useEconomy && moneyReward > 0 && (ASkyBlock.econ != null)) {
+                        ASkyBlock.econ.addMoney(p, moneyReward);
+                        p.sendMessage(plugin.getPrefix() + TextFormat.GOLD + "You received : " + TextFormat.WHITE + "$" + moneyReward);
+                    }
+                    String[] permList = getChallengeConfig().getString("challenges.levelUnlock." + level + ".permissionReward", "").split(" ");
+
+                    for (final String s : permList) {
+                        if (!s.isEmpty()) {
+                            p.addAttachment(plugin).setPermission(s, true);
+                            Utils.send("Added permission " + s + " to " + p.getName() + "");
+                        }
+                    }
+                    List<String> commands = getChallengeConfig().getStringList("challenges.levelUnlock." + level + ".commands");
+                    runCommands(p, commands);
+                    // Fire event
+                    ChallengeLevelCompleteEvent event = new ChallengeLevelCompleteEvent(p, oldLevel, newLevel, rewardedItems);
+                    plugin.getServer().getPluginManager().callEvent(event);
+                }
+            }
+        }
+    }
+
     private void completeChallenge(Player player, String level) {
         PlayerData pd = plugin.getPlayerInfo(player);
         pd.completeChallenge(level);
@@ -326,13 +351,7 @@ public class Quests extends Command {
                 return false;
             }
             if (!hasRequired(player, challenge, "island")) {
-                int searchRadius = getChallengeConfig().getInt("challengeList." + challenge + ".searchRadius", 10);
-                if (searchRadius < 10) {
-                    searchRadius = 10;
-                } else if (searchRadius > 50) {
-                    searchRadius = 50;
-                }
-                player.sendMessage(TextFormat.RED + "You must be standing within [number] blocks of all required items.".replace("[number]", String.valueOf(searchRadius)));
+                player.sendMessage(TextFormat.RED + "You must be standing within [number] blocks of all required items.".replace("[number]", String.valueOf(getSearchRadius(challenge))));
                 List<String> result = new ArrayList<>();
                 for (String desc : challengeFile.getStringList("challengeList." + challenge + ".description")) {
                     result.add(TextFormat.colorize('&', desc.replace("[label]", "is")));
@@ -641,21 +660,22 @@ public class Quests extends Command {
                 }
                 break;
             case "island":
-                HashMap<Block, Integer> neededItem = new HashMap<>();
+                List<BlockRequirement> neededItem = new ArrayList<>();
                 Block reqBlock;
                 for (String aReqList : reqList) {
                     String[] sPart = aReqList.split(":");
-                    // Parse the qty required first
+                    // Parse the qty required first, the data is optional
                     try {
-                        final int qty = Integer.parseInt(sPart[1]);
+                        final int qty = Integer.parseInt(sPart[sPart.length - 1]);
+                        final int data = sPart.length == 3 ? Integer.parseInt(sPart[1]) : -1;
 
                         if (Utils.isNumeric(sPart[0])) {
-                            reqBlock = Block.get(Integer.parseInt(sPart[0]));
+                            reqBlock = Block.get(Integer.parseInt(sPart[0]), Math.max(0, data));
                         } else {
-                            reqBlock = Block.get(Item.fromString(sPart[0].toUpperCase()).getId());
+                            reqBlock = Block.get(Item.fromString(sPart[0].toUpperCase()).getId(), Math.max(0, data));
                         }
                         if (reqBlock != null) {
-                            neededItem.put(reqBlock, qty);
+                            neededItem.add(new BlockRequirement(reqBlock, data != -1, qty));
                         } else {
                             plugin.getLogger().warning("Problem parsing required item for quest " + challenge + " in quests.yml!");
                             return false;
@@ -668,38 +688,19 @@ public class Quests extends Command {
                 }
                 // We now have two sets of required items or entities
                 // Check the items first
-                Location l = player.getLocation();
-                int px = l.getFloorX();
-                int py = l.getFloorY();
-                int pz = l.getFloorZ();
-                // Get search radius - min is 10, max is 50
-                int searchRadius = challengeFile.getInt("quests.challengeList." + challenge + ".searchRadius", 10);
-                if (searchRadius < 10) {
-                    searchRadius = 10;
-                } else if (searchRadius > 50) {
-                    searchRadius = 50;
-                }
-                for (int x = -searchRadius; x <= searchRadius; x++) {
-                    for (int y = -searchRadius; y <= searchRadius; y++) {
-                        for (int z = -searchRadius; z <= searchRadius; z++) {
-                            Block b = new Location(px + x, py + y, pz + z, l.getLevel()).getLevelBlock();
-                            if (neededItem.containsKey(b)) {
-                                if (neededItem.get(b) == 1) {
-                                    neededItem.remove(b);
-                                } else {
-                                    // Reduce the require amount by 1
-                                    neededItem.put(b, neededItem.get(b) - 1);
-                                }
-                            }
-                        }
-                    }
+                long[] counts = getIslandCounts(player, challenge);
+                if (counts == null) {
+                    // The area is counted by scanIsland before the check
+                    scanIsland(player, challenge);
+                    return false;
                 }
+                neededItem.removeIf(required -> required.count(counts) >= required.amount);
                 // Check if all the needed items have been amassed
                 if (!neededItem.isEmpty()) {
                     //Utils.sendDebug("DEBUG: Insufficient items around");
-                    for (Block missing : neededItem.keySet()) {
+                    for (BlockRequirement missing : neededItem) {
                         if (!silence)
-                            player.sendMessage(TextFormat.RED + "You are missing " + neededItem.get(missing) + " x " + Utils.prettifyText(missing.toString()));
+                            player.sendMessage(TextFormat.RED + "You are missing " + (missing.amount - missing.count(counts)) + " x " + Utils.prettifyText(missing.block.toString()));
                     }
                     return false;
                 }
@@ -717,6 +718,66 @@ public class Quests extends Command {
         return true;
     }
 
+    /**
+     * Get the blocks counted around the player for an island challenge.
+     * A scan is kept for a few seconds, so checking the same challenge
+     * again from the same block does not scan the area twice.
+     *
+     * @param player    The player that is checked
+     * @param challenge The challenge being checked
+     * @return The amount of blocks indexed by {@code (id << 4) | data},
+     * or null if the area around the player was not scanned yet
+     */
+    private long[] getIslandCounts(Player player, String challenge) {
+        IslandScan scan = islandScans.get(player.getName().toLowerCase() + ":" + challenge);
+        if (scan == null || !scan.position.equals(getScanPosition(player.getLocation()))
+                || System.currentTimeMillis() - scan.time > SCAN_CACHE_TIME) {
+            return null;
+        }
+        return scan.counts;
+    }
+
+    /**
+     * Count the blocks around the player for an island challenge,
+     * the blocks are counted off the main thread.
+     *
+     * @param player    The player that is checked
+     * @param challenge The challenge being checked
+     * @return The counted blocks, or null if the challenge needs no new scan
+     */
+    public CompletableFuture<long[]> scanIsland(Player player, String challenge) {
+        if (!"island".equalsIgnoreCase(challengeFile.getString("challengeList." + challenge + ".type"))
+                || getIslandCounts(player, challenge) != null) {
+            return null;
+        }
+        String key = player.getName().toLowerCase() + ":" + challenge;
+        Location l = player.getLocation();
+        String position = getScanPosition(l);
+        long now = System.currentTimeMillis();
+        islandScans.values().removeIf(s -> now - s.time > SCAN_CACHE_TIME);
+        return AreaScanner.count(l.getLevel(), l.getFloorX(), l.getFloorY(), l.getFloorZ(), getSearchRadius(challenge)).thenApply(counts -> {
+            islandScans.put(key, new IslandScan(position, now, counts));
+            return counts;
+        });
+    }
+
+    private static String getScanPosition(Location l) {
+        return l.getLevel().getFolderName() + ":" + l.getFloorX() + ":" + l.getFloorY() + ":" + l.getFloorZ();
+    }
+
+    /**
+     * Get search radius of an island challenge - min is 10, max is 50
+     */
+    private int getSearchRadius(String challenge) {
+        int searchRadius = challengeFile.getInt("challengeList." + challenge + ".searchRadius", 10);
+        if (searchRadius < 10) {
+            searchRadius = 10;
+        } else if (searchRadius > 50) {
+            searchRadius = 50;
+        }
+        return searchRadius;
+    }
+
     /**
      * Gives the reward for completing the challenge
      *
@@ -924,4 +985,45 @@ public class Quests extends Command {
     public Config getChallengeConfig() {
         return challengeFile;
     }
+
+    private static class IslandScan {
+
+        private final String position;
+        private final long time;
+        private final long[] counts;
+
+        IslandScan(String position, long time, long[] counts) {
+            this.position = position;
+            this.time = time;
+            this.counts = counts;
+        }
+    }
+
+    /**
+     * A block an island challenge needs, with or without a specific data.
+     */
+    private static class BlockRequirement {
+
+        private final Block block;
+        private final boolean withData;
+        private final int amount;
+
+        BlockRequirement(Block block, boolean withData, int amount) {
+            this.block = block;
+            this.withData = withData;
+            this.amount = amount;
+        }
+
+        private int count(long[] counts) {
+            int key = (block.getId() & 0xff) << 4;
+            if (withData) {
+                return (int) counts[key | block.getDamage() & 0x0f];
+            }
+            long count = 0;
+            for (int data = 0; data < 16; data++) {
+                count += counts[key | data];
+            }
+            return (int) count;
+        }
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.command.island;
+
+import cn.nukkit.Player;
+import cn.nukkit.Server;
+import cn.nukkit.command.CommandSender;
+import cn.nukkit.level.biome.Biome;
+import cn.nukkit.utils.TextFormat;
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.command.SubCommand;
+import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.task.UpdateBiomeTask;
+
+/**
+ * Changes the biome of the island the player stands on
+ *
+ * @author larryTheCoder
+ */
+public class BiomeSubCommand extends SubCommand {
+
+    public BiomeSubCommand(ASkyBlock plugin) {
+        super(plugin);
+    }
+
+    @Override
+    public boolean canUse(CommandSender sender) {
+        return sender.isPlayer() && sender.hasPermission("is.command.edit");
+    }
+
+    @Override
+    public String getUsage() {
+        return "<biome>";
+    }
+
+    @Override
+    public String getName() {
+        return "biome";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Change your island biome";
+    }
+
+    @Override
+    public String[] getAliases() {
+        return new String[]{};
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String[] args) {
+        Player p = Server.getInstance().getPlayer(sender.getName());
+        Biome biome = args.length < 2 ? null : UpdateBiomeTask.getBiome(args[1]);
+        if (biome == null) {
+            p.sendMessage(TextFormat.RED + "/is biome <biome>");
+            p.sendMessage(TextFormat.GRAY + String.join(", ", UpdateBiomeTask.getBiomeNames()));
+            return true;
+        }
+        IslandData pd = getPlugin().getGrid().getProtectedIslandAt(p.getLocation());
+        // Check if the player on their own island or not
+        if (pd == null || pd.getOwner() == null || !pd.getOwner().equalsIgnoreCase(sender.getName())) {
+            p.sendMessage(getLocale(p).errorNotOnIsland);
+            return true;
+        }
+        pd.setBiome(biome.getName());
+        getPlugin().getDatabase().saveIslandAsync(pd);
+        new UpdateBiomeTask(getPlugin(), pd, p).start();
+        return true;
+    }
+
+}
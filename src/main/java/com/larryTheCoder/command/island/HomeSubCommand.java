@@ -30,6 +30,7 @@ import cn.nukkit.Player;
 import cn.nukkit.command.CommandSender;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.command.SubCommand;
+import com.larryTheCoder.task.TaskManager;
 
 /**
  * @author larryTheCoder
@@ -68,13 +69,15 @@ public class HomeSubCommand extends SubCommand {
     @Override
     public boolean execute(CommandSender sender, String[] args) {
         Player p = sender.getServer().getPlayer(sender.getName());
-        // Only one home? Don't worry. we wont open the form overlay
-        if (getPlugin().getDatabase().getIslands(sender.getName()).size() == 1) {
-            getPlugin().getGrid().homeTeleport(p);
-            return true;
-        }
+        TaskManager.whenDone(getPlugin().getDatabase().getIslandsAsync(sender.getName()), islands -> {
+            // Only one home? Don't worry. we wont open the form overlay
+            if (islands.size() == 1) {
+                getPlugin().getGrid().homeTeleport(p);
+                return;
+            }
 
-        getPlugin().getPanel().addHomeFormOverlay(p);
+            getPlugin().getPanel().addHomeFormOverlay(p);
+        });
         return true;
     }
 
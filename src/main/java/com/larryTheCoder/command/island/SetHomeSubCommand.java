@@ -73,20 +73,20 @@ public class SetHomeSubCommand extends SubCommand {
     @Override
     public boolean execute(CommandSender sender, String[] args) {
         Player p = Server.getInstance().getPlayer(sender.getName());
-        IslandData pd = getPlugin().getIslandInfo(p.getLocation());
+        IslandData pd = getPlugin().getGrid().getProtectedIslandAt(p.getLocation());
         // Check if the ground is an air
         if (!BlockUtil.isBreathable(p.clone().add(p.down()).getLevelBlock())) {
             p.sendMessage(getLocale(p).groundNoAir);
             return true;
         }
         // Check if the player on their own island or not
-        if (pd != null && pd.getOwner().equalsIgnoreCase(sender.getName())) {
+        if (pd != null && pd.getOwner() != null && pd.getOwner().equalsIgnoreCase(sender.getName())) {
             pd.setHomeLocation(p.getLocation());
+            getPlugin().getDatabase().saveIslandAsync(pd);
             p.sendMessage(getLocale(p).setHomeSuccess);
         } else {
             p.sendMessage(getLocale(p).errorNotOnIsland);
         }
-        ASkyBlock.get().getDatabase().saveIsland(pd); // Very big mistake
         return true;
     }
 
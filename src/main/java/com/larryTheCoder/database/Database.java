@@ -28,24 +28,36 @@ package com.larryTheCoder.database;
 
 import cn.nukkit.level.Position;
 import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.database.config.ConnectionPool;
+import com.larryTheCoder.island.IslandKey;
 import com.larryTheCoder.player.PlayerData;
 import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.storage.WorldSettings;
+import com.larryTheCoder.utils.Utils;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Abstract class to open a connection
  * database or resources
  * <p>
  * This class only stores island cache
- * and island spawn data
+ * and island spawn data, the island cache is
+ * shared with every database provider
+ * <p>
+ * Every request also have an asynchronous version that
+ * is run by the {@link DatabaseExecutor}, use these from the
+ * server thread so it won't wait for the database.
  *
  * @author larryTheCoder
  */
 public abstract class Database {
 
-    protected ArrayList<IslandData> islandCache = new ArrayList<>();
+    protected final IslandRegistry islandCache = new IslandRegistry();
     protected boolean enableFastCache;
     protected IslandData islandSpawn;
 
@@ -63,13 +75,92 @@ public abstract class Database {
 
     public void removeIslandFromCache(IslandData pd) {
         if (enableFastCache) {
-            for (IslandData pde : islandCache) {
-                if (pde.getIslandId() == pd.getIslandId()) {
-                    islandCache.remove(pde);
-                    break;
+            islandCache.remove(pd);
+        }
+    }
+
+    /**
+     * Get the island registry that stores
+     * the island cache of this database
+     *
+     * @return IslandRegistry
+     */
+    public IslandRegistry getIslandCache() {
+        return islandCache;
+    }
+
+    /**
+     * Applies the schema upgrades of this database. This runs
+     * once the worlds are loaded, since the island keys are
+     * computed from the world settings.
+     */
+    public void upgrade() {
+    }
+
+    /**
+     * Rewrites the island keys of every island with the packed
+     * keys of {@link IslandKey}. The old keys were computed into
+     * an int and collided across the grid.
+     * <p>
+     * The keys can only be computed for the loaded worlds, the
+     * islands of a world that is not loaded are skipped and keep
+     * their old keys.
+     *
+     * @param con         The connection
+     * @param table       The island table
+     * @param levelColumn The column that holds the world name
+     * @param keyColumns  The columns that identify a row, in the order of the primary key
+     * @throws SQLException if the keys cannot be written
+     */
+    protected void upgradeIslandKeys(Connection con, String table, String levelColumn, String... keyColumns) throws SQLException {
+        List<Object[]> islands = new ArrayList<>();
+        Set<String> missing = new HashSet<>();
+        try (Statement stmt = con.createStatement();
+             ResultSet set = stmt.executeQuery("SELECT " + String.join(", ", keyColumns) + ", `" + levelColumn + "`, `x`, `z` FROM `" + table + "`")) {
+            while (set.next()) {
+                Object[] key = new Object[keyColumns.length];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = set.getObject(i + 1);
+                }
+                String levelName = set.getString(key.length + 1);
+                WorldSettings settings = ASkyBlock.get().getSettings(levelName);
+                if (settings == null) {
+                    missing.add(levelName);
+                    continue;
                 }
+                int x = set.getInt(key.length + 2);
+                int z = set.getInt(key.length + 3);
+                islands.add(new Object[]{IslandKey.of(settings, x, z), key});
             }
         }
+        for (String levelName : missing) {
+            Utils.send("&cThe world " + levelName + " is not loaded, the island keys of this world were not upgraded");
+        }
+
+        StringBuilder where = new StringBuilder();
+        for (String column : keyColumns) {
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append(column).append(" = ?");
+        }
+        try (PreparedStatement stmt = con.prepareStatement("UPDATE `" + table + "` SET `islandId` = ?" + where)) {
+            for (Object[] island : islands) {
+                Object[] key = (Object[]) island[1];
+                stmt.setLong(1, (long) island[0]);
+                for (int i = 0; i < key.length; i++) {
+                    stmt.setObject(i + 2, key[i]);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Get the connection pool of this database
+     *
+     * @return ConnectionPool, or null if this database doesn't use one
+     */
+    public ConnectionPool getPool() {
+        return null;
     }
 
     public abstract void setSpawnPosition(Position pos);
@@ -88,7 +179,7 @@ public abstract class Database {
 
     public abstract IslandData getSpawn();
 
-    public abstract IslandData getIslandById(int id);
+    public abstract IslandData getIslandById(long id);
 
     public abstract void close();
 
@@ -106,5 +197,117 @@ public abstract class Database {
 
     public abstract void createPlayer(String p);
 
-    public abstract void savePlayerData(PlayerData pd);
+    public abstract boolean savePlayerData(PlayerData pd);
+
+    /**
+     * Reads every island of the database in one pass, the
+     * rows are given to the consumer while they are being read.
+     *
+     * @param fetchSize The rows that are fetched from the database at once
+     * @param consumer  Receives every island
+     * @return true if every island were read
+     */
+    public abstract boolean loadIslands(int fetchSize, Consumer<IslandData> consumer);
+
+    /**
+     * Loads every island into the memory so the first lookups
+     * after a restart won't need to query the database. When the
+     * fast cache is disabled only the protection index is filled.
+     *
+     * @param fetchSize The rows that are fetched from the database at once
+     */
+    public void warmup(int fetchSize) {
+        Runtime runtime = Runtime.getRuntime();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.currentTimeMillis();
+
+        IslandRegistry registry = getIslandCache();
+        Map<String, List<IslandData>> owners = new HashMap<>();
+        int[] count = {0};
+        boolean success = loadIslands(fetchSize, pd -> {
+            count[0]++;
+            if (enableFastCache) {
+                owners.computeIfAbsent(pd.getOwner().toLowerCase(), k -> new ArrayList<>()).add(pd);
+            } else {
+                registry.getProtectionIndex().put(pd);
+            }
+        });
+        if (!success) {
+            Utils.send("&cUnable to load the islands into the cache, they will be loaded when needed");
+            return;
+        }
+        // Every owner now have all of their islands loaded
+        owners.forEach(registry::putOwner);
+        // Every island of these worlds are known, the rest is wilderness
+        for (String level : ASkyBlock.get().getWorldRegistry().getNames()) {
+            registry.getProtectionIndex().markWorldLoaded(level);
+        }
+
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        Utils.send("&aLoaded " + count[0] + " islands in " + (System.currentTimeMillis() - start) + " ms, using about "
+                + Math.max(0, (usedAfter - usedBefore) / (1024 * 1024)) + " MB of memory");
+    }
+
+    // ------------------------------------------------------------------------
+    // Asynchronous requests
+    // ------------------------------------------------------------------------
+
+    /**
+     * Runs a request on the database threads, or in this thread
+     * if the executor is not yet started.
+     *
+     * @param request The request
+     * @return The result of the request
+     */
+    protected <T> CompletableFuture<T> async(Supplier<T> request) {
+        DatabaseExecutor executor = ASkyBlock.get().getDatabaseExecutor();
+        if (executor == null) {
+            return CompletableFuture.completedFuture(request.get());
+        }
+        return executor.supply(request);
+    }
+
+    public CompletableFuture<IslandData> getIslandLocationAsync(String levelName, int X, int Z) {
+        return async(() -> getIslandLocation(levelName, X, Z));
+    }
+
+    public CompletableFuture<ArrayList<IslandData>> getIslandsAsync(String owner) {
+        return async(() -> getIslands(owner));
+    }
+
+    public CompletableFuture<ArrayList<IslandData>> getIslandsAsync(String owner, String levelName) {
+        return async(() -> getIslands(owner, levelName));
+    }
+
+    public CompletableFuture<IslandData> getIslandAsync(String name, int homes) {
+        return async(() -> getIsland(name, homes));
+    }
+
+    public CompletableFuture<IslandData> getIslandAsync(String name, String homeName) {
+        return async(() -> getIsland(name, homeName));
+    }
+
+    public CompletableFuture<IslandData> getIslandByIdAsync(long id) {
+        return async(() -> getIslandById(id));
+    }
+
+    public CompletableFuture<IslandData> getSpawnAsync() {
+        return async(this::getSpawn);
+    }
+
+    public CompletableFuture<Boolean> createIslandAsync(IslandData pd) {
+        return async(() -> createIsland(pd));
+    }
+
+    public CompletableFuture<Boolean> saveIslandAsync(IslandData pd) {
+        return async(() -> saveIsland(pd));
+    }
+
+    public CompletableFuture<Boolean> deleteIslandAsync(IslandData pd) {
+        return async(() -> deleteIsland(pd));
+    }
+
+    public CompletableFuture<PlayerData> getPlayerDataAsync(String st) {
+        return async(() -> getPlayerData(st));
+    }
 }
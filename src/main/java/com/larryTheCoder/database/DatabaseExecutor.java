@@ -0,0 +1,141 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.larryTheCoder.database;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.larryTheCoder.utils.Utils;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The threads that runs the database requests away from
+ * the server thread. The pool and its queue are bounded, once
+ * the queue is full or the executor is stopped a request is
+ * rejected and its future completes exceptionally, a request is
+ * never run on the thread that made it.
+ *
+ * @author larryTheCoder
+ */
+public final class DatabaseExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param threads   The number of threads, should not be more than the connection pool
+     * @param queueSize The maximum of the requests that waits for a thread
+     */
+    public DatabaseExecutor(int threads, int queueSize) {
+        int size = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                new ThreadFactoryBuilder().setNameFormat("ASkyBlock Database #%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs a request on the database threads.
+     *
+     * @param request The request
+     * @return The result of the request
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> request) {
+        try {
+            return CompletableFuture.supplyAsync(request, executor);
+        } catch (RejectedExecutionException ex) {
+            return reject(ex);
+        }
+    }
+
+    /**
+     * Runs a request without result on the database threads.
+     *
+     * @param request The request
+     * @return Completed once the request is done
+     */
+    public CompletableFuture<Void> run(Runnable request) {
+        try {
+            return CompletableFuture.runAsync(request, executor);
+        } catch (RejectedExecutionException ex) {
+            return reject(ex);
+        }
+    }
+
+    private <T> CompletableFuture<T> reject(RejectedExecutionException ex) {
+        rejected.incrementAndGet();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+
+    /**
+     * Gets the number of requests that are waiting for a thread.
+     *
+     * @return Queued requests
+     */
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Gets the number of requests that are being run.
+     *
+     * @return Running requests
+     */
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Gets the number of requests that were rejected because
+     * the queue was full or the executor was stopped.
+     *
+     * @return Rejected requests
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops accepting requests and waits for the queued
+     * ones to be done.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                Utils.send("&cDatabase requests took too long to finish, " + executor.shutdownNow().size() + " requests were dropped");
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
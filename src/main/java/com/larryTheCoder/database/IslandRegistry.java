@@ -0,0 +1,395 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.database;
+
+import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.utils.LongObjectMap;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory island registry shared by every database
+ * provider. Each island is indexed by its grid key and world,
+ * by its owner and by the owner home number or home name
+ * so every lookup is a hash lookup instead of a list scan.
+ * <p>
+ * All of the indexes are guarded by one read-write lock so
+ * readers always see the indexes in a consistent state.
+ * <p>
+ * Every indexed island is also placed in the {@link ProtectionIndex},
+ * which is not released by {@link #remove} or {@link #clear} since
+ * protection checks needs the islands of offline players too.
+ *
+ * @author larryTheCoder
+ */
+public class IslandRegistry {
+
+    // islandId -> island, the key holds the world too
+    private final LongObjectMap<Entry> byLocation = new LongObjectMap<>();
+    // Owner name -> home id -> island
+    private final HashMap<String, HashMap<Integer, Entry>> byOwner = new HashMap<>();
+    // Owner name -> home name -> island
+    private final HashMap<String, HashMap<String, Entry>> byHomeName = new HashMap<>();
+    // Owners that had all of their islands loaded from the database
+    private final HashSet<String> loadedOwners = new HashSet<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ProtectionIndex protection = new ProtectionIndex();
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase();
+    }
+
+    /**
+     * Get the island that is located at this grid key
+     * in the given world.
+     *
+     * @param levelName The world name
+     * @param islandId  The grid key of the island
+     * @return IslandData or null if it isn't in the registry
+     */
+    public IslandData getIslandAt(String levelName, long islandId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = byLocation.get(islandId);
+            return entry == null || !entry.levelName.equals(lower(levelName)) ? null : entry.island;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the island that is located at this grid key
+     * in any of the worlds.
+     *
+     * @param islandId The grid key of the island
+     * @return IslandData or null if it isn't in the registry
+     */
+    public IslandData getIslandById(long islandId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = byLocation.get(islandId);
+            return entry == null ? null : entry.island;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the island by the owner and the home number
+     *
+     * @param owner The owner of the island, case insensitive
+     * @param homes The home number of the island
+     * @return IslandData or null if it isn't in the registry
+     */
+    public IslandData getIsland(String owner, int homes) {
+        lock.readLock().lock();
+        try {
+            HashMap<Integer, Entry> islands = byOwner.get(lower(owner));
+            if (islands == null) {
+                return null;
+            }
+            Entry entry = islands.get(homes);
+            return entry == null ? null : entry.island;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the island by the owner and the home name
+     *
+     * @param owner    The owner of the island, case insensitive
+     * @param homeName The home name of the island, case insensitive
+     * @return IslandData or null if it isn't in the registry
+     */
+    public IslandData getIsland(String owner, String homeName) {
+        lock.readLock().lock();
+        try {
+            HashMap<String, Entry> islands = byHomeName.get(lower(owner));
+            if (islands == null) {
+                return null;
+            }
+            Entry entry = islands.get(lower(homeName));
+            return entry == null ? null : entry.island;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get every island that are owned by this player.
+     *
+     * @param owner The owner of the islands, case insensitive
+     * @return A list of islands, never null
+     */
+    public ArrayList<IslandData> getIslands(String owner) {
+        lock.readLock().lock();
+        try {
+            ArrayList<IslandData> list = new ArrayList<>();
+            HashMap<Integer, Entry> islands = byOwner.get(lower(owner));
+            if (islands != null) {
+                islands.values().forEach(entry -> list.add(entry.island));
+            }
+            return list;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get every island that are owned by this player
+     * in the given world.
+     *
+     * @param owner     The owner of the islands, case insensitive
+     * @param levelName The world name
+     * @return A list of islands, never null
+     */
+    public ArrayList<IslandData> getIslands(String owner, String levelName) {
+        lock.readLock().lock();
+        try {
+            ArrayList<IslandData> list = new ArrayList<>();
+            HashMap<Integer, Entry> islands = byOwner.get(lower(owner));
+            if (islands != null) {
+                String world = lower(levelName);
+                for (Entry entry : islands.values()) {
+                    if (entry.levelName.equals(world)) {
+                        list.add(entry.island);
+                    }
+                }
+            }
+            return list;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if every island of this owner has been
+     * loaded into the registry. When this is true the
+     * registry is authoritative for the owner.
+     *
+     * @param owner The owner of the islands
+     * @return true if the owner were fully loaded
+     */
+    public boolean isOwnerLoaded(String owner) {
+        lock.readLock().lock();
+        try {
+            return loadedOwners.contains(lower(owner));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replace every island of this owner with the islands
+     * that were loaded from the database.
+     *
+     * @param owner   The owner of the islands
+     * @param islands Every island that this owner have
+     */
+    public void putOwner(String owner, Collection<IslandData> islands) {
+        lock.writeLock().lock();
+        try {
+            islands.forEach(this::index);
+            loadedOwners.add(lower(owner));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Put or re-index an island in the registry. If the
+     * island were stored before, all of its old keys will be
+     * replaced by the current values of the island.
+     *
+     * @param pd The island to be stored
+     */
+    public void put(IslandData pd) {
+        if (pd == null || pd.getOwner() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index(pd);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Put all of these islands into the registry
+     *
+     * @param islands The islands to be stored
+     */
+    public void putAll(Collection<IslandData> islands) {
+        lock.writeLock().lock();
+        try {
+            islands.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the island from every indexes
+     *
+     * @param pd The island to be removed
+     */
+    public void remove(IslandData pd) {
+        if (pd == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Entry entry = byLocation.get(pd.getIslandId());
+            if (entry != null) {
+                unindex(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a deleted island from the registry and
+     * from the protection index.
+     *
+     * @param pd The island that were deleted
+     */
+    public void delete(IslandData pd) {
+        remove(pd);
+        protection.remove(pd);
+    }
+
+    /**
+     * Get the spatial index of the island protections
+     *
+     * @return ProtectionIndex
+     */
+    public ProtectionIndex getProtectionIndex() {
+        return protection;
+    }
+
+    /**
+     * Release every island from the registry
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            byLocation.clear();
+            byOwner.clear();
+            byHomeName.clear();
+            loadedOwners.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of islands in the registry
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byLocation.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(IslandData pd) {
+        if (pd == null || pd.getOwner() == null) {
+            return;
+        }
+        Entry old = byLocation.get(pd.getIslandId());
+        if (old != null) {
+            unindex(old);
+        }
+        // The same island object could be stored with another key before
+        // (E.g. the home id), so always look up the owner index too.
+        HashMap<Integer, Entry> owned = byOwner.get(lower(pd.getOwner()));
+        if (owned != null && (old = owned.get(pd.getId())) != null) {
+            unindex(old);
+        }
+
+        Entry entry = new Entry(pd);
+        byLocation.put(entry.islandId, entry);
+        byOwner.computeIfAbsent(entry.owner, k -> new HashMap<>()).put(entry.id, entry);
+        if (entry.homeName != null) {
+            byHomeName.computeIfAbsent(entry.owner, k -> new HashMap<>()).put(entry.homeName, entry);
+        }
+        protection.put(pd);
+    }
+
+    private void unindex(Entry entry) {
+        if (byLocation.get(entry.islandId) == entry) {
+            byLocation.remove(entry.islandId);
+        }
+        HashMap<Integer, Entry> owned = byOwner.get(entry.owner);
+        if (owned != null && owned.get(entry.id) == entry) {
+            owned.remove(entry.id);
+            if (owned.isEmpty()) {
+                byOwner.remove(entry.owner);
+            }
+        }
+        HashMap<String, Entry> names = byHomeName.get(entry.owner);
+        if (names != null && entry.homeName != null && names.get(entry.homeName) == entry) {
+            names.remove(entry.homeName);
+            if (names.isEmpty()) {
+                byHomeName.remove(entry.owner);
+            }
+        }
+    }
+
+    /**
+     * The keys of an island at the time it were indexed,
+     * the island could be modified later so these keys are
+     * used to remove the island from the old indexes.
+     */
+    private static class Entry {
+
+        private final IslandData island;
+        private final String levelName;
+        private final String owner;
+        private final String homeName;
+        private final long islandId;
+        private final int id;
+
+        private Entry(IslandData island) {
+            this.island = island;
+            this.levelName = lower(island.getLevelName());
+            this.owner = lower(island.getOwner());
+            this.homeName = island.getName() == null ? null : island.getName().toLowerCase();
+            this.islandId = island.getIslandId();
+            this.id = island.getId();
+        }
+    }
+}
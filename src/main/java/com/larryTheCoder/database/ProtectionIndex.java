@@ -0,0 +1,418 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.larryTheCoder.database;
+
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.storage.WorldSettings;
+import com.larryTheCoder.utils.LongObjectMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Spatial index of the island protection areas. Every world
+ * is divided into cells as large as the island distance, and
+ * each cell keeps the islands whose protection overlaps it.
+ * <p>
+ * Resolving a block into its island is two divisions, one
+ * primitive hash probe and a bounds check; nothing is allocated
+ * and nothing touches the database. A cell that were never
+ * resolved is reported as not indexed so the caller can load
+ * it asynchronously.
+ *
+ * @author larryTheCoder
+ */
+public class ProtectionIndex {
+
+    // Cell were resolved and has no island
+    private static final IslandData[] EMPTY = new IslandData[0];
+    // Cell is being resolved by a loader
+    private static final IslandData[] LOADING = new IslandData[0];
+
+    private final HashMap<String, WorldGrid> worlds = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Changes every time an island or a cell changes
+    private volatile int version = 0;
+
+    /**
+     * Checks if the island protects this block.
+     *
+     * @param pd The island
+     * @param x  Block x coordinate
+     * @param z  Block z coordinate
+     * @return true if the block is inside the island protection
+     */
+    public static boolean protects(IslandData pd, int x, int z) {
+        return x >= pd.getMinProtectedX() && x <= pd.getMinProtectedX() + pd.getProtectionSize()
+                && z >= pd.getMinProtectedZ() && z <= pd.getMinProtectedZ() + pd.getProtectionSize();
+    }
+
+    /**
+     * Get the island that protects this block.
+     *
+     * @param levelName The world name
+     * @param x         Block x coordinate
+     * @param z         Block z coordinate
+     * @return The island, or null if no island protects this block
+     */
+    public IslandData getIslandAt(String levelName, int x, int z) {
+        lock.readLock().lock();
+        try {
+            WorldGrid grid = worlds.get(levelName);
+            if (grid == null) {
+                return null;
+            }
+            IslandData[] islands = grid.get(grid.cellKey(x, z));
+            if (islands == null) {
+                return null;
+            }
+            for (IslandData pd : islands) {
+                if (protects(pd, x, z)) {
+                    return pd;
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get every island that overlaps the cell of this block. The
+     * array is never modified, a change of the cell replaces it.
+     *
+     * @param levelName The world name
+     * @param x         Block x coordinate
+     * @param z         Block z coordinate
+     * @return The islands of the cell, or null if the cell is not resolved yet
+     */
+    public IslandData[] getCell(String levelName, int x, int z) {
+        lock.readLock().lock();
+        try {
+            WorldGrid grid = worlds.get(levelName);
+            if (grid == null) {
+                return null;
+            }
+            IslandData[] islands = grid.get(grid.cellKey(x, z));
+            if (islands == null || islands == LOADING) {
+                return grid.complete ? EMPTY : null;
+            }
+            return islands;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The version changes every time the index is modified, a
+     * cell that was read with the same version is still valid.
+     *
+     * @return The version of the index
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Marks the cell of this block as loading if it were never
+     * resolved before. Only the caller that receives true should
+     * load the cell and then call {@link #markLoaded}.
+     *
+     * @param levelName The world name
+     * @param x         Block x coordinate
+     * @param z         Block z coordinate
+     * @return true if the cell needs to be loaded
+     */
+    public boolean requestLoad(String levelName, int x, int z) {
+        lock.readLock().lock();
+        try {
+            WorldGrid grid = worlds.get(levelName);
+            if (grid != null && (grid.complete || grid.get(grid.cellKey(x, z)) != null)) {
+                return false;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            WorldGrid grid = getGrid(levelName);
+            if (grid == null) {
+                return false;
+            }
+            long key = grid.cellKey(x, z);
+            if (grid.get(key) != null) {
+                return false;
+            }
+            grid.set(key, LOADING);
+            version++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the cell of this block as resolved. Islands in
+     * this cell must be put before calling this.
+     *
+     * @param levelName The world name
+     * @param x         Block x coordinate
+     * @param z         Block z coordinate
+     */
+    public void markLoaded(String levelName, int x, int z) {
+        lock.writeLock().lock();
+        try {
+            WorldGrid grid = worlds.get(levelName);
+            if (grid == null) {
+                return;
+            }
+            long key = grid.cellKey(x, z);
+            if (grid.get(key) == LOADING) {
+                grid.set(key, EMPTY);
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Put or move the island in the index. An island
+     * with the same grid key in the world is replaced.
+     *
+     * @param pd The island to be indexed
+     */
+    public void put(IslandData pd) {
+        if (pd == null || pd.getOwner() == null || pd.getLevelName() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            WorldGrid grid = getGrid(pd.getLevelName());
+            if (grid != null) {
+                grid.remove(pd.getIslandId());
+                grid.add(pd);
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the island from the index, its cells
+     * stays resolved as empty.
+     *
+     * @param pd The island to be removed
+     */
+    public void remove(IslandData pd) {
+        if (pd == null || pd.getLevelName() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            WorldGrid grid = worlds.get(pd.getLevelName());
+            if (grid != null) {
+                grid.remove(pd.getIslandId());
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks every cell of this world as resolved, every island
+     * of this world must be put before calling this.
+     *
+     * @param levelName The world name
+     */
+    public void markWorldLoaded(String levelName) {
+        lock.writeLock().lock();
+        try {
+            WorldGrid grid = getGrid(levelName);
+            if (grid != null) {
+                grid.complete = true;
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Forget every resolved cell
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            worlds.clear();
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private WorldGrid getGrid(String levelName) {
+        WorldGrid grid = worlds.get(levelName);
+        if (grid == null) {
+            WorldSettings settings = ASkyBlock.get().getSettings(levelName);
+            if (settings == null || settings.getIslandDistance() <= 0) {
+                return null;
+            }
+            grid = new WorldGrid(settings.getIslandDistance());
+            worlds.put(levelName, grid);
+        }
+        return grid;
+    }
+
+    /**
+     * Open addressing map of cell key to the islands in
+     * that cell, so the lookups doesn't box the keys.
+     */
+    private static class WorldGrid {
+
+        private final int distance;
+        // islandId -> cells where the island were placed
+        private final LongObjectMap<long[]> placed = new LongObjectMap<>();
+        private long[] keys = new long[64];
+        private IslandData[][] values = new IslandData[64][];
+        private int size = 0;
+        // Every island of this world is indexed
+        private boolean complete = false;
+
+        WorldGrid(int distance) {
+            this.distance = distance;
+        }
+
+        long cellKey(int x, int z) {
+            return pack(Math.floorDiv(x, distance), Math.floorDiv(z, distance));
+        }
+
+        private static long pack(int cellX, int cellZ) {
+            return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        IslandData[] get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                IslandData[] value = values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return value;
+                }
+            }
+        }
+
+        void set(long key, IslandData[] value) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (values[i] == null) {
+                    keys[i] = key;
+                    values[i] = value;
+                    if (++size * 2 > keys.length) {
+                        rehash();
+                    }
+                    return;
+                }
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            IslandData[][] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new IslandData[oldKeys.length * 2][];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    set(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        void add(IslandData pd) {
+            int minCellX = Math.floorDiv(pd.getMinProtectedX(), distance);
+            int maxCellX = Math.floorDiv(pd.getMinProtectedX() + pd.getProtectionSize(), distance);
+            int minCellZ = Math.floorDiv(pd.getMinProtectedZ(), distance);
+            int maxCellZ = Math.floorDiv(pd.getMinProtectedZ() + pd.getProtectionSize(), distance);
+
+            long[] cells = new long[(maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1)];
+            int index = 0;
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    long key = pack(cellX, cellZ);
+                    IslandData[] islands = get(key);
+                    if (islands == null || islands.length == 0) {
+                        set(key, new IslandData[]{pd});
+                    } else {
+                        IslandData[] copy = Arrays.copyOf(islands, islands.length + 1);
+                        copy[islands.length] = pd;
+                        set(key, copy);
+                    }
+                    cells[index++] = key;
+                }
+            }
+            placed.put(pd.getIslandId(), cells);
+        }
+
+        void remove(long islandId) {
+            long[] cells = placed.remove(islandId);
+            if (cells == null) {
+                return;
+            }
+            for (long key : cells) {
+                IslandData[] islands = get(key);
+                if (islands == null || islands.length == 0) {
+                    continue;
+                }
+                IslandData[] copy = new IslandData[islands.length];
+                int length = 0;
+                for (IslandData pd : islands) {
+                    if (pd.getIslandId() != islandId) {
+                        copy[length++] = pd;
+                    }
+                }
+                set(key, length == 0 ? EMPTY : Arrays.copyOf(copy, length));
+            }
+        }
+    }
+}
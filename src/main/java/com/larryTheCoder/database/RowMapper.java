@@ -0,0 +1,107 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.larryTheCoder.database;
+
+import com.larryTheCoder.player.PlayerData;
+import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.utils.Utils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set into an object.
+ * The providers shares the same mappers, only the column
+ * names differs between them.
+ *
+ * @author larryTheCoder
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Reads the current row of the result set, the cursor
+     * must be already moved into the row.
+     *
+     * @param set The result set
+     * @return The object of this row
+     * @throws SQLException if a column cannot be read
+     */
+    T map(ResultSet set) throws SQLException;
+
+    /**
+     * Creates an island mapper for the given column names.
+     *
+     * @param levelColumn The column of the world name
+     * @param nameColumn  The column of the island name
+     * @param ownerColumn The column of the island owner
+     * @return The island mapper
+     */
+    static RowMapper<IslandData> island(String levelColumn, String nameColumn, String ownerColumn) {
+        return set -> new IslandData(
+                set.getString(levelColumn),
+                set.getInt("x"),
+                set.getInt("y"),
+                set.getInt("z"),
+                set.getInt("spawnX"),
+                set.getInt("spawnY"),
+                set.getInt("spawnZ"),
+                set.getInt("psize"),
+                set.getString(nameColumn),
+                set.getString(ownerColumn),
+                set.getString("biome"),
+                set.getInt("id"),
+                set.getLong("islandId"),
+                set.getBoolean("locked"),
+                set.getString("protection"),
+                set.getBoolean("isSpawn"));
+    }
+
+    /**
+     * Creates a player mapper for the given team name column.
+     *
+     * @param teamColumn The column of the team name
+     * @return The player mapper
+     */
+    static RowMapper<PlayerData> player(String teamColumn) {
+        return set -> new PlayerData(
+                set.getString("player"),
+                set.getInt("homes"),
+                Utils.stringToArray(set.getString("members"), ", "),
+                set.getString("challengelist"),
+                set.getString("challengelisttimes"),
+                set.getInt("islandlvl"),
+                set.getBoolean("inTeam"),
+                set.getInt("deaths"),
+                set.getString("teamLeader"),
+                set.getString("teamIslandLocation"),
+                set.getInt("resetleft"),
+                Utils.stringToArray(set.getString("banList"), ", "),
+                set.getString("locale"),
+                set.getString(teamColumn));
+    }
+}
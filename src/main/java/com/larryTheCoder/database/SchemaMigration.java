@@ -0,0 +1,158 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.larryTheCoder.database;
+
+import com.larryTheCoder.utils.Utils;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Versioned schema upgrades of the database. The version that the
+ * database is in is stored in its own table, and every migration
+ * newer than it is applied on startup in the order of the versions.
+ * <p>
+ * A migration must be safe to run twice, since the DDL statements
+ * commits by themselves in MySQL and a crash could happen between
+ * the migration and the version record.
+ *
+ * @author larryTheCoder
+ */
+public final class SchemaMigration {
+
+    private final String versionTable;
+    private final List<Migration> migrations = new ArrayList<>();
+
+    /**
+     * @param versionTable The table that stores the schema version
+     */
+    public SchemaMigration(String versionTable) {
+        this.versionTable = versionTable;
+    }
+
+    /**
+     * Registers a migration.
+     *
+     * @param version     The schema version after this migration, starts at 1
+     * @param description Short description of the changes
+     * @param action      The migration itself
+     * @return This instance
+     */
+    public SchemaMigration add(int version, String description, Action action) {
+        migrations.add(new Migration(version, description, action));
+        return this;
+    }
+
+    /**
+     * Applies every migration that is newer than the current
+     * schema version.
+     *
+     * @param con The connection
+     * @return The schema version after the migrations
+     * @throws SQLException if a migration fails, the version stays at the last
+     *                      migration that succeeded
+     */
+    public int migrate(Connection con) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS `" + versionTable + "` ("
+                    + "`version` INTEGER NOT NULL,"
+                    + "`description` VARCHAR(128) NOT NULL,"
+                    + "`installed` BIGINT NOT NULL)");
+        }
+        int current = getVersion(con);
+        migrations.sort(Comparator.comparingInt(m -> m.version));
+        for (Migration migration : migrations) {
+            if (migration.version <= current) {
+                continue;
+            }
+            Utils.send("&eUpgrading the database schema to version " + migration.version + ": " + migration.description);
+            migration.action.apply(con);
+            try (PreparedStatement stmt = con.prepareStatement("INSERT INTO `" + versionTable + "` (`version`, `description`, `installed`) VALUES (?, ?, ?)")) {
+                stmt.setInt(1, migration.version);
+                stmt.setString(2, migration.description);
+                stmt.setLong(3, System.currentTimeMillis());
+                stmt.executeUpdate();
+            }
+            current = migration.version;
+        }
+        return current;
+    }
+
+    private int getVersion(Connection con) throws SQLException {
+        try (Statement stmt = con.createStatement();
+             ResultSet set = stmt.executeQuery("SELECT MAX(`version`) FROM `" + versionTable + "`")) {
+            return set.next() ? set.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Creates an index if there is no index with the same name
+     * on the table yet.
+     *
+     * @param con     The connection
+     * @param table   The table name
+     * @param index   The index name
+     * @param columns The columns of the index, as in the CREATE INDEX statement
+     * @throws SQLException if the index cannot be created
+     */
+    public static void createIndex(Connection con, String table, String index, String columns) throws SQLException {
+        try (ResultSet set = con.getMetaData().getIndexInfo(null, null, table, false, true)) {
+            while (set.next()) {
+                if (index.equalsIgnoreCase(set.getString("INDEX_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("CREATE INDEX `" + index + "` ON `" + table + "` (" + columns + ")");
+        }
+    }
+
+    /**
+     * A single schema change.
+     */
+    @FunctionalInterface
+    public interface Action {
+
+        void apply(Connection con) throws SQLException;
+    }
+
+    private static class Migration {
+
+        private final int version;
+        private final String description;
+        private final Action action;
+
+        Migration(int version, String description, Action action) {
+            this.version = version;
+            this.description = description;
+            this.action = action;
+        }
+    }
+}
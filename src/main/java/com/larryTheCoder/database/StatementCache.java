@@ -0,0 +1,170 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.larryTheCoder.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prepares each query once for every physical connection of the
+ * pool and binds the parameters into it. The pool gives a new proxy
+ * on every borrow, so the statements are kept by the connection that
+ * is wrapped by the proxy and stay open between two borrows. They are
+ * closed together with the connection when the pool retires it.
+ * <p>
+ * A connection is only used by one thread while it is borrowed,
+ * so the statements of it are never shared between threads.
+ *
+ * @author larryTheCoder
+ */
+public final class StatementCache {
+
+    private final Map<Connection, Map<String, PreparedStatement>> statements = new ConcurrentHashMap<>();
+
+    /**
+     * Runs a query and maps the first row of it.
+     *
+     * @param con    The borrowed connection
+     * @param sql    The query, with '?' as the parameters
+     * @param mapper The row mapper
+     * @param params The parameters of the query
+     * @return The object of the first row, or null if there is no rows
+     * @throws SQLException if the query fails
+     */
+    public <T> T queryOne(Connection con, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        PreparedStatement stmt = prepare(con, sql, params);
+        try (ResultSet set = stmt.executeQuery()) {
+            return set.next() ? mapper.map(set) : null;
+        }
+    }
+
+    /**
+     * Runs a query and maps every row of it.
+     *
+     * @param con    The borrowed connection
+     * @param sql    The query, with '?' as the parameters
+     * @param mapper The row mapper
+     * @param params The parameters of the query
+     * @return The objects of every row
+     * @throws SQLException if the query fails
+     */
+    public <T> ArrayList<T> queryList(Connection con, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        ArrayList<T> list = new ArrayList<>();
+        PreparedStatement stmt = prepare(con, sql, params);
+        try (ResultSet set = stmt.executeQuery()) {
+            while (set.next()) {
+                list.add(mapper.map(set));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Runs an INSERT, UPDATE or DELETE statement.
+     *
+     * @param con    The borrowed connection
+     * @param sql    The statement, with '?' as the parameters
+     * @param params The parameters of the statement
+     * @return The number of rows changed
+     * @throws SQLException if the statement fails
+     */
+    public int update(Connection con, String sql, Object... params) throws SQLException {
+        return prepare(con, sql, params).executeUpdate();
+    }
+
+    /**
+     * Gets the prepared statement of the query for this connection
+     * and binds the parameters into it.
+     *
+     * @param con    The borrowed connection
+     * @param sql    The query
+     * @param params The parameters of the query
+     * @return The prepared statement, it must not be closed
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(Connection con, String sql, Object... params) throws SQLException {
+        Connection physical = con.isWrapperFor(Connection.class) ? con.unwrap(Connection.class) : con;
+        Map<String, PreparedStatement> cached = statements.get(physical);
+        if (cached == null) {
+            // The pool opened a new connection, it may have retired others
+            purge();
+            cached = new HashMap<>();
+            statements.put(physical, cached);
+        }
+        PreparedStatement stmt = cached.get(sql);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = physical.prepareStatement(sql);
+            cached.put(sql, stmt);
+        }
+        stmt.clearParameters();
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+        return stmt;
+    }
+
+    /**
+     * Closes every statements, the connection pool must be closed
+     * after this.
+     */
+    public void clear() {
+        for (Map<String, PreparedStatement> cached : statements.values()) {
+            for (PreparedStatement stmt : cached.values()) {
+                try {
+                    stmt.close();
+                } catch (SQLException ex) {
+                    JDBCUtilities.printSQLException(ex);
+                }
+            }
+        }
+        statements.clear();
+    }
+
+    /**
+     * Removes the statements of the connections that were
+     * closed by the pool.
+     */
+    private void purge() {
+        Iterator<Connection> it = statements.keySet().iterator();
+        while (it.hasNext()) {
+            try {
+                if (it.next().isClosed()) {
+                    it.remove();
+                }
+            } catch (SQLException ex) {
+                it.remove();
+            }
+        }
+    }
+}
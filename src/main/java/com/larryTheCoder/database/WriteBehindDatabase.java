@@ -0,0 +1,688 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.database;
+
+import cn.nukkit.level.Position;
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.database.config.ConnectionPool;
+import com.larryTheCoder.player.PlayerData;
+import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.utils.Utils;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind layer for any of the database provider.
+ * <p>
+ * Every island and player mutation is stored in memory and
+ * coalesced by its key, the last state of the data will then be
+ * flushed by a dedicated writer thread in batches. Reads that
+ * touch a pending data will be answered from the queue so the
+ * caller always sees its own writes.
+ *
+ * @author larryTheCoder
+ */
+public class WriteBehindDatabase extends Database {
+
+    private final Database database;
+    private final int batchSize;
+    private final int maxRetries;
+
+    // Pending writes, ordered by their first insertion
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    // Writes taken by the writer, still visible to reads until they are written
+    private final Map<String, Pending> writing = new HashMap<>();
+    // The pending islands by their island id and by their owner
+    private final Map<Long, Set<String>> pendingIds = new HashMap<>();
+    private final Map<String, Set<String>> pendingOwners = new HashMap<>();
+    private final Map<String, Indexed> indexed = new HashMap<>();
+    private final ScheduledExecutorService writer;
+
+    // Statistics
+    private final AtomicLong flushedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong droppedWrites = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushTime = new AtomicLong();
+    private volatile long lastFlushTime = 0;
+    private volatile long maxFlushTime = 0;
+
+    /**
+     * Wrap a database provider with a write-behind queue.
+     *
+     * @param database      The database provider
+     * @param flushInterval The interval between each flush, in seconds
+     * @param batchSize     The maximum of data that will be written in one flush
+     * @param maxRetries    The attempts before a failing data is dropped
+     */
+    public WriteBehindDatabase(Database database, int flushInterval, int batchSize, int maxRetries) {
+        this.database = database;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRetries = Math.max(1, maxRetries);
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ASkyBlock Database Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, flushInterval);
+        this.writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private static String islandKey(IslandData pd) {
+        return "island:" + String.valueOf(pd.getLevelName()).toLowerCase() + ":" + pd.getIslandId();
+    }
+
+    private static String playerKey(String player) {
+        return "player:" + player.toLowerCase();
+    }
+
+    /**
+     * Get the database provider that are wrapped
+     * by this queue.
+     *
+     * @return Database
+     */
+    public Database getDatabase() {
+        return database;
+    }
+
+    // ------------------------------------------------------------------------
+    // Queue
+    // ------------------------------------------------------------------------
+
+    private Pending pendingFor(String key) {
+        return pending.computeIfAbsent(key, k -> new Pending());
+    }
+
+    /**
+     * Updates the indexes of a pending island after its write
+     * were changed, must be called while holding the queue lock.
+     *
+     * @param key The key of the write
+     */
+    private void reindex(String key) {
+        Indexed old = indexed.remove(key);
+        if (old != null) {
+            unindex(pendingIds, old.id, key);
+            if (old.owner != null) {
+                unindex(pendingOwners, old.owner, key);
+            }
+        }
+        Pending write = pending.get(key);
+        if (write == null) {
+            write = writing.get(key);
+        }
+        if (write == null || write.island == null || write.isDeleted()) {
+            return;
+        }
+        String owner = write.island.getOwner() != null ? write.island.getOwner().toLowerCase() : null;
+        indexed.put(key, new Indexed(write.island.getIslandId(), owner));
+        pendingIds.computeIfAbsent(write.island.getIslandId(), k -> new HashSet<>()).add(key);
+        if (owner != null) {
+            pendingOwners.computeIfAbsent(owner, k -> new HashSet<>()).add(key);
+        }
+    }
+
+    private static <K> void unindex(Map<K, Set<String>> index, K value, String key) {
+        Set<String> keys = index.get(value);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(value);
+        }
+    }
+
+    @Override
+    public boolean createIsland(IslandData pd) {
+        synchronized (pending) {
+            String key = islandKey(pd);
+            pendingFor(key).create(pd);
+            reindex(key);
+        }
+        // Protection must follow the island before it is written
+        getIslandCache().getProtectionIndex().put(pd);
+        return true;
+    }
+
+    @Override
+    public boolean saveIsland(IslandData pd) {
+        synchronized (pending) {
+            String key = islandKey(pd);
+            pendingFor(key).save(pd);
+            reindex(key);
+        }
+        getIslandCache().getProtectionIndex().put(pd);
+        return true;
+    }
+
+    @Override
+    public boolean deleteIsland(IslandData pd) {
+        synchronized (pending) {
+            String key = islandKey(pd);
+            if (pendingFor(key).delete(pd)) {
+                // This island never reached the database
+                pending.remove(key);
+            }
+            reindex(key);
+        }
+        getIslandCache().getProtectionIndex().remove(pd);
+        return true;
+    }
+
+    @Override
+    public boolean savePlayerData(PlayerData pd) {
+        synchronized (pending) {
+            pendingFor(playerKey(pd.getPlayerName())).savePlayer(pd);
+        }
+        return true;
+    }
+
+    /**
+     * Flush the pending writes into the database, this is
+     * executed by the writer thread.
+     */
+    private void flush() {
+        List<Map.Entry<String, Pending>> batch = new ArrayList<>();
+        synchronized (pending) {
+            Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+            while (it.hasNext() && batch.size() < batchSize) {
+                Map.Entry<String, Pending> entry = it.next();
+                batch.add(entry);
+                // The writer changes the entry while writing it, reads use a copy
+                writing.put(entry.getKey(), entry.getValue().copy());
+                it.remove();
+                reindex(entry.getKey());
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        for (Map.Entry<String, Pending> entry : batch) {
+            Pending write = entry.getValue();
+            try {
+                if (write(write)) {
+                    synchronized (pending) {
+                        writing.remove(entry.getKey());
+                        reindex(entry.getKey());
+                    }
+                    continue;
+                }
+            } catch (Exception ex) {
+                Utils.send("&cUnable to write " + entry.getKey() + " into the database: " + ex.getMessage());
+            }
+            failedWrites.incrementAndGet();
+            requeue(entry.getKey(), write);
+        }
+        long time = System.currentTimeMillis() - start;
+
+        flushCount.incrementAndGet();
+        totalFlushTime.addAndGet(time);
+        lastFlushTime = time;
+        if (time > maxFlushTime) {
+            maxFlushTime = time;
+        }
+    }
+
+    /**
+     * Write the data into the database provider. Every operation
+     * that succeed is removed from the data so a retry will only
+     * execute the remaining operations.
+     *
+     * @return true if every operation succeed
+     */
+    private boolean write(Pending write) {
+        if (write.delete) {
+            if (!database.deleteIsland(write.deleted)) {
+                return false;
+            }
+            write.delete = false;
+            write.deleted = null;
+            flushedWrites.incrementAndGet();
+        }
+        if (write.create) {
+            if (!database.createIsland(write.island)) {
+                return false;
+            }
+            write.create = false;
+            flushedWrites.incrementAndGet();
+        }
+        if (write.save) {
+            boolean result = write.island != null ? database.saveIsland(write.island) : database.savePlayerData(write.player);
+            if (!result) {
+                return false;
+            }
+            write.save = false;
+            flushedWrites.incrementAndGet();
+        }
+        return true;
+    }
+
+    private void requeue(String key, Pending write) {
+        if (++write.attempts >= maxRetries) {
+            synchronized (pending) {
+                writing.remove(key);
+                reindex(key);
+            }
+            droppedWrites.incrementAndGet();
+            Utils.send("&cGiving up on writing " + key + " into the database after " + write.attempts + " attempts.");
+            return;
+        }
+        synchronized (pending) {
+            writing.remove(key);
+            Pending newer = pending.remove(key);
+            if (newer != null) {
+                // The failed operations must be executed before
+                // the operations that were queued after it.
+                write.merge(newer);
+            }
+            pending.put(key, write);
+            reindex(key);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Reads, pending data always wins over the database
+    // ------------------------------------------------------------------------
+
+    private Pending getPending(String key) {
+        synchronized (pending) {
+            Pending write = pending.get(key);
+            return write != null ? write : writing.get(key);
+        }
+    }
+
+    /**
+     * Get the pending islands that are indexed under a value.
+     *
+     * @return The islands that are neither deleted nor changed since they were indexed
+     */
+    private <K> List<IslandData> getPendingIslands(Map<K, Set<String>> index, K value) {
+        List<IslandData> list = new ArrayList<>();
+        synchronized (pending) {
+            Set<String> keys = index.get(value);
+            if (keys == null) {
+                return list;
+            }
+            for (String key : keys) {
+                Pending write = pending.get(key);
+                if (write == null) {
+                    write = writing.get(key);
+                }
+                if (write != null && write.island != null && !write.isDeleted()) {
+                    list.add(write.island);
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the current state of an island that were read from
+     * the database provider.
+     *
+     * @return The pending island that replaced it, or null if it is deleted
+     */
+    private IslandData getCurrent(IslandData pd) {
+        if (pd == null) {
+            return null;
+        }
+        Pending write = getPending(islandKey(pd));
+        if (write == null || write.island == null) {
+            return pd;
+        }
+        return write.isDeleted() ? null : write.island;
+    }
+
+    private static boolean isOwner(IslandData pd, String owner) {
+        return pd.getOwner() != null && pd.getOwner().equalsIgnoreCase(owner);
+    }
+
+    @Override
+    public IslandData getIslandLocation(String levelName, int X, int Z) {
+        long id = ASkyBlock.get().getIsland().generateIslandKey(X, Z, levelName);
+        Pending write = getPending("island:" + levelName.toLowerCase() + ":" + id);
+        if (write != null && write.island != null) {
+            if (write.isDeleted()) {
+                return new IslandData(levelName, X, Z, ASkyBlock.get().getSettings(levelName).getProtectionRange());
+            }
+            return write.island;
+        }
+        return database.getIslandLocation(levelName, X, Z);
+    }
+
+    @Override
+    public IslandData getIslandById(long id) {
+        for (IslandData pd : getPendingIslands(pendingIds, id)) {
+            if (pd.getIslandId() == id) {
+                return pd;
+            }
+        }
+        return getCurrent(database.getIslandById(id));
+    }
+
+    @Override
+    public IslandData getIsland(String name, int homes) {
+        for (IslandData pd : getPendingIslands(pendingOwners, name.toLowerCase())) {
+            if (isOwner(pd, name) && pd.getId() == homes) {
+                return pd;
+            }
+        }
+        IslandData pd = getCurrent(database.getIsland(name, homes));
+        return pd != null && isOwner(pd, name) && pd.getId() == homes ? pd : null;
+    }
+
+    @Override
+    public IslandData getIsland(String name, String homeName) {
+        for (IslandData pd : getPendingIslands(pendingOwners, name.toLowerCase())) {
+            if (isOwner(pd, name) && homeName.equalsIgnoreCase(pd.getName())) {
+                return pd;
+            }
+        }
+        IslandData pd = getCurrent(database.getIsland(name, homeName));
+        return pd != null && isOwner(pd, name) && homeName.equalsIgnoreCase(pd.getName()) ? pd : null;
+    }
+
+    @Override
+    public ArrayList<IslandData> getIslands(String owner) {
+        return mergeIslands(database.getIslands(owner), owner, null);
+    }
+
+    @Override
+    public ArrayList<IslandData> getIslands(String owner, String levelName) {
+        return mergeIslands(database.getIslands(owner, levelName), owner, levelName);
+    }
+
+    private ArrayList<IslandData> mergeIslands(List<IslandData> stored, String owner, String levelName) {
+        Map<String, IslandData> result = new LinkedHashMap<>();
+        if (stored != null) {
+            for (IslandData pd : stored) {
+                // A pending write could have deleted the island or given it to another owner
+                IslandData current = getCurrent(pd);
+                if (current != null && isOwner(current, owner)) {
+                    result.put(islandKey(current), current);
+                }
+            }
+        }
+        for (IslandData pd : getPendingIslands(pendingOwners, owner.toLowerCase())) {
+            if (isOwner(pd, owner) && (levelName == null || levelName.equalsIgnoreCase(pd.getLevelName()))) {
+                result.put(islandKey(pd), pd);
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    @Override
+    public PlayerData getPlayerData(String st) {
+        Pending write = getPending(playerKey(st));
+        if (write != null && write.player != null) {
+            return write.player;
+        }
+        return database.getPlayerData(st);
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations that are passed to the provider directly
+    // ------------------------------------------------------------------------
+
+    @Override
+    public void setSpawnPosition(Position pos) {
+        database.setSpawnPosition(pos);
+    }
+
+    @Override
+    public IslandData getSpawn() {
+        return database.getSpawn();
+    }
+
+    @Override
+    public ArrayList<String> getWorlds() {
+        return database.getWorlds();
+    }
+
+    @Override
+    public boolean saveWorlds(ArrayList<String> pd) {
+        return database.saveWorlds(pd);
+    }
+
+    @Override
+    public List<String> getPlayersData() {
+        return database.getPlayersData();
+    }
+
+    @Override
+    public void upgrade() {
+        database.upgrade();
+    }
+
+    @Override
+    public boolean loadIslands(int fetchSize, Consumer<IslandData> consumer) {
+        return database.loadIslands(fetchSize, consumer);
+    }
+
+    @Override
+    public void createPlayer(String p) {
+        database.createPlayer(p);
+    }
+
+    @Override
+    public IslandRegistry getIslandCache() {
+        return database.getIslandCache();
+    }
+
+    @Override
+    public ConnectionPool getPool() {
+        return database.getPool();
+    }
+
+    @Override
+    public void removeIslandFromCache(IslandData pd) {
+        database.removeIslandFromCache(pd);
+    }
+
+    @Override
+    public void free() {
+        database.free();
+    }
+
+    /**
+     * Stops the writer and flush every pending data before
+     * closing the database provider.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+                Utils.send("&cThe database writer took too long to stop.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Utils.send("&7Flushing " + getQueueSize() + " pending database writes...");
+        while (getQueueSize() > 0) {
+            flush();
+        }
+        database.close();
+    }
+
+    // ------------------------------------------------------------------------
+    // Statistics
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return The number of data that are waiting to be written
+     */
+    public int getQueueSize() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * @return The number of operations that were written successfully
+     */
+    public long getFlushedWrites() {
+        return flushedWrites.get();
+    }
+
+    /**
+     * @return The number of failed attempts to write a data
+     */
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    /**
+     * @return The number of data that were dropped after too many failures
+     */
+    public long getDroppedWrites() {
+        return droppedWrites.get();
+    }
+
+    /**
+     * @return The time of the last flush, in milliseconds
+     */
+    public long getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    /**
+     * @return The longest flush time, in milliseconds
+     */
+    public long getMaxFlushTime() {
+        return maxFlushTime;
+    }
+
+    /**
+     * @return The average flush time, in milliseconds
+     */
+    public double getAverageFlushTime() {
+        long count = flushCount.get();
+        return count == 0 ? 0 : (double) totalFlushTime.get() / count;
+    }
+
+    /**
+     * A coalesced write for one island or one player. The operations
+     * are always executed in the order of delete, create then save.
+     */
+    private static class Pending {
+
+        private IslandData island;
+        // The island that is stored in the database, removed by the delete
+        private IslandData deleted;
+        private PlayerData player;
+        private boolean delete;
+        private boolean create;
+        private boolean save;
+        private int attempts;
+
+        private void create(IslandData pd) {
+            island = pd;
+            create = true;
+        }
+
+        private void save(IslandData pd) {
+            island = pd;
+            save = true;
+        }
+
+        private void savePlayer(PlayerData pd) {
+            player = pd;
+            save = true;
+        }
+
+        /**
+         * @return true if this island were never written and could be discarded
+         */
+        private boolean delete(IslandData pd) {
+            boolean discard = create && !delete;
+            if (!delete) {
+                // An earlier delete already removes the stored island
+                deleted = pd;
+            }
+            island = pd;
+            delete = true;
+            create = false;
+            save = false;
+            return discard;
+        }
+
+        private boolean isDeleted() {
+            return delete && !create;
+        }
+
+        private Pending copy() {
+            Pending copy = new Pending();
+            copy.island = island;
+            copy.deleted = deleted;
+            copy.player = player;
+            copy.delete = delete;
+            copy.create = create;
+            copy.save = save;
+            copy.attempts = attempts;
+            return copy;
+        }
+
+        private void merge(Pending newer) {
+            if (newer.delete && delete(newer.deleted)) {
+                // Nothing to be written anymore
+                island = null;
+                deleted = null;
+                delete = false;
+            }
+            if (newer.create) {
+                create(newer.island);
+            }
+            if (newer.save) {
+                if (newer.player != null) {
+                    savePlayer(newer.player);
+                } else {
+                    save(newer.island);
+                }
+            }
+        }
+    }
+
+    private static class Indexed {
+
+        private final long id;
+        private final String owner;
+
+        Indexed(long id, String owner) {
+            this.id = id;
+            this.owner = owner;
+        }
+    }
+}
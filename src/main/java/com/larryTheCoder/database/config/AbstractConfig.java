@@ -27,7 +27,6 @@
 package com.larryTheCoder.database.config;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
@@ -35,10 +34,10 @@ import java.sql.SQLException;
  */
 public interface AbstractConfig {
 
-    Connection forceConnection() throws SQLException, ClassNotFoundException;
-
     /**
-     * Opens a connection with the database.
+     * Borrows a connection from the pool, the pool is
+     * created on the first call. The connection must be
+     * closed to give it back to the pool.
      *
      * @return Opened connection
      * @throws SQLException           if the connection can not be opened
@@ -47,46 +46,32 @@ public interface AbstractConfig {
     Connection openConnection() throws SQLException, ClassNotFoundException;
 
     /**
-     * Checks if a connection is open with the database.
+     * Checks if the pool is open with the database.
      *
-     * @return true if the connection is open
-     * @throws SQLException if the connection cannot be checked
+     * @return true if the pool is open
      */
-    boolean checkConnection() throws SQLException;
+    boolean checkConnection();
 
     /**
-     * Gets the connection with the database.
+     * Gets the connection pool of this database.
      *
-     * @return Connection with the database, null if none
+     * @return The pool, null if it were never opened
      */
-    Connection getConnection();
+    ConnectionPool getPool();
 
     /**
-     * Closes the connection with the database.
+     * Closes the pool and every connection with the database.
      *
      * @return true if successful
-     * @throws SQLException if the connection cannot be closed
-     */
-    boolean closeConnection() throws SQLException;
-
-    /**
-     * Executes a SQL Query.
-     * If the connection is closed, it will be opened.
-     *
-     * @param query Query to be run
-     * @return the results of the query
-     * @throws SQLException           If the query cannot be executed
-     * @throws ClassNotFoundException If the driver cannot be found; see {@link #openConnection()}
      */
-    ResultSet querySQL(String query) throws SQLException, ClassNotFoundException;
+    boolean closeConnection();
 
     /**
      * Executes an Update SQL Query.
-     * See {@link java.sql.Statement#execute(String)}.
-     * If the connection is closed, it will be opened.
+     * See {@link java.sql.Statement#executeUpdate(String)}.
      *
      * @param query Query to be run
-     * @return Result Code, see {@link java.sql.Statement#execute(String)}
+     * @return Result Code, see {@link java.sql.Statement#executeUpdate(String)}
      * @throws SQLException           If the query cannot be executed
      * @throws ClassNotFoundException If the driver cannot be found; see {@link #openConnection()}
      */
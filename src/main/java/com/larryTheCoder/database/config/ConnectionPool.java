@@ -0,0 +1,163 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.larryTheCoder.database.config;
+
+import cn.nukkit.utils.ConfigSection;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HikariCP connection pool shared by the database configs.
+ * Also records how long the callers waited for a connection.
+ *
+ * @author larryTheCoder
+ */
+public class ConnectionPool implements MetricsTrackerFactory {
+
+    private final HikariDataSource dataSource;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * Creates the pool with the sizing and timeouts from the
+     * given config section, missing values use the defaults.
+     *
+     * @param config      The driver and url of the database
+     * @param section     The pool section of config.yml, may be null
+     * @param defaultSize The pool size if none were configured
+     */
+    public ConnectionPool(HikariConfig config, ConfigSection section, int defaultSize) {
+        if (section == null) {
+            section = new ConfigSection();
+        }
+        config.setMaximumPoolSize(Math.max(1, section.getInt("maximumPoolSize", defaultSize)));
+        config.setMinimumIdle(Math.min(config.getMaximumPoolSize(), Math.max(0, section.getInt("minimumIdle", 1))));
+        config.setConnectionTimeout(section.getLong("connectionTimeout", 5000));
+        config.setValidationTimeout(section.getLong("validationTimeout", 3000));
+        config.setIdleTimeout(section.getLong("idleTimeout", 600000));
+        config.setMaxLifetime(section.getLong("maxLifetime", 1800000));
+        config.setLeakDetectionThreshold(section.getLong("leakDetectionThreshold", 10000));
+        config.setMetricsTrackerFactory(this);
+        this.dataSource = new HikariDataSource(config);
+    }
+
+    /**
+     * Borrows a connection from the pool, the connection
+     * must be closed to give it back to the pool.
+     *
+     * @return A pooled connection
+     * @throws SQLException if no connection is available within the timeout
+     */
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    public boolean isRunning() {
+        return !dataSource.isClosed();
+    }
+
+    public void close() {
+        dataSource.close();
+    }
+
+    public int getActiveConnections() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    public int getIdleConnections() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getIdleConnections();
+    }
+
+    public int getTotalConnections() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getTotalConnections();
+    }
+
+    public int getWaitingThreads() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+    }
+
+    public long getAcquiredConnections() {
+        return acquired.sum();
+    }
+
+    public long getConnectionTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return The average time waited for a connection in milliseconds
+     */
+    public double getAverageWaitTime() {
+        long count = acquired.sum();
+        return count == 0 ? 0 : waitNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return The longest time waited for a connection in milliseconds
+     */
+    public double getMaxWaitTime() {
+        return maxWaitNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquired.increment();
+                waitNanos.add(elapsedAcquiredNanos);
+                maxWaitNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+}
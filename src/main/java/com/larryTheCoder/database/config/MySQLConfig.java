@@ -26,7 +26,9 @@
  */
 package com.larryTheCoder.database.config;
 
+import cn.nukkit.utils.ConfigSection;
 import com.larryTheCoder.utils.Utils;
+import com.zaxxer.hikari.HikariConfig;
 
 import java.sql.*;
 
@@ -41,80 +43,82 @@ public class MySQLConfig implements AbstractConfig {
     private final String password;
     private final int port;
     private final String hostname;
-    private Connection connection;
+    private final ConfigSection poolSettings;
+    private ConnectionPool pool;
 
     /**
      * Creates a new MySQL instance.
      *
-     * @param hostname Name of the host
-     * @param port     Port number
-     * @param database Database name
-     * @param username Username
-     * @param password Password
+     * @param hostname     Name of the host
+     * @param port         Port number
+     * @param database     Database name
+     * @param username     Username
+     * @param password     Password
+     * @param poolSettings The connection pool settings, may be null
      */
-    public MySQLConfig(String hostname, int port, String database, String username, String password) {
+    public MySQLConfig(String hostname, int port, String database, String username, String password, ConfigSection poolSettings) {
         this.hostname = hostname;
         this.port = port;
         this.database = database;
         this.user = username;
         this.password = password;
-        this.connection = null;
+        this.poolSettings = poolSettings;
+        this.pool = null;
     }
 
     @Override
-    public Connection forceConnection() throws SQLException, ClassNotFoundException {
-        Class.forName("com.mysql.jdbc.Driver");
-        this.connection = DriverManager.getConnection("jdbc:mysql://" + this.hostname + ':' + this.port + '/' + this.database, this.user, this.password);
-        return this.connection;
-    }
-
-    @Override
-    public Connection openConnection() throws SQLException, ClassNotFoundException {
+    public synchronized Connection openConnection() throws SQLException, ClassNotFoundException {
         if (checkConnection()) {
-            return this.connection;
+            return this.pool.getConnection();
         }
         Class.forName("com.mysql.jdbc.Driver");
         Utils.send("&aConnecting to: jdbc:mysql://" + this.hostname + ':' + this.port + '/' + this.database);
-        this.connection = DriverManager.getConnection("jdbc:mysql://" + this.hostname + ':' + this.port + '/' + this.database, this.user, this.password);
-        return this.connection;
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("ASkyBlock-MySQL");
+        config.setDriverClassName("com.mysql.jdbc.Driver");
+        config.setJdbcUrl("jdbc:mysql://" + this.hostname + ':' + this.port + '/' + this.database);
+        config.setUsername(this.user);
+        config.setPassword(this.password);
+        // Let the server parse each query once
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        // Statements with a fetch size are read trough a server cursor
+        config.addDataSourceProperty("useCursorFetch", "true");
+        try {
+            this.pool = new ConnectionPool(config, poolSettings, 10);
+        } catch (RuntimeException ex) {
+            // Hikari wraps the connection failures
+            throw new SQLException("Unable to start the connection pool", ex);
+        }
+        return this.pool.getConnection();
     }
 
     @Override
-    public boolean checkConnection() throws SQLException {
-        return (this.connection != null) && !this.connection.isClosed();
+    public boolean checkConnection() {
+        return this.pool != null && this.pool.isRunning();
     }
 
     @Override
-    public Connection getConnection() {
-        return this.connection;
+    public ConnectionPool getPool() {
+        return this.pool;
     }
 
     @Override
-    public boolean closeConnection() throws SQLException {
-        if (this.connection == null) {
+    public boolean closeConnection() {
+        if (this.pool == null) {
             return false;
         }
-        this.connection.close();
-        this.connection = null;
+        this.pool.close();
+        this.pool = null;
         return true;
     }
 
-    @Override
-    public ResultSet querySQL(String query) throws SQLException, ClassNotFoundException {
-        if (checkConnection()) {
-            openConnection();
-        }
-        try (Statement statement = this.connection.createStatement()) {
-            return statement.executeQuery(query);
-        }
-    }
-
     @Override
     public int updateSQL(String query) throws SQLException, ClassNotFoundException {
-        if (checkConnection()) {
-            openConnection();
-        }
-        try (Statement statement = this.connection.createStatement()) {
+        try (Connection connection = openConnection(); Statement statement = connection.createStatement()) {
             return statement.executeUpdate(query);
         }
     }
@@ -26,7 +26,9 @@
  */
 package com.larryTheCoder.database.config;
 
+import cn.nukkit.utils.ConfigSection;
 import com.larryTheCoder.utils.Utils;
+import com.zaxxer.hikari.HikariConfig;
 
 import java.io.File;
 import java.io.IOException;
@@ -37,17 +39,19 @@ import java.sql.*;
  */
 public class SQLiteConfig implements AbstractConfig {
 
-    private Connection connection;
+    private ConnectionPool pool;
     private final String dbLocation;
+    private final ConfigSection poolSettings;
 
-    public SQLiteConfig(File data) {
+    public SQLiteConfig(File data, ConfigSection poolSettings) {
         this.dbLocation = data.getAbsolutePath();
+        this.poolSettings = poolSettings;
     }
 
     @Override
-    public Connection openConnection() throws SQLException, ClassNotFoundException {
+    public synchronized Connection openConnection() throws SQLException, ClassNotFoundException {
         if (checkConnection()) {
-            return this.connection;
+            return this.pool.getConnection();
         }
         File file = new File(this.dbLocation);
         if (!file.exists()) {
@@ -57,60 +61,48 @@ public class SQLiteConfig implements AbstractConfig {
                 Utils.send("&cUnable to create database!");
             }
         }
+        Class.forName("org.sqlite.JDBC");
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("ASkyBlock-SQLite");
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setJdbcUrl("jdbc:sqlite:" + this.dbLocation);
+        // WAL lets the readers run while a writer is active, the
+        // writers waits for each other instead of failing
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("busy_timeout", "5000");
         try {
-            new java.util.Properties();
-            this.connection = DriverManager.getConnection("jdbc:sqlite:" + this.dbLocation);
-        } catch (SQLException ex) {
-            forceConnection();
+            this.pool = new ConnectionPool(config, poolSettings, 4);
+        } catch (RuntimeException ex) {
+            throw new SQLException("Unable to start the connection pool", ex);
         }
-        return this.connection;
+        return this.pool.getConnection();
     }
 
     @Override
-    public boolean checkConnection() throws SQLException {
-        return (this.connection != null) && !this.connection.isClosed();
+    public boolean checkConnection() {
+        return this.pool != null && this.pool.isRunning();
     }
 
     @Override
-    public Connection getConnection() {
-        return this.connection;
+    public ConnectionPool getPool() {
+        return this.pool;
     }
 
     @Override
-    public boolean closeConnection() throws SQLException {
-        if (this.connection == null) {
+    public boolean closeConnection() {
+        if (this.pool == null) {
             return false;
         }
-        this.connection.close();
-        this.connection = null;
+        this.pool.close();
+        this.pool = null;
         return true;
     }
 
-    @Override
-    public ResultSet querySQL(String query) throws SQLException, ClassNotFoundException {
-        if (checkConnection()) {
-            openConnection();
-        }
-        try (Statement statement = this.connection.createStatement()) {
-            return statement.executeQuery(query);
-        }
-    }
-
     @Override
     public int updateSQL(String query) throws SQLException, ClassNotFoundException {
-        if (checkConnection()) {
-            openConnection();
-        }
-        try (Statement statement = this.connection.createStatement()) {
+        try (Connection connection = openConnection(); Statement statement = connection.createStatement()) {
             return statement.executeUpdate(query);
         }
     }
-
-    @Override
-    public Connection forceConnection() throws SQLException, ClassNotFoundException {
-        Class.forName("org.sqlite.JDBC");
-        this.connection = DriverManager.getConnection("jdbc:sqlite:" + this.dbLocation);
-        return this.connection;
-    }
-
 }
@@ -30,33 +30,40 @@ import cn.nukkit.level.Position;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.database.Database;
 import com.larryTheCoder.database.JDBCUtilities;
+import com.larryTheCoder.database.RowMapper;
+import com.larryTheCoder.database.SchemaMigration;
+import com.larryTheCoder.database.StatementCache;
+import com.larryTheCoder.database.config.ConnectionPool;
 import com.larryTheCoder.database.config.MySQLConfig;
 import com.larryTheCoder.player.PlayerData;
 import com.larryTheCoder.storage.IslandData;
-import com.larryTheCoder.task.TaskManager;
 import com.larryTheCoder.utils.Settings;
 import com.larryTheCoder.utils.Utils;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static java.sql.Statement.EXECUTE_FAILED;
 
 /**
  * This class is used for Mysql database
  * which is currently under maintain and refurbish.
- * Also syncs the connection with the server, maintaining
- * the ping and connectivity so it won't lost its connection
+ * Every request borrows a connection from the pool, the pool
+ * validates and reconnects the connections by itself.
  *
  * @author larryTheCoder
  */
 public class MysqlConnection extends Database {
 
+    private static final RowMapper<IslandData> ISLAND = RowMapper.island("level", "islandName", "playerName");
+    private static final RowMapper<PlayerData> PLAYER = RowMapper.player("teamName");
+
     private final ASkyBlock plugin;
     private final MySQLConfig database;
     private final String prefix;
-    private Connection connection;
+    private final StatementCache statements = new StatementCache();
     private boolean closed;
     private boolean connected;
 
@@ -77,14 +84,61 @@ public class MysqlConnection extends Database {
         this.plugin = plugin;
         this.database = database;
         this.prefix = prefix;
-        this.connection = database.openConnection();
-        this.closed = this.connection == null;
-        this.connected = !this.closed;
-        createTables();
-        syncWithServer();
+        try (Connection connection = database.openConnection()) {
+            this.closed = connection == null;
+            this.connected = !this.closed;
+            createTables(connection);
+        }
+    }
+
+    @Override
+    public void upgrade() {
+        if (!connected) {
+            return;
+        }
+        try (Connection connection = connection()) {
+            migrations().migrate(connection);
+        } catch (SQLException ex) {
+            JDBCUtilities.printSQLException(ex);
+        }
+    }
+
+    /**
+     * The schema upgrades of this database, the version
+     * is kept in the `prefix_schema` table.
+     */
+    private SchemaMigration migrations() {
+        return new SchemaMigration(prefix + "_schema")
+                .add(1, "Index the island lookups", con -> {
+                    // The level column is too long for a whole key
+                    SchemaMigration.createIndex(con, prefix + "_island", "island_location", "`level`(191), `islandId`");
+                    SchemaMigration.createIndex(con, prefix + "_island", "island_owner", "`playerName`, `id`");
+                    SchemaMigration.createIndex(con, prefix + "_island", "island_owner_name", "`playerName`, `islandName`");
+                    SchemaMigration.createIndex(con, prefix + "_island", "island_id", "`islandId`");
+                })
+                .add(2, "Index the player lookups", con ->
+                        SchemaMigration.createIndex(con, prefix + "_players", "players_player", "`player`"))
+                .add(3, "Pack the island keys into 64 bits", con -> {
+                    try (Statement stmt = con.createStatement()) {
+                        stmt.executeUpdate("ALTER TABLE `" + prefix + "_island` MODIFY `islandId` BIGINT NOT NULL");
+                    }
+                    upgradeIslandKeys(con, prefix + "_island", "level", "`id`", "`playerName`");
+                });
+    }
+
+    /**
+     * Borrows a connection from the pool, it must be closed
+     * after being used.
+     */
+    private Connection connection() throws SQLException {
+        try {
+            return database.openConnection();
+        } catch (ClassNotFoundException ex) {
+            throw new SQLException("MySQL driver is not found", ex);
+        }
     }
 
-    private void createTables() throws SQLException {
+    private void createTables(Connection connection) throws SQLException {
         // Beep Boop, Error 404
         if (closed) {
             return;
@@ -110,7 +164,7 @@ public class MysqlConnection extends Database {
             // Final database
             set.addBatch("CREATE TABLE IF NOT EXISTS `" + prefix + "_island` ("
                     + "`id` INTEGER NOT NULL AUTO_INCREMENT,"
-                    + "`islandId` INTEGER NOT NULL,"
+                    + "`islandId` BIGINT NOT NULL,"
                     + "`x` INTEGER NOT NULL,"
                     + "`y` INTEGER NOT NULL,"
                     + "`z` INTEGER NOT NULL,"
@@ -158,38 +212,6 @@ public class MysqlConnection extends Database {
         }
     }
 
-    private void syncWithServer() {
-        TaskManager.runTaskRepeatAsync(() -> {
-            if (!closed && !isValid()) {
-                connected = false;
-                reconnect();
-            } else {
-                connected = true;
-            }
-
-        }, 60);
-    }
-
-    private boolean isValid() {
-        try {
-            connection.prepareStatement("SELECT 1 FROM `" + prefix + "_island`").executeQuery();
-            return true;
-        } catch (SQLException e) {
-            Utils.send("&eLosing connection heartbeat with MySQL server...");
-        }
-        return false;
-    }
-
-    private void reconnect() {
-        try {
-            connection.close();
-            database.closeConnection();
-            connection = database.forceConnection();
-        } catch (SQLException | ClassNotFoundException e) {
-            Utils.send("&eReconnection failed... Retrying");
-        }
-    }
-
     @Override
     public void setSpawnPosition(Position pos) {
         if (!connected) {
@@ -201,7 +223,9 @@ public class MysqlConnection extends Database {
         int z = pos.getFloorZ();
 
         PreparedStatement stmt = null;
+        Connection connection = null;
         try {
+            connection = connection();
             stmt = connection.prepareStatement("UPDATE `" + prefix + "_island` SET `spawnX` = ?, `spawnY` = ?, `spawnZ` = ? WHERE `isSpawn` = '1'");
             stmt.setInt(1, x);
             stmt.setInt(2, y);
@@ -215,6 +239,9 @@ public class MysqlConnection extends Database {
                 if (stmt != null) {
                     stmt.close();
                 }
+                if (connection != null) {
+                    connection.close();
+                }
             } catch (SQLException ex) {
                 JDBCUtilities.printSQLException(ex);
             }
@@ -223,14 +250,12 @@ public class MysqlConnection extends Database {
 
     @Override
     public IslandData getIslandLocation(String levelName, int x, int z) {
-        int id = plugin.getIsland().generateIslandKey(x, z, levelName);
+        long id = plugin.getIsland().generateIslandKey(x, z, levelName);
         IslandData database = new IslandData(levelName, x, z, plugin.getSettings(levelName).getProtectionRange());
         if (enableFastCache) {
-            // Get a list of island data on cache
-            for (IslandData pd : islandCache) {
-                if (pd.getIslandId() == id && pd.getLevelName().equalsIgnoreCase(levelName)) {
-                    return pd;
-                }
+            IslandData pd = islandCache.getIslandAt(levelName, id);
+            if (pd != null) {
+                return pd;
             }
         }
         if (!connected) {
@@ -238,49 +263,18 @@ public class MysqlConnection extends Database {
             return null;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_island` WHERE(`level` = '" + levelName + "' AND `islandId` = '" + id + "')");
-            if (!set.isClosed()) {
-                database = new IslandData(
-                        set.getString("level"),
-                        set.getInt("x"),
-                        set.getInt("y"),
-                        set.getInt("z"),
-                        set.getInt("spawnX"),
-                        set.getInt("spawnY"),
-                        set.getInt("spawnZ"),
-                        set.getInt("psize"),
-                        set.getString("islandName"),
-                        set.getString("playerName"),
-                        set.getString("biome"),
-                        set.getInt("id"),
-                        set.getInt("islandId"),
-                        set.getBoolean("locked"),
-                        set.getString("protection"),
-                        set.getBoolean("isSpawn")
-                );
+        try (Connection connection = connection()) {
+            IslandData pd = statements.queryOne(connection, "SELECT * FROM `" + prefix + "_island` WHERE(`level` = ? AND `islandId` = ?)", ISLAND, levelName, id);
+            if (pd != null) {
+                database = pd;
 
                 // The put in the cache
                 if (enableFastCache) {
-                    islandCache.add(database);
+                    islandCache.put(database);
                 }
             }
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException ex) {
-                JDBCUtilities.printSQLException(ex);
-            }
         }
         return database;
     }
@@ -290,63 +284,23 @@ public class MysqlConnection extends Database {
         ArrayList<IslandData> list = new ArrayList<>();
 
         // Get data from the cache
-        if (enableFastCache) {
-            islandCache.stream().filter((pd3) -> (pd3.getOwner().equalsIgnoreCase(playerName))).forEachOrdered(list::add);
-            if (!list.isEmpty()) {
-                return list;
-            }
+        if (enableFastCache && islandCache.isOwnerLoaded(playerName)) {
+            return islandCache.getIslands(playerName);
         }
         if (!connected) {
             Utils.send("&cUnable to process any requests for MySQL due to no connectivity within the servers");
             return list;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_island` WHERE(`playerName` = '" + playerName + "')");
-            if (!set.isClosed()) {
-                while (set.next()) {
-                    IslandData island = new IslandData(
-                            set.getString("level"),
-                            set.getInt("x"),
-                            set.getInt("y"),
-                            set.getInt("z"),
-                            set.getInt("spawnX"),
-                            set.getInt("spawnY"),
-                            set.getInt("spawnZ"),
-                            set.getInt("psize"),
-                            set.getString("islandName"),
-                            set.getString("playerName"),
-                            set.getString("biome"),
-                            set.getInt("id"),
-                            set.getInt("islandId"),
-                            set.getBoolean("locked"),
-                            set.getString("protection"),
-                            set.getBoolean("isSpawn")
-                    );
-                    list.add(island);
-
-                    // The put in the cache
-                    if (enableFastCache) {
-                        islandCache.add(island);
-                    }
-                }
+        try (Connection connection = connection()) {
+            list = statements.queryList(connection, "SELECT * FROM `" + prefix + "_island` WHERE(`playerName` = ?)", ISLAND, playerName);
+
+            // The put in the cache
+            if (enableFastCache) {
+                islandCache.putOwner(playerName, list);
             }
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException ex) {
-                JDBCUtilities.printSQLException(ex);
-            }
         }
         return list;
     }
@@ -356,11 +310,8 @@ public class MysqlConnection extends Database {
         ArrayList<IslandData> list = new ArrayList<>();
 
         // Get data from the cache
-        if (enableFastCache) {
-            islandCache.stream().filter((list3) -> (list3.getOwner().equalsIgnoreCase(playerName) && list3.getLevelName().equalsIgnoreCase(levelName))).forEachOrdered(list::add);
-            if (!list.isEmpty()) {
-                return list;
-            }
+        if (enableFastCache && islandCache.isOwnerLoaded(playerName)) {
+            return islandCache.getIslands(playerName, levelName);
         }
 
         if (!connected) {
@@ -368,52 +319,15 @@ public class MysqlConnection extends Database {
             return list;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_island` WHERE(`level` = '" + levelName + "' AND `playerName` = '" + playerName + "')");
-            if (!set.isClosed()) {
-                while (set.next()) {
-                    IslandData island = new IslandData(
-                            set.getString("level"),
-                            set.getInt("x"),
-                            set.getInt("y"),
-                            set.getInt("z"),
-                            set.getInt("spawnX"),
-                            set.getInt("spawnY"),
-                            set.getInt("spawnZ"),
-                            set.getInt("psize"),
-                            set.getString("islandName"),
-                            set.getString("playerName"),
-                            set.getString("biome"),
-                            set.getInt("id"),
-                            set.getInt("islandId"),
-                            set.getBoolean("locked"),
-                            set.getString("protection"),
-                            set.getBoolean("isSpawn")
-                    );
-                    list.add(island);
-
-                    // Save the island into cache
-                    if (enableFastCache) {
-                        islandCache.add(island);
-                    }
-                }
+        try (Connection connection = connection()) {
+            list = statements.queryList(connection, "SELECT * FROM `" + prefix + "_island` WHERE(`level` = ? AND `playerName` = ?)", ISLAND, levelName, playerName);
+
+            // Save the island into cache
+            if (enableFastCache) {
+                islandCache.putAll(list);
             }
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException ex) {
-                JDBCUtilities.printSQLException(ex);
-            }
         }
         return list;
     }
@@ -424,11 +338,9 @@ public class MysqlConnection extends Database {
 
         // Get the data from the cache first
         if (enableFastCache) {
-            for (IslandData pda : islandCache) {
-                if (!pda.getOwner().equals(name) && pda.getId() != homes) {
-                    continue;
-                }
-                return pda;
+            pd = islandCache.getIsland(name, homes);
+            if (pd != null) {
+                return pd;
             }
         }
 
@@ -437,51 +349,15 @@ public class MysqlConnection extends Database {
             return null;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_island` WHERE(`playerName` = '" + name + "' AND `id` = '" + homes + "')");
-
-            // Check if its not closed, otherwise just move trough
-            if (!set.isClosed()) {
-                pd = new IslandData(
-                        set.getString("level"),
-                        set.getInt("x"),
-                        set.getInt("y"),
-                        set.getInt("z"),
-                        set.getInt("spawnX"),
-                        set.getInt("spawnY"),
-                        set.getInt("spawnZ"),
-                        set.getInt("psize"),
-                        set.getString("islandName"),
-                        set.getString("playerName"),
-                        set.getString("biome"),
-                        set.getInt("id"),
-                        set.getInt("islandId"),
-                        set.getBoolean("locked"),
-                        set.getString("protection"),
-                        set.getBoolean("isSpawn")
-                );
-
-                // Save into the cache
-                if (enableFastCache) {
-                    islandCache.add(pd);
-                }
+        try (Connection connection = connection()) {
+            pd = statements.queryOne(connection, "SELECT * FROM `" + prefix + "_island` WHERE(`playerName` = ? AND `id` = ?)", ISLAND, name, homes);
+
+            // Save into the cache
+            if (pd != null && enableFastCache) {
+                islandCache.put(pd);
             }
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException ex) {
-                JDBCUtilities.printSQLException(ex);
-            }
         }
         return pd;
     }
@@ -491,11 +367,9 @@ public class MysqlConnection extends Database {
         IslandData pd = null;
         // Get the data from the cache first
         if (enableFastCache) {
-            for (IslandData pda : islandCache) {
-                if (!pda.getOwner().equals(playerName) && !pda.getName().equalsIgnoreCase(homeName)) {
-                    continue;
-                }
-                return pda;
+            pd = islandCache.getIsland(playerName, homeName);
+            if (pd != null) {
+                return pd;
             }
         }
         if (!connected) {
@@ -503,45 +377,22 @@ public class MysqlConnection extends Database {
             return null;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_island` WHERE(`playerName` = '" + playerName + "' AND `islandName` = '" + homeName + "')");
-
-            // Check if its not closed, otherwise just move trough
-            if (!set.isClosed()) {
-                pd = new IslandData(set.getString("level"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("islandName"), set.getString("playerName"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
+        try (Connection connection = connection()) {
+            pd = statements.queryOne(connection, "SELECT * FROM `" + prefix + "_island` WHERE(`playerName` = ? AND `islandName` = ?)", ISLAND, playerName, homeName);
 
-                // Save into the cache
-                if (enableFastCache) {
-                    islandCache.add(pd);
-                }
+            // Save into the cache
+            if (pd != null && enableFastCache) {
+                islandCache.put(pd);
             }
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            // Maybe there was an error while saving the data
-            // Close the connection so it won't create too much connections
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException ex) {
-                JDBCUtilities.printSQLException(ex);
-            }
         }
         return pd;
     }
-
     @Override
     public boolean deleteIsland(IslandData pd) {
-        if (enableFastCache) {
-            islandCache.remove(pd);
-        }
+        // Always drop it from the protection index
+        islandCache.delete(pd);
         if (!connected) {
             Utils.send("&cUnable to process any requests for MySQL due to no connectivity within the servers");
             return false;
@@ -549,12 +400,15 @@ public class MysqlConnection extends Database {
 
         boolean result = false;
         PreparedStatement set = null;
+        Connection connection = null;
         try {
+            connection = connection();
             set = connection.prepareStatement("DELETE FROM `" + prefix + "_island` WHERE(`id` = ? AND `playerName` = ?)");
             set.setInt(1, pd.getId());
             set.setString(2, pd.getOwner());
 
-            result = set.execute();
+            set.execute();
+            result = true;
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         } finally {
@@ -564,6 +418,9 @@ public class MysqlConnection extends Database {
                 if (set != null) {
                     set.close();
                 }
+                if (connection != null) {
+                    connection.close();
+                }
             } catch (SQLException ex) {
                 JDBCUtilities.printSQLException(ex);
             }
@@ -582,45 +439,23 @@ public class MysqlConnection extends Database {
             return null;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_island` WHERE `isSpawn` = '1'");
-
-            if (!set.isClosed()) {
-                pd = new IslandData(set.getString("level"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("islandName"), set.getString("playerName"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
-                islandSpawn = pd;
-            }
+        try (Connection connection = connection()) {
+            pd = statements.queryOne(connection, "SELECT * FROM `" + prefix + "_island` WHERE `isSpawn` = '1'", ISLAND);
+            islandSpawn = pd;
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            // Maybe there was an error while saving the data
-            // Close the connection so it won't create too much connections
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException ex) {
-                JDBCUtilities.printSQLException(ex);
-            }
         }
         return pd;
     }
 
     @Override
-    public IslandData getIslandById(int id) {
+    public IslandData getIslandById(long id) {
         IslandData pd = null;
 
         if (enableFastCache) {
-            for (IslandData list : islandCache) {
-                if (list.getIslandId() != id) {
-                    continue;
-                }
-                return list;
+            pd = islandCache.getIslandById(id);
+            if (pd != null) {
+                return pd;
             }
         }
         if (!connected) {
@@ -628,49 +463,52 @@ public class MysqlConnection extends Database {
             return null;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_island` WHERE `islandId` = '" + id + "'");
-
-            if (!set.isClosed()) {
-                pd = new IslandData(set.getString("level"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("islandName"), set.getString("playerName"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
-                if (enableFastCache) {
-                    islandCache.add(pd);
-                }
+        try (Connection connection = connection()) {
+            pd = statements.queryOne(connection, "SELECT * FROM `" + prefix + "_island` WHERE `islandId` = ?", ISLAND, id);
+            if (pd != null && enableFastCache) {
+                islandCache.put(pd);
             }
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            // Maybe there was an error while saving the data
-            // Close the connection so it won't create too much connections
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
+        }
+        return pd;
+    }
+    @Override
+    public boolean loadIslands(int fetchSize, Consumer<IslandData> consumer) {
+        if (!connected) {
+            Utils.send("&cUnable to process any requests for MySQL due to no connectivity within the servers");
+            return false;
+        }
+        // The rows are read with a server cursor, fetchSize rows at once
+        try (Connection connection = connection();
+             PreparedStatement stmt = connection.prepareStatement("SELECT * FROM `" + prefix + "_island`", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            try (ResultSet set = stmt.executeQuery()) {
+                while (set.next()) {
+                    consumer.accept(ISLAND.map(set));
                 }
-            } catch (SQLException ex) {
-                JDBCUtilities.printSQLException(ex);
             }
+            return true;
+        } catch (SQLException ex) {
+            JDBCUtilities.printSQLException(ex);
         }
-        return pd;
+        return false;
+    }
+
+    @Override
+    public ConnectionPool getPool() {
+        return database.getPool();
     }
 
     @Override
     public void close() {
         Utils.send("&7Closing databases...");
-        try {
-            connection.close();
-            database.closeConnection();
-        } catch (SQLException ex) {
-            JDBCUtilities.printSQLException(ex);
-        }
+        statements.clear();
+        database.closeConnection();
 
         free();
         closed = true;
+        connected = false;
     }
 
     @Override
@@ -681,9 +519,11 @@ public class MysqlConnection extends Database {
         }
         boolean result = true;
         PreparedStatement set = null;
+        Connection connection = null;
         try {
-            set = connection.prepareStatement("INSERT INTO `" + prefix + "_island` (`islandId`, `x`, `y`, `z`, `isSpawn`, `psize`, `playerName`, `islandName`, `level`, `biome`, `locked`, `protection`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
-            set.setInt(1, pd.getIslandId());
+            connection = connection();
+            set = connection.prepareStatement("INSERT INTO `" + prefix + "_island` (`islandId`, `x`, `y`, `z`, `isSpawn`, `psize`, `playerName`, `islandName`, `level`, `biome`, `locked`, `protection`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
+            set.setLong(1, pd.getIslandId());
             set.setInt(2, pd.getCenter().getFloorX());
             set.setInt(3, pd.getCenter().getFloorY());
             set.setInt(4, pd.getCenter().getFloorZ());
@@ -706,15 +546,26 @@ public class MysqlConnection extends Database {
                 }
             }
         } catch (SQLException ex) {
+            JDBCUtilities.printSQLException(ex);
+            result = false;
+        } finally {
             try {
                 if (set != null) {
                     set.close();
                 }
+                if (connection != null) {
+                    connection.close();
+                }
             } catch (SQLException e) {
                 JDBCUtilities.printSQLException(e);
             }
         }
 
+        if (result && enableFastCache) {
+            islandCache.put(pd);
+        } else if (result) {
+            islandCache.getProtectionIndex().put(pd);
+        }
         return result;
     }
 
@@ -724,9 +575,8 @@ public class MysqlConnection extends Database {
             Utils.send("&cUnable to process any requests for MySQL due to no connectivity within the servers");
             return false;
         }
-        PreparedStatement stmt = null;
-        try {
-            stmt = connection.prepareStatement("INSERT INTO `" + prefix + "_island` (`id`, `islandId`, `x`, `y`, `z`, `isSpawn`, `psize`, `islandOwner`, `islandName`, `level`, `biome`, `locked`, `protection`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);");
+        try (Connection connection = connection();
+             PreparedStatement stmt = connection.prepareStatement("UPDATE `" + prefix + "_island` SET `islandName` = ?, `biome` = ?, `locked` = ?, `isSpawn` = ?, `protection` = ?, `spawnX` = ?, `spawnY` = ?, `spawnZ` = ? WHERE(`id` = ? AND `playerName` = ?)")) {
             stmt.setString(1, pd.getName());
             stmt.setString(2, pd.getBiome());
             stmt.setBoolean(3, pd.isLocked());
@@ -735,40 +585,28 @@ public class MysqlConnection extends Database {
             stmt.setInt(6, pd.homeX);
             stmt.setInt(7, pd.homeY);
             stmt.setInt(8, pd.homeZ);
+            stmt.setInt(9, pd.getId());
+            stmt.setString(10, pd.getOwner());
             stmt.addBatch();
 
             for (int batches : stmt.executeBatch()) {
                 if (batches == EXECUTE_FAILED) {
                     Utils.send("&cFailed to save data for island: " + pd.getOwner());
-                    stmt.close();
-
                     return false;
                 }
             }
-            stmt.close();
         } catch (SQLException ex) {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-            } catch (SQLException e) {
-                JDBCUtilities.printSQLException(e);
-            }
-
+            JDBCUtilities.printSQLException(ex);
             return false;
         }
 
-        // Automatically remove the island from cache
+        // Re-index the island in the cache, its name could be changed
         if (enableFastCache) {
-            for (IslandData pde : islandCache) {
-                if (pde.getIslandId() != pd.getIslandId() && !pde.getOwner().equalsIgnoreCase(pd.getOwner())) {
-                    continue;
-                }
-                islandCache.remove(pde);
-            }
-            islandCache.add(pd);
+            islandCache.put(pd);
+        } else {
+            islandCache.getProtectionIndex().put(pd);
         }
-        return false;
+        return true;
     }
 
     @Override
@@ -779,35 +617,13 @@ public class MysqlConnection extends Database {
             return world;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT `world` FROM `" + prefix + "_worlds`");
-
-            // Simple and ease
-            while (!set.isClosed() && set.next()) {
-                world.add(set.getString("world"));
-            }
+        try (Connection connection = connection()) {
+            world = statements.queryList(connection, "SELECT `world` FROM `" + prefix + "_worlds`", set -> set.getString("world"));
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            // Maybe there was an error while saving the data
-            // Close the connection so it won't create too much connections
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException e) {
-                JDBCUtilities.printSQLException(e);
-            }
         }
         return world;
     }
-
     @Override
     public boolean saveWorlds(ArrayList<String> pd) {
         if (!connected) {
@@ -818,7 +634,9 @@ public class MysqlConnection extends Database {
 
         boolean result = true;
         PreparedStatement stmt = null;
+        Connection connection = null;
         try {
+            connection = connection();
             stmt = connection.prepareStatement("INSERT INTO `" + prefix + "_worlds` (`world`) VALUES (?);");
             for (String pd2 : pd) {
                 // Sometimes, they could go duplicate
@@ -844,6 +662,9 @@ public class MysqlConnection extends Database {
                 if (stmt != null) {
                     stmt.close();
                 }
+                if (connection != null) {
+                    connection.close();
+                }
             } catch (SQLException ex) {
                 JDBCUtilities.printSQLException(ex);
             }
@@ -859,29 +680,10 @@ public class MysqlConnection extends Database {
             return playersData;
         }
 
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_worlds`");
-
-
-            while (!set.isClosed() && set.next()) {
-                playersData.add(set.getString("player"));
-            }
+        try (Connection connection = connection()) {
+            playersData = statements.queryList(connection, "SELECT `player` FROM `" + prefix + "_players`", set -> set.getString("player"));
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
-        } finally {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException e) {
-                JDBCUtilities.printSQLException(e);
-            }
         }
         return playersData;
     }
@@ -893,38 +695,13 @@ public class MysqlConnection extends Database {
             return null;
         }
         PlayerData pd = null;
-        Statement stmt = null;
-        ResultSet set = null;
-        try {
-            stmt = connection.createStatement();
-            set = stmt.executeQuery("SELECT * FROM `" + prefix + "_players` WHERE `player` = '" + st + "'");
-
-            if (!set.isClosed()) {
-                pd = new PlayerData(set.getString("player"), set.getInt("homes"), Utils.stringToArray(set.getString("members"), ", "), set.getString("challengelist"), set.getString("challengelisttimes"), set.getInt("islandlvl"), set.getBoolean("inTeam"), set.getInt("deaths"), set.getString("teamLeader"), set.getString("teamIslandLocation"), set.getInt("resetleft"), Utils.stringToArray(set.getString("banList"), ", "), set.getString("locale"), set.getString("teamName"));
-            }
+        try (Connection connection = connection()) {
+            pd = statements.queryOne(connection, "SELECT * FROM `" + prefix + "_players` WHERE `player` = ?", PLAYER, st);
         } catch (SQLException ex) {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-            } catch (SQLException e) {
-                JDBCUtilities.printSQLException(e);
-            }
-        } finally {
-            try {
-                if (stmt != null) {
-                    stmt.close();
-                }
-                if (set != null) {
-                    set.close();
-                }
-            } catch (SQLException e) {
-                JDBCUtilities.printSQLException(e);
-            }
+            JDBCUtilities.printSQLException(ex);
         }
         return pd;
     }
-
     @Override
     public void createPlayer(String p) {
         if (!connected) {
@@ -933,7 +710,9 @@ public class MysqlConnection extends Database {
         }
 
         PreparedStatement stmt = null;
+        Connection connection = null;
         try {
+            connection = connection();
             stmt = connection.prepareStatement("INSERT INTO `" + prefix + "_players` ("
                     + "`player`, "
                     + "`homes`, "
@@ -976,6 +755,9 @@ public class MysqlConnection extends Database {
                 if (stmt != null) {
                     stmt.close();
                 }
+                if (connection != null) {
+                    connection.close();
+                }
             } catch (SQLException e) {
                 JDBCUtilities.printSQLException(e);
             }
@@ -983,14 +765,17 @@ public class MysqlConnection extends Database {
     }
 
     @Override
-    public void savePlayerData(PlayerData pd) {
+    public boolean savePlayerData(PlayerData pd) {
         if (!connected) {
             Utils.send("&cUnable to process any requests for MySQL due to no connectivity within the servers");
-            return;
+            return false;
         }
 
+        boolean result = true;
         PreparedStatement stmt = null;
+        Connection connection = null;
         try {
+            connection = connection();
             stmt = connection.prepareStatement("UPDATE `" + prefix + "_players` SET "
                     + "`homes` = ?, "
                     + "`resetleft` = ?, "
@@ -1004,7 +789,7 @@ public class MysqlConnection extends Database {
                     + "`challengelisttimes` = ?, "
                     + "`teamName` = ?, "
                     + "`locale` = ? "
-                    + "WHERE `player` = '" + pd.getPlayerName() + "'");
+                    + "WHERE `player` = ?");
             stmt.setInt(1, pd.getHomeNumber());
             stmt.setInt(2, pd.getPlayerReset());
             stmt.setString(3, Utils.arrayToString(pd.getBanList()));
@@ -1017,25 +802,32 @@ public class MysqlConnection extends Database {
             stmt.setString(10, pd.decodeChallengeList("clt"));
             stmt.setString(11, pd.name);
             stmt.setString(12, pd.getLocale());
+            stmt.setString(13, pd.getPlayerName());
             stmt.addBatch();
             for (int batches : stmt.executeBatch()) {
                 if (batches == EXECUTE_FAILED) {
                     Utils.send("&cFailed to save PlayerData for: " + pd.getPlayerName());
+                    result = false;
                 }
             }
 
             stmt.close();
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
+            result = false;
         } finally {
             try {
                 if (stmt != null) {
                     stmt.close();
                 }
+                if (connection != null) {
+                    connection.close();
+                }
             } catch (SQLException e) {
                 JDBCUtilities.printSQLException(e);
             }
         }
+        return result;
     }
 
 }
@@ -30,7 +30,11 @@ import cn.nukkit.level.Position;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.database.Database;
 import com.larryTheCoder.database.JDBCUtilities;
+import com.larryTheCoder.database.RowMapper;
+import com.larryTheCoder.database.SchemaMigration;
+import com.larryTheCoder.database.StatementCache;
 import com.larryTheCoder.database.config.AbstractConfig;
+import com.larryTheCoder.database.config.ConnectionPool;
 import com.larryTheCoder.player.PlayerData;
 import com.larryTheCoder.storage.IslandData;
 import com.larryTheCoder.utils.Settings;
@@ -41,6 +45,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Main database provider that saves
@@ -51,18 +56,62 @@ import java.util.Map;
  */
 public final class SqlConnection extends Database {
 
+    private static final RowMapper<IslandData> ISLAND = RowMapper.island("world", "name", "owner");
+    private static final RowMapper<PlayerData> PLAYER = RowMapper.player("name");
+
     private final ASkyBlock plugin;
-    private Connection con;
+    private final AbstractConfig database;
+    private final StatementCache statements = new StatementCache();
 
     public SqlConnection(ASkyBlock plugin, AbstractConfig database) throws SQLException, ClassNotFoundException {
         this.plugin = plugin;
-        this.con = database.openConnection();
-        this.verifyTable();
+        this.database = database;
+        try (Connection con = database.openConnection()) {
+            this.verifyTable(con);
+        }
+    }
+
+    @Override
+    public void upgrade() {
+        try (Connection con = connection()) {
+            this.migrations().migrate(con);
+        } catch (SQLException ex) {
+            JDBCUtilities.printSQLException(ex);
+        }
     }
 
-    private void verifyTable() throws SQLException {
+    /**
+     * The schema upgrades of this database, the version
+     * is kept in the `schema` table.
+     */
+    private SchemaMigration migrations() {
+        return new SchemaMigration("schema")
+                .add(1, "Index the island lookups", con -> {
+                    SchemaMigration.createIndex(con, "island", "island_location", "`world`, `islandId`");
+                    SchemaMigration.createIndex(con, "island", "island_owner", "`owner`, `id`");
+                    SchemaMigration.createIndex(con, "island", "island_owner_name", "`owner`, `name`");
+                    SchemaMigration.createIndex(con, "island", "island_id", "`islandId`");
+                })
+                .add(2, "Index the player lookups", con ->
+                        SchemaMigration.createIndex(con, "players", "players_player", "`player`"))
+                .add(3, "Pack the island keys into 64 bits", con -> upgradeIslandKeys(con, "island", "world", "rowid"));
+    }
+
+    /**
+     * Borrows a connection from the pool, it must be closed
+     * after being used.
+     */
+    private Connection connection() throws SQLException {
+        try {
+            return database.openConnection();
+        } catch (ClassNotFoundException ex) {
+            throw new SQLException("SQLite driver is not found", ex);
+        }
+    }
+
+    private void verifyTable(Connection con) throws SQLException {
         String[] tables = new String[]{"island", "worlds", "players"};
-        DatabaseMetaData meta = this.con.getMetaData();
+        DatabaseMetaData meta = con.getMetaData();
         int create = 0;
         // Verify tables.
         for (String s : tables) {
@@ -73,11 +122,11 @@ public final class SqlConnection extends Database {
             }
         }
         if (create == 0) {
-            verifyColumns();
+            verifyColumns(con);
             return;
         }
         // A lot of updates will coming
-        try (Statement set = this.con.createStatement()) {
+        try (Statement set = con.createStatement()) {
             //createdDate updatedDate votes
             set.addBatch("CREATE TABLE IF NOT EXISTS `island` (`id` INTEGER,"
                     + "`islandId` INTEGER NOT NULL,"
@@ -120,8 +169,8 @@ public final class SqlConnection extends Database {
      * Verify each columns if it exists and creates a new
      * column if not exists.
      */
-    private void verifyColumns() throws SQLException {
-        Statement stmt = this.con.createStatement();
+    private void verifyColumns(Connection con) throws SQLException {
+        Statement stmt = con.createStatement();
         // First, store the database metadata with its column
         // type name so its could be altered when update
         Map<String, String> dbIsland = new HashMap<>();
@@ -133,9 +182,9 @@ public final class SqlConnection extends Database {
         dbIsland.put("x", "INTEGER NOT NULL");
         dbIsland.put("y", "INTEGER NOT NULL");
         dbIsland.put("z", "INTEGER NOT NULL");
-        dbIsland.put("spawnX", "INTEGER NOT NULL");
-        dbIsland.put("spawnY", "INTEGER NOT NULL");
-        dbIsland.put("spawnZ", "INTEGER NOT NULL");
+        dbIsland.put("spawnX", "INTEGER");
+        dbIsland.put("spawnY", "INTEGER");
+        dbIsland.put("spawnZ", "INTEGER");
         dbIsland.put("isSpawn", "BOOLEAN NOT NULL");
         dbIsland.put("psize", "INTEGER NOT NULL");
         dbIsland.put("owner", "VARCHAR NOT NULL");
@@ -192,7 +241,7 @@ public final class SqlConnection extends Database {
 
         if (dbPlayer.size() != 0) {
             for (Map.Entry<String, String> map : dbPlayer.entrySet()) {
-                stmt.executeUpdate("ALTER TABLE `island` ADD `" + map.getKey() + "` " + map.getValue());
+                stmt.executeUpdate("ALTER TABLE `players` ADD `" + map.getKey() + "` " + map.getValue());
             }
         }
 
@@ -201,15 +250,9 @@ public final class SqlConnection extends Database {
 
     @Override
     public void setSpawnPosition(Position pos) {
-        int x = pos.getFloorX();
-        int y = pos.getFloorY();
-        int z = pos.getFloorZ();
-        try (PreparedStatement stmt = con.prepareStatement("UPDATE `island` SET `spawnX` = ?, `spawnY` = ?, `spawnZ` = ? WHERE `isSpawn` = '1'")) {
-            stmt.setInt(1, x);
-            stmt.setInt(2, y);
-            stmt.setInt(3, z);
-            stmt.addBatch();
-            stmt.executeBatch();
+        try (Connection con = connection()) {
+            statements.update(con, "UPDATE `island` SET `spawnX` = ?, `spawnY` = ?, `spawnZ` = ? WHERE `isSpawn` = '1'",
+                    pos.getFloorX(), pos.getFloorY(), pos.getFloorZ());
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
@@ -217,28 +260,23 @@ public final class SqlConnection extends Database {
 
     @Override
     public IslandData getIslandLocation(String levelName, int X, int Z) {
-        int id = plugin.getIsland().generateIslandKey(X, Z, levelName);
+        long id = plugin.getIsland().generateIslandKey(X, Z, levelName);
         IslandData database = new IslandData(levelName, X, Z, plugin.getSettings(levelName).getProtectionRange());
         if (enableFastCache) {
-            // Get a list of island data on cache
-            for (IslandData pd : islandCache) {
-                if (pd.getIslandId() == id && pd.getLevelName().equalsIgnoreCase(levelName)) {
-                    return pd;
-                }
+            IslandData pd = islandCache.getIslandAt(levelName, id);
+            if (pd != null) {
+                return pd;
             }
         }
-        try (Statement stmt = con.createStatement()) {
-            ResultSet set = stmt.executeQuery("SELECT * FROM `island` WHERE(`world` = '" + levelName + "' AND `islandId` = '" + id + "')");
-            if (set.isClosed()) {
+        try (Connection con = connection()) {
+            IslandData pd = statements.queryOne(con, "SELECT * FROM `island` WHERE(`world` = ? AND `islandId` = ?)", ISLAND, levelName, id);
+            if (pd == null) {
                 return database;
             }
-
-            set.next();
-            database = new IslandData(set.getString("world"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("name"), set.getString("owner"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
+            database = pd;
             if (enableFastCache) {
-                islandCache.add(database);
+                islandCache.put(database);
             }
-
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
@@ -248,30 +286,18 @@ public final class SqlConnection extends Database {
     @Override
     public ArrayList<IslandData> getIslands(String owner) {
         ArrayList<IslandData> pd = new ArrayList<>();
-        if (enableFastCache) {
-            // get the data from cache
-            islandCache.stream().filter(
-                    (pd3) -> (pd3.getOwner().equalsIgnoreCase(owner)))
-                    .forEachOrdered(pd::add);
-            // Not empty: Data in list contains player islands
-            if (!pd.isEmpty()) {
-                return pd; // Return
-            }
+        if (enableFastCache && islandCache.isOwnerLoaded(owner)) {
+            // Every island of this player is in the cache
+            return islandCache.getIslands(owner);
         }
-        try (Statement stmt = con.createStatement()) {
-            ResultSet set = stmt.executeQuery("SELECT * FROM `island` WHERE `owner` = '" + owner + "'");
-            if (set.isClosed()) {
-                return pd;
-            }
-            while (set.next()) {
-                pd.add(new IslandData(set.getString("world"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("name"), set.getString("owner"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn")));
-            }
+        try (Connection con = connection()) {
+            pd = statements.queryList(con, "SELECT * FROM `island` WHERE `owner` = ?", ISLAND, owner);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
         if (enableFastCache) {
             // Save the island into cache
-            islandCache.addAll(pd);
+            islandCache.putOwner(owner, pd);
         }
         return pd;
     }
@@ -279,30 +305,18 @@ public final class SqlConnection extends Database {
     @Override
     public ArrayList<IslandData> getIslands(String owner, String levelName) {
         ArrayList<IslandData> pd = new ArrayList<>();
-        if (enableFastCache) {
-            // get the data from cache
-            islandCache.stream().filter(
-                    (pd3) -> (pd3.getOwner().equalsIgnoreCase(owner) && pd3.getLevelName().equalsIgnoreCase(levelName)))
-                    .forEachOrdered(pd::add);
-            // Not empty: Data in list contains player islands
-            if (!pd.isEmpty()) {
-                return pd; // Return
-            }
+        if (enableFastCache && islandCache.isOwnerLoaded(owner)) {
+            // Every island of this player is in the cache
+            return islandCache.getIslands(owner, levelName);
         }
-        try (Statement stmt = con.createStatement()) {
-            ResultSet set = stmt.executeQuery("SELECT * FROM `island` WHERE `owner` = '" + owner + "' AND `world` = '" + levelName + "'");
-            if (set.isClosed()) {
-                return pd;
-            }
-            while (set.next()) {
-                pd.add(new IslandData(set.getString("world"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("name"), set.getString("owner"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn")));
-            }
+        try (Connection con = connection()) {
+            pd = statements.queryList(con, "SELECT * FROM `island` WHERE `owner` = ? AND `world` = ?", ISLAND, owner, levelName);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
         if (enableFastCache) {
             // Save the island into cache
-            islandCache.addAll(pd);
+            islandCache.putAll(pd);
         }
         return pd;
     }
@@ -312,23 +326,18 @@ public final class SqlConnection extends Database {
         // safe block
         IslandData pd = null;
         if (enableFastCache) {
-            for (IslandData pda : islandCache) {
-                if (pda.getOwner().equals(name) && pda.getId() == homes) {
-                    return pda;
-                }
+            pd = islandCache.getIsland(name, homes);
+            if (pd != null) {
+                return pd;
             }
         }
-        try (Statement stmt = con.createStatement()) {
-            ResultSet set = stmt.executeQuery("SELECT * FROM `island` WHERE(`owner` = '" + name + "' AND `id` = '" + homes + "')");
-            if (set.isClosed()) {
-                return null;
-            }
-            pd = new IslandData(set.getString("world"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("name"), set.getString("owner"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
+        try (Connection con = connection()) {
+            pd = statements.queryOne(con, "SELECT * FROM `island` WHERE(`owner` = ? AND `id` = ?)", ISLAND, name, homes);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
         if (enableFastCache) {
-            islandCache.add(pd);
+            islandCache.put(pd);
         }
         return pd;
     }
@@ -338,38 +347,28 @@ public final class SqlConnection extends Database {
         // safe block
         IslandData pd = null;
         if (enableFastCache) {
-            for (IslandData pda : islandCache) {
-                if (pda.getOwner().equals(name) && pda.getName().equalsIgnoreCase(homeName)) {
-                    return pda;
-                }
+            pd = islandCache.getIsland(name, homeName);
+            if (pd != null) {
+                return pd;
             }
         }
-        try (Statement stmt = con.createStatement()) {
-            ResultSet set = stmt.executeQuery("SELECT * FROM `island` WHERE(`owner` = '" + name + "' AND `name` = '" + homeName + "')");
-            if (set.isClosed()) {
-                return null;
-            }
-            pd = new IslandData(set.getString("world"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("name"), set.getString("owner"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
+        try (Connection con = connection()) {
+            pd = statements.queryOne(con, "SELECT * FROM `island` WHERE(`owner` = ? AND `name` = ?)", ISLAND, name, homeName);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
         if (enableFastCache) {
-            islandCache.add(pd);
+            islandCache.put(pd);
         }
         return pd;
     }
 
     @Override
     public boolean deleteIsland(IslandData pd) {
-        if (enableFastCache) {
-            islandCache.remove(pd);
-        }
-        try (PreparedStatement set = con.prepareStatement("DELETE FROM `island` WHERE(`id` = ? AND `owner` = ?)")) {
-            set.setInt(1, pd.getId());
-            set.setString(2, pd.getOwner());
-
-            set.execute();
-            set.close();
+        // Always drop it from the protection index
+        islandCache.delete(pd);
+        try (Connection con = connection()) {
+            statements.update(con, "DELETE FROM `island` WHERE(`id` = ? AND `owner` = ?)", pd.getId(), pd.getOwner());
             return true;
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
@@ -384,13 +383,8 @@ public final class SqlConnection extends Database {
         if (islandSpawn != null) {
             return islandSpawn;
         }
-        try (Statement stmt = con.createStatement()) {
-            ResultSet set = stmt.executeQuery("SELECT * FROM `island` WHERE `isSpawn` = '1'");
-            if (set.isClosed()) {
-                return null;
-            }
-            set.next();
-            pd = new IslandData(set.getString("world"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("name"), set.getString("owner"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
+        try (Connection con = connection()) {
+            pd = statements.queryOne(con, "SELECT * FROM `island` WHERE `isSpawn` = '1'", ISLAND);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
@@ -399,70 +393,81 @@ public final class SqlConnection extends Database {
     }
 
     @Override
-    public IslandData getIslandById(int id) {
+    public IslandData getIslandById(long id) {
         // safe block
         IslandData pd = null;
         if (enableFastCache) {
-            for (IslandData pde : islandCache) {
-                if (pde.getIslandId() == id) {
-                    return pde;
-                }
+            pd = islandCache.getIslandById(id);
+            if (pd != null) {
+                return pd;
             }
         }
-        try (Statement stmt = con.createStatement()) {
-            ResultSet set = stmt.executeQuery("SELECT * FROM `island` WHERE `islandId` = '" + id + "'");
-            if (set.isClosed()) {
-                return null;
-            }
-            set.next();
-            pd = new IslandData(set.getString("world"), set.getInt("x"), set.getInt("y"), set.getInt("z"), set.getInt("spawnX"), set.getInt("spawnY"), set.getInt("spawnZ"), set.getInt("psize"), set.getString("name"), set.getString("owner"), set.getString("biome"), set.getInt("id"), set.getInt("islandId"), set.getBoolean("locked"), set.getString("protection"), set.getBoolean("isSpawn"));
+        try (Connection con = connection()) {
+            pd = statements.queryOne(con, "SELECT * FROM `island` WHERE `islandId` = ?", ISLAND, id);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
         if (enableFastCache) {
-            islandCache.add(pd);
+            islandCache.put(pd);
         }
         return pd;
     }
 
     @Override
-    public void close() {
-        Utils.send("&7Closing databases...");
-        try {
-            con.close();
-            // Clear all variables
-            islandCache.clear();
-            islandSpawn = null;
+    public boolean loadIslands(int fetchSize, Consumer<IslandData> consumer) {
+        try (Connection con = connection();
+             PreparedStatement stmt = con.prepareStatement("SELECT * FROM `island`", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(fetchSize);
+            try (ResultSet set = stmt.executeQuery()) {
+                while (set.next()) {
+                    consumer.accept(ISLAND.map(set));
+                }
+            }
+            return true;
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
+        return false;
+    }
+
+    @Override
+    public ConnectionPool getPool() {
+        return database.getPool();
+    }
+
+    @Override
+    public void close() {
+        Utils.send("&7Closing databases...");
+        statements.clear();
+        database.closeConnection();
+        // Clear all variables
+        islandCache.clear();
+        islandSpawn = null;
     }
 
     @Override
     public boolean createIsland(IslandData pd) {
-        try (PreparedStatement set = con.prepareStatement("INSERT INTO `island` (`id`, `islandId`, `x`, `y`, `z`, `isSpawn`, `psize`, `owner`, `name`, `world`, `biome`, `locked`, `protection`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);")) {
-            set.setInt(1, pd.getId());
-            set.setInt(2, pd.getIslandId());
-            set.setInt(3, pd.getCenter().getFloorX());
-            set.setInt(4, pd.getCenter().getFloorY());
-            set.setInt(5, pd.getCenter().getFloorZ());
-            set.setBoolean(6, pd.isSpawn());
-            set.setInt(7, pd.getProtectionSize());
-            set.setString(8, pd.getOwner());
-            set.setString(9, pd.getName());
-            set.setString(10, pd.getLevelName());
-            set.setString(11, pd.getBiome());
-            set.setBoolean(12, pd.isLocked());
-            set.setString(13, pd.getIgsSettings().getSettings());
-            set.addBatch();
-            set.executeBatch();
-            set.close();
+        try (Connection con = connection()) {
+            statements.update(con, "INSERT INTO `island` (`id`, `islandId`, `x`, `y`, `z`, `isSpawn`, `psize`, `owner`, `name`, `world`, `biome`, `locked`, `protection`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+                    pd.getId(),
+                    pd.getIslandId(),
+                    pd.getCenter().getFloorX(),
+                    pd.getCenter().getFloorY(),
+                    pd.getCenter().getFloorZ(),
+                    pd.isSpawn(),
+                    pd.getProtectionSize(),
+                    pd.getOwner(),
+                    pd.getName(),
+                    pd.getLevelName(),
+                    pd.getBiome(),
+                    pd.isLocked(),
+                    pd.getIgsSettings().getSettings());
             if (enableFastCache) {
-                islandCache.add(pd);
+                islandCache.put(pd);
+            } else {
+                islandCache.getProtectionIndex().put(pd);
             }
             return true;
-        } catch (BatchUpdateException b) {
-            JDBCUtilities.printBatchUpdateException(b);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
@@ -471,28 +476,23 @@ public final class SqlConnection extends Database {
 
     @Override
     public boolean saveIsland(IslandData pd) {
-        if (enableFastCache) {
-            for (IslandData pde : islandCache) {
-                if (pde.getIslandId() == pd.getIslandId() && pde.getOwner().equalsIgnoreCase(pd.getOwner())) {
-                    islandCache.remove(pde);
-                    break;
-                }
-            }
-        }
-        try (PreparedStatement stmt = con.prepareStatement("UPDATE `island` SET `name` = ?, `biome` = ?, `locked` = ?,`isSpawn` = ?, `protection` = ?, `spawnX` = ?, `spawnY` = ?, `spawnZ` = ? WHERE(`id` = '" + pd.getId() + "' AND `owner` = '" + pd.getOwner() + "')")) {
-            stmt.setString(1, pd.getName());
-            stmt.setString(2, pd.getBiome());
-            stmt.setBoolean(3, pd.isLocked());
-            stmt.setBoolean(4, pd.isSpawn());
-            stmt.setString(5, pd.getIgsSettings().getSettings());
-            stmt.setInt(6, pd.homeX);
-            stmt.setInt(7, pd.homeY);
-            stmt.setInt(8, pd.homeZ);
-            stmt.addBatch();
-            stmt.executeBatch();
-            stmt.close();
+        try (Connection con = connection()) {
+            statements.update(con, "UPDATE `island` SET `name` = ?, `biome` = ?, `locked` = ?,`isSpawn` = ?, `protection` = ?, `spawnX` = ?, `spawnY` = ?, `spawnZ` = ? WHERE(`id` = ? AND `owner` = ?)",
+                    pd.getName(),
+                    pd.getBiome(),
+                    pd.isLocked(),
+                    pd.isSpawn(),
+                    pd.getIgsSettings().getSettings(),
+                    pd.homeX,
+                    pd.homeY,
+                    pd.homeZ,
+                    pd.getId(),
+                    pd.getOwner());
             if (enableFastCache) {
-                islandCache.add(pd);
+                // Re-index the island, its name could be changed
+                islandCache.put(pd);
+            } else {
+                islandCache.getProtectionIndex().put(pd);
             }
             return true;
         } catch (SQLException ex) {
@@ -504,14 +504,8 @@ public final class SqlConnection extends Database {
     @Override
     public ArrayList<String> getWorlds() {
         ArrayList<String> world = new ArrayList<>();
-        try (Statement kt = con.createStatement()) {
-            ResultSet set = kt.executeQuery("SELECT `world` FROM `worlds`");
-            if (set.isClosed()) {
-                return world;
-            }
-            while (set.next()) {
-                world.add(set.getString("world"));
-            }
+        try (Connection con = connection()) {
+            world = statements.queryList(con, "SELECT `world` FROM `worlds`", set -> set.getString("world"));
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
@@ -520,16 +514,13 @@ public final class SqlConnection extends Database {
 
     @Override
     public boolean saveWorlds(ArrayList<String> pd) {
-        try (PreparedStatement set = con.prepareStatement("INSERT INTO `worlds` (`world`) VALUES (?);")) {
-            ArrayList<String> second = getWorlds();
+        ArrayList<String> second = getWorlds();
+        try (Connection con = connection()) {
             for (String pd2 : pd) {
                 if (!second.contains(pd2)) {
-                    set.setString(1, pd2);
-                    set.addBatch();
-                    set.executeBatch();
+                    statements.update(con, "INSERT INTO `worlds` (`world`) VALUES (?);", pd2);
                 }
             }
-            set.close();
             return true;
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
@@ -540,14 +531,8 @@ public final class SqlConnection extends Database {
     @Override
     public List<String> getPlayersData() {
         List<String> playersData = new ArrayList<>();
-        try (Statement kt = con.createStatement()) {
-            ResultSet set = kt.executeQuery("SELECT * FROM `players` ");
-            if (set.isClosed()) {
-                return playersData;
-            }
-            while (set.next()) {
-                playersData.add(set.getString("player"));
-            }
+        try (Connection con = connection()) {
+            playersData = statements.queryList(con, "SELECT `player` FROM `players`", set -> set.getString("player"));
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
@@ -558,26 +543,8 @@ public final class SqlConnection extends Database {
     public PlayerData getPlayerData(String st) {
         // TESTED SUCCESS
         PlayerData pd = null;
-        try (Statement kt = con.createStatement()) {
-            ResultSet set = kt.executeQuery("SELECT * FROM `players` WHERE `player` = '" + st + "'");
-            if (set.isClosed()) {
-                return null;
-            }
-            pd = new PlayerData(
-                    set.getString("player"),
-                    set.getInt("homes"),
-                    Utils.stringToArray(set.getString("members"), ", "),
-                    set.getString("challengelist"),
-                    set.getString("challengelisttimes"),
-                    set.getInt("islandlvl"),
-                    set.getBoolean("inTeam"),
-                    set.getInt("deaths"),
-                    set.getString("teamLeader"),
-                    set.getString("teamIslandLocation"),
-                    set.getInt("resetleft"),
-                    Utils.stringToArray(set.getString("banList"), ", "),
-                    set.getString("locale"),
-                    set.getString("name"));
+        try (Connection con = connection()) {
+            pd = statements.queryOne(con, "SELECT * FROM `players` WHERE `player` = ?", PLAYER, st);
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
@@ -586,79 +553,75 @@ public final class SqlConnection extends Database {
 
     @Override
     public void createPlayer(String p) {
-        // TODO: Fix the casting issue on this
-        try (PreparedStatement set = con.prepareStatement("INSERT INTO `players` ("
-                + "`player`, "
-                + "`homes`, "
-                + "`resetleft`, "
-                + "`banlist`, "
-                + "`teamleader`, "
-                + "`teamislandlocation`, "
-                + "`inteam` , "
-                + "`islandlvl`, "
-                + "`members`,"
-                + "`challengelist`, "
-                + "`challengelisttimes`, "
-                + "`name`, "
-                + "`locale`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);")) {
-            PlayerData pd = new PlayerData(p, 0, Settings.reset);
-            set.setString(1, pd.getPlayerName());
-            set.setInt(2, pd.getHomeNumber());
-            set.setInt(3, pd.getPlayerReset());
-            set.setString(4, Utils.arrayToString(pd.getBanList()));
-            set.setString(5, pd.teamLeader);
-            set.setString(6, pd.teamIslandLocation);
-            set.setBoolean(7, pd.inTeam);
-            set.setInt(8, pd.getIslandLevel());
-            set.setString(9, Utils.arrayToString(pd.members));
-            set.setString(10, pd.decodeChallengeList("cl"));
-            set.setString(11, pd.decodeChallengeList("clt"));
-            set.setString(12, pd.name);
-            set.setString(13, pd.getLocale());
-            set.addBatch();
-
-            set.executeBatch();
-        } catch (BatchUpdateException b) {
-            JDBCUtilities.printBatchUpdateException(b);
+        PlayerData pd = new PlayerData(p, 0, Settings.reset);
+        try (Connection con = connection()) {
+            statements.update(con, "INSERT INTO `players` ("
+                            + "`player`, "
+                            + "`homes`, "
+                            + "`resetleft`, "
+                            + "`banlist`, "
+                            + "`teamleader`, "
+                            + "`teamislandlocation`, "
+                            + "`inteam` , "
+                            + "`islandlvl`, "
+                            + "`members`,"
+                            + "`challengelist`, "
+                            + "`challengelisttimes`, "
+                            + "`name`, "
+                            + "`locale`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);",
+                    pd.getPlayerName(),
+                    pd.getHomeNumber(),
+                    pd.getPlayerReset(),
+                    Utils.arrayToString(pd.getBanList()),
+                    pd.teamLeader,
+                    pd.teamIslandLocation,
+                    pd.inTeam,
+                    pd.getIslandLevel(),
+                    Utils.arrayToString(pd.members),
+                    pd.decodeChallengeList("cl"),
+                    pd.decodeChallengeList("clt"),
+                    pd.name,
+                    pd.getLocale());
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
     }
 
     @Override
-    public void savePlayerData(PlayerData pd) {
+    public boolean savePlayerData(PlayerData pd) {
         // TESTED SUCCESS
-        try (PreparedStatement stmt = con.prepareStatement(
-                "UPDATE `players` SET "
-                        + "`homes` = ?, "
-                        + "`resetleft` = ?, "
-                        + "`banlist` = ?, "
-                        + "`teamleader` = ?, "
-                        + "`teamislandlocation` = ?, "
-                        + "`inteam` = ?, "
-                        + "`islandlvl` = ?, "
-                        + "`members` = ?, "
-                        + "`challengelist` = ?, "
-                        + "`challengelisttimes` = ?, "
-                        + "`name` = ?, "
-                        + "`locale` = ? "
-                        + "WHERE `player` = '" + pd.getPlayerName() + "'")) {
-            stmt.setInt(1, pd.getHomeNumber());
-            stmt.setInt(2, pd.getPlayerReset());
-            stmt.setString(3, Utils.arrayToString(pd.getBanList()));
-            stmt.setString(4, pd.teamLeader);
-            stmt.setString(5, pd.teamIslandLocation);
-            stmt.setBoolean(6, pd.inTeam);
-            stmt.setInt(7, pd.getIslandLevel());
-            stmt.setString(8, Utils.arrayToString(pd.members));
-            stmt.setString(9, pd.decodeChallengeList("cl"));
-            stmt.setString(10, pd.decodeChallengeList("clt"));
-            stmt.setString(11, pd.name);
-            stmt.setString(12, pd.getLocale());
-            stmt.addBatch();
-            stmt.executeBatch();
+        try (Connection con = connection()) {
+            statements.update(con, "UPDATE `players` SET "
+                            + "`homes` = ?, "
+                            + "`resetleft` = ?, "
+                            + "`banlist` = ?, "
+                            + "`teamleader` = ?, "
+                            + "`teamislandlocation` = ?, "
+                            + "`inteam` = ?, "
+                            + "`islandlvl` = ?, "
+                            + "`members` = ?, "
+                            + "`challengelist` = ?, "
+                            + "`challengelisttimes` = ?, "
+                            + "`name` = ?, "
+                            + "`locale` = ? "
+                            + "WHERE `player` = ?",
+                    pd.getHomeNumber(),
+                    pd.getPlayerReset(),
+                    Utils.arrayToString(pd.getBanList()),
+                    pd.teamLeader,
+                    pd.teamIslandLocation,
+                    pd.inTeam,
+                    pd.getIslandLevel(),
+                    Utils.arrayToString(pd.members),
+                    pd.decodeChallengeList("cl"),
+                    pd.decodeChallengeList("clt"),
+                    pd.name,
+                    pd.getLocale(),
+                    pd.getPlayerName());
+            return true;
         } catch (SQLException ex) {
             JDBCUtilities.printSQLException(ex);
         }
+        return false;
     }
 }
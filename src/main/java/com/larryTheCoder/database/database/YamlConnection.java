@@ -33,6 +33,7 @@ import com.larryTheCoder.storage.IslandData;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class YamlConnection extends Database {
 
@@ -42,6 +43,11 @@ public class YamlConnection extends Database {
 
     }
 
+    @Override
+    public boolean loadIslands(int fetchSize, Consumer<IslandData> consumer) {
+        return false;
+    }
+
     @Override
     public IslandData getIslandLocation(String levelName, int X, int Z) {
         return null;
@@ -78,7 +84,7 @@ public class YamlConnection extends Database {
     }
 
     @Override
-    public IslandData getIslandById(int id) {
+    public IslandData getIslandById(long id) {
         return null;
     }
 
@@ -123,7 +129,8 @@ public class YamlConnection extends Database {
     }
 
     @Override
-    public void savePlayerData(PlayerData pd) {
-
+    public boolean savePlayerData(PlayerData pd) {
+        // Nothing is stored by this provider
+        return true;
     }
 }
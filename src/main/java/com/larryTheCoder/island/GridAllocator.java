@@ -0,0 +1,290 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.island;
+
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.storage.WorldSettings;
+import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.utils.Utils;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Hands out the grid slots of new islands. The slots of a world
+ * are numbered in shells around the corner of the grid, so the
+ * islands stay packed near the start of the world:
+ * <pre>
+ *  8 7 6
+ *  3 2 5
+ *  0 1 4
+ * </pre>
+ * Claiming a slot takes the oldest slot that was freed by a
+ * deleted island, otherwise the next slot of the shells. The
+ * slots that were already taken before the allocator was used
+ * are read once from the database and skipped, the database is
+ * read without holding the allocator so a release never waits for it.
+ * <p>
+ * A claim is saved into grid.yml before the slot is handed out,
+ * so a crash never gives the same slot twice. A release only marks
+ * the state as changed and is saved in the background every few
+ * seconds, losing one only keeps a free slot unused.
+ *
+ * @author larryTheCoder
+ */
+public class GridAllocator {
+
+    private final ASkyBlock plugin;
+    private final Config storage;
+    private final Map<String, WorldGrid> worlds = new HashMap<>();
+    // Worlds that are being read, and the slots released meanwhile
+    private final Map<String, CompletableFuture<WorldGrid>> loading = new HashMap<>();
+    private final Map<String, List<Integer>> released = new HashMap<>();
+    private boolean dirty = false;
+
+    public GridAllocator(ASkyBlock plugin) {
+        this.plugin = plugin;
+        this.storage = new Config(new File(plugin.getDataFolder(), "grid.yml"), Config.YAML);
+
+        ConfigSection section = storage.getSection("worlds");
+        for (String levelName : section.getKeys(false)) {
+            ConfigSection world = section.getSection(levelName);
+            WorldGrid grid = new WorldGrid();
+            grid.next = world.getInt("next", 0);
+            world.getIntegerList("reserved").forEach(grid.reserved::add);
+            world.getIntegerList("free").forEach(grid.free::add);
+            worlds.put(levelName, grid);
+        }
+        TaskManager.runTaskRepeatAsync(this::save, 100);
+    }
+
+    /**
+     * Get the slot number of a grid position.
+     *
+     * @param slotX The grid x, from 0
+     * @param slotZ The grid z, from 0
+     * @return The slot number
+     */
+    public static int getSlot(int slotX, int slotZ) {
+        int shell = Math.max(slotX, slotZ);
+        if (slotX == shell) {
+            return shell * shell + slotZ;
+        }
+        return shell * shell + 2 * shell - slotX;
+    }
+
+    /**
+     * @param slot The slot number
+     * @return The grid x of the slot
+     */
+    public static int getSlotX(int slot) {
+        int shell = (int) Math.sqrt(slot);
+        int offset = slot - shell * shell;
+        return offset <= shell ? shell : 2 * shell - offset;
+    }
+
+    /**
+     * @param slot The slot number
+     * @return The grid z of the slot
+     */
+    public static int getSlotZ(int slot) {
+        int shell = (int) Math.sqrt(slot);
+        int offset = slot - shell * shell;
+        return offset <= shell ? offset : shell;
+    }
+
+    /**
+     * Claim a free slot in the world, this may read the
+     * database the first time a world is used and writes
+     * grid.yml so it must not run on the main thread.
+     *
+     * @param levelName The world name
+     * @return The slot number, or -1 if the world cannot be read
+     */
+    public int claim(String levelName) {
+        WorldGrid grid = getGrid(levelName);
+        if (grid == null) {
+            return -1;
+        }
+
+        int slot;
+        synchronized (this) {
+            Iterator<Integer> free = grid.free.iterator();
+            if (free.hasNext()) {
+                slot = free.next();
+                free.remove();
+            } else {
+                while (grid.reserved.remove(grid.next)) {
+                    grid.next++;
+                }
+                slot = grid.next++;
+            }
+            dirty = true;
+        }
+        save();
+        return slot;
+    }
+
+    /**
+     * Get the grid of a world, the first caller reads it from the
+     * database while the other callers of the same world wait for it.
+     */
+    private WorldGrid getGrid(String levelName) {
+        CompletableFuture<WorldGrid> future;
+        boolean reader = false;
+        synchronized (this) {
+            WorldGrid grid = worlds.get(levelName);
+            if (grid != null) {
+                return grid;
+            }
+            future = loading.get(levelName);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                loading.put(levelName, future);
+                reader = true;
+            }
+        }
+        if (!reader) {
+            return future.join();
+        }
+
+        WorldGrid grid = null;
+        try {
+            grid = load(levelName);
+        } finally {
+            synchronized (this) {
+                loading.remove(levelName);
+                List<Integer> slots = released.remove(levelName);
+                if (grid != null) {
+                    if (slots != null) {
+                        // Every slot is still ahead of the next slot
+                        grid.reserved.removeAll(slots);
+                    }
+                    worlds.put(levelName, grid);
+                }
+            }
+            future.complete(grid);
+        }
+        return grid;
+    }
+
+    /**
+     * Give back the slot of an island so it can be claimed
+     * by a new island.
+     *
+     * @param levelName The world name
+     * @param x         The x of the island center
+     * @param z         The z of the island center
+     */
+    public synchronized void release(String levelName, int x, int z) {
+        WorldGrid grid = worlds.get(levelName);
+        WorldSettings settings = plugin.getSettings(levelName);
+        if (settings == null || x < 0 || z < 0) {
+            return;
+        }
+        int slot = getSlot(x / settings.getIslandDistance(), z / settings.getIslandDistance());
+        if (grid == null) {
+            // Islands of a world that never had a claim are found when the
+            // world is read, the reader may have seen this island already
+            if (loading.containsKey(levelName)) {
+                released.computeIfAbsent(levelName, k -> new ArrayList<>()).add(slot);
+            }
+            return;
+        }
+        if (slot < grid.next) {
+            grid.free.add(slot);
+        } else {
+            grid.reserved.remove(slot);
+        }
+        dirty = true;
+    }
+
+    private WorldGrid load(String levelName) {
+        WorldSettings settings = plugin.getSettings(levelName);
+        if (settings == null) {
+            return null;
+        }
+
+        WorldGrid grid = new WorldGrid();
+        int distance = settings.getIslandDistance();
+        boolean success = plugin.getDatabase().loadIslands(1000, pd -> {
+            if (levelName.equalsIgnoreCase(pd.getLevelName())) {
+                int x = pd.getCenter().getFloorX();
+                int z = pd.getCenter().getFloorZ();
+                if (x >= 0 && z >= 0) {
+                    grid.reserved.add(getSlot(x / distance, z / distance));
+                }
+            }
+        });
+        if (!success) {
+            Utils.send("&cUnable to read the islands of " + levelName + ", no island can be created there for now");
+            return null;
+        }
+        return grid;
+    }
+
+    /**
+     * Write the slots into grid.yml if they were changed since
+     * the last save, this is also called when the plugin stops.
+     */
+    public void save() {
+        // Saves are written one at a time so an older state never
+        // replaces a newer one, claims only wait for the copy
+        synchronized (storage) {
+            ConfigSection section = new ConfigSection();
+            synchronized (this) {
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+                worlds.forEach((levelName, grid) -> {
+                    ConfigSection world = new ConfigSection();
+                    world.put("next", grid.next);
+                    world.put("reserved", new ArrayList<>(grid.reserved));
+                    world.put("free", new ArrayList<>(grid.free));
+                    section.put(levelName, world);
+                });
+            }
+            storage.set("worlds", section);
+            storage.save();
+        }
+    }
+
+    private static class WorldGrid {
+
+        // The first slot that was never claimed
+        private int next = 0;
+        // Slots from next onwards that are already taken
+        private final Set<Integer> reserved = new HashSet<>();
+        // Slots before next that were freed, oldest first
+        private final Set<Integer> free = new LinkedHashSet<>();
+    }
+}
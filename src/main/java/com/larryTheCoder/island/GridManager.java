@@ -33,12 +33,15 @@ import cn.nukkit.level.Position;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.utils.TextFormat;
 import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.database.ProtectionIndex;
 import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.task.TaskManager;
 import com.larryTheCoder.utils.BlockUtil;
 import com.larryTheCoder.utils.Utils;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static cn.nukkit.math.BlockFace.DOWN;
 import static cn.nukkit.math.BlockFace.UP;
@@ -162,13 +165,34 @@ public class GridManager {
      * @return Location of a safe teleport spot or null if one cannot be found
      */
     public Location getSafeHomeLocation(String p, int number) {
+        return getSafeHomeLocation(getHomeIsland(p, number));
+    }
+
+    /**
+     * Get the island of this home, or the default island if
+     * this home doesn't exists.
+     *
+     * @param p      The player
+     * @param number Home number e.g., 1
+     * @return The island, or null if the player has no island
+     */
+    private IslandData getHomeIsland(String p, int number) {
         IslandData pd = plugin.getDatabase().getIsland(p, number);
         if (pd == null) {
             // Get the default home, which may be null too, but that's okay
-            number = 1;
-            pd = plugin.getDatabase().getIsland(p, number);
+            pd = plugin.getDatabase().getIsland(p, 1);
         }
+        return pd;
+    }
 
+    /**
+     * Determines a safe teleport spot on the island, this needs
+     * to be called from the server thread.
+     *
+     * @param pd The island
+     * @return Location of a safe teleport spot or null if one cannot be found
+     */
+    private Location getSafeHomeLocation(IslandData pd) {
         if (pd != null) {
             if (pd.isSpawn()) {
                 return pd.getHome();
@@ -249,25 +273,57 @@ public class GridManager {
      * @param number Starting home location e.g., 1
      */
     public void homeTeleport(Player player, int number) {
-        Location home = getSafeHomeLocation(player.getName(), number);
-        //if the home null
-        if (home == null) {
-            player.sendMessage(plugin.getPrefix() + TextFormat.RED + "Failed to find your island safe spawn");
-            return;
-        }
-        plugin.getTeleportLogic().safeTeleport(player, home, false, number);
-        plugin.getIsland().showFancyTitle(player);
+        CompletableFuture<IslandData> island = plugin.getDatabaseExecutor().supply(() -> getHomeIsland(player.getName(), number));
+        TaskManager.whenDone(island, pd -> {
+            Location home = getSafeHomeLocation(pd);
+            //if the home null
+            if (home == null) {
+                player.sendMessage(plugin.getPrefix() + TextFormat.RED + "Failed to find your island safe spawn");
+                return;
+            }
+            plugin.getTeleportLogic().safeTeleport(player, home, false, number);
+            plugin.getIsland().showFancyTitle(player);
+        });
     }
 
+    /**
+     * Get the island that protects this location. This is resolved
+     * from the protection index without touching the database, a
+     * cell that were never seen is loaded asynchronously and is
+     * treated as unprotected until it is loaded.
+     *
+     * @param location The location to be checked
+     * @return IslandData or null if there is no island protecting it
+     */
     public IslandData getProtectedIslandAt(Location location) {
-        IslandData island = plugin.getIslandInfo(location);
-        if (island == null) {
-            return null;
-        }
-        if (island.onIsland(location)) {
-            return island;
+        ProtectionIndex index = plugin.getDatabase().getIslandCache().getProtectionIndex();
+        String levelName = location.getLevel().getName();
+        int x = location.getFloorX();
+        int z = location.getFloorZ();
+
+        IslandData island = index.getIslandAt(levelName, x, z);
+        if (island == null && index.requestLoad(levelName, x, z)) {
+            TaskManager.runTaskAsync(() -> {
+                IslandData pd = plugin.getDatabase().getIslandLocation(levelName, x, z);
+                if (pd != null && pd.getOwner() != null) {
+                    index.put(pd);
+                }
+                index.markLoaded(levelName, x, z);
+            });
         }
-        return null;
+        return island;
+    }
+
+    /**
+     * Checks if the islands around this location are known,
+     * when false the location is still being loaded.
+     *
+     * @param location The location to be checked
+     * @return true if the protection of the location is known
+     */
+    public boolean isResolved(Location location) {
+        ProtectionIndex index = plugin.getDatabase().getIslandCache().getProtectionIndex();
+        return index.getCell(location.getLevel().getName(), location.getFloorX(), location.getFloorZ()) != null;
     }
 
     public boolean isAtSpawn(Location location) {
@@ -0,0 +1,77 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.island;
+
+import com.larryTheCoder.storage.WorldSettings;
+
+/**
+ * The key of an island grid cell, packed into a long:
+ * <pre>
+ *  bits 48-63: the index of the world
+ *  bits 24-47: the cell x, signed
+ *  bits  0-23: the cell z, signed
+ * </pre>
+ * Every cell of every world has its own key, including the
+ * cells at negative coordinates.
+ *
+ * @author larryTheCoder
+ */
+public final class IslandKey {
+
+    private IslandKey() {
+    }
+
+    /**
+     * Get the key of the cell that contains this position.
+     *
+     * @param settings The world settings
+     * @param x        The x of the position
+     * @param z        The z of the position
+     * @return The island key
+     */
+    public static long of(WorldSettings settings, int x, int z) {
+        int distance = settings.getIslandDistance();
+        return pack(settings.getKeyIndex(), Math.floorDiv(x, distance), Math.floorDiv(z, distance));
+    }
+
+    public static long pack(int world, int cellX, int cellZ) {
+        return ((long) (world & 0xFFFF) << 48) | ((long) (cellX & 0xFFFFFF) << 24) | (cellZ & 0xFFFFFFL);
+    }
+
+    public static int getWorld(long key) {
+        return (int) (key >>> 48);
+    }
+
+    public static int getCellX(long key) {
+        return (int) (key << 16 >> 40);
+    }
+
+    public static int getCellZ(long key) {
+        return (int) (key << 40 >> 40);
+    }
+}
@@ -42,10 +42,14 @@ import com.larryTheCoder.storage.WorldSettings;
 import com.larryTheCoder.task.DeleteIslandTask;
 import com.larryTheCoder.task.SimpleFancyTitle;
 import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.task.UpdateBiomeTask;
 import com.larryTheCoder.utils.Settings;
 import com.larryTheCoder.utils.Utils;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Core management for SkyBlock world and
@@ -56,25 +60,50 @@ import java.util.List;
 public class IslandManager {
 
     private final ASkyBlock plugin;
+    private final GridAllocator allocator;
+    private final IslandPool pool;
+    // Owners whose island is being created, only used from the main thread
+    private final Set<String> creating = new HashSet<>();
 
     public IslandManager(ASkyBlock plugin) {
         this.plugin = plugin;
+        this.allocator = new GridAllocator(plugin);
+        this.pool = new IslandPool(plugin);
+    }
+
+    /**
+     * Get the allocator that hands out the grid slots of new islands
+     *
+     * @return GridAllocator
+     */
+    public GridAllocator getAllocator() {
+        return allocator;
+    }
+
+    /**
+     * Get the pool of the islands that are pasted ahead of time
+     *
+     * @return IslandPool
+     */
+    public IslandPool getPool() {
+        return pool;
     }
 
     public void handleIslandCommand(Player p, boolean reset) {
         if (!reset) {
-            if (!checkIsland(p)) {
-                plugin.getPanel().addIslandFormOverlay(p);
-                return;
-            }
-            IslandData pd = plugin.getDatabase().getIsland(p.getName(), 1);
-            if (pd == null || pd.getOwner() == null) {
-                p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
-                return;
-            }
-            p.sendMessage(plugin.getLocale(p).hangInThere);
-            // teleport to grid
-            plugin.getGrid().homeTeleport(p);
+            TaskManager.whenDone(plugin.getDatabase().getIslandAsync(p.getName(), 1), pd -> {
+                if (pd == null) {
+                    plugin.getPanel().addIslandFormOverlay(p);
+                    return;
+                }
+                if (pd.getOwner() == null) {
+                    p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
+                    return;
+                }
+                p.sendMessage(plugin.getLocale(p).hangInThere);
+                // teleport to grid
+                plugin.getGrid().homeTeleport(p);
+            });
         } else {
             createIsland(p);
         }
@@ -93,7 +122,7 @@ public class IslandManager {
             pOwner.sendMessage(plugin.getPrefix() + plugin.getLocale(pOwner).errorNotOnIsland);
             return;
         }
-        final int orgKey = generateIslandKey(loc);
+        final long orgKey = generateIslandKey(loc);
         final Player pVictim = Server.getInstance().getPlayer(victimName);
         if (pVictim == null || !pVictim.isOnline()) {
             pOwner.sendMessage(plugin.getPrefix() + plugin.getLocale(pOwner).errorOfflinePlayer);
@@ -110,7 +139,7 @@ public class IslandManager {
             return;
         }
         final Location locVict = pVictim.getLocation();
-        final int tgtKey = generateIslandKey(locVict);
+        final long tgtKey = generateIslandKey(locVict);
         if (tgtKey != orgKey) {
             pOwner.sendMessage(plugin.getPrefix() + plugin.getLocale(pOwner).errorOfflinePlayer);
             return;
@@ -178,22 +207,27 @@ public class IslandManager {
             }
         }
 
-        WorldSettings settings = plugin.getSettings(levelName);
+        // The home number is taken from the islands of the owner, so
+        // only one island of the owner is created at the same time
+        if (!creating.add(p.getName().toLowerCase())) {
+            p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorIslandCreating);
+            return;
+        }
         Level world = Server.getInstance().getLevelByName(levelName);
-        for (int i = 0; i < Integer.MAX_VALUE; ++i) {
-            int width = i * settings.getIslandDistance() * 2;
-            int wx = (int) (Math.random() * width);
-            int wz = (int) (Math.random() * width);
-            int wy = Settings.islandHeight;
-            wx = wx - wx % settings.getIslandDistance() + settings.getIslandDistance() / 2;
-            wz = wz - wz % settings.getIslandDistance() + settings.getIslandDistance() / 2;
-            IslandData pd = plugin.getDatabase().getIslandById(generateIslandKey(wx, wz, levelName));
-            if (pd == null) {
-                Location locIsland = new Location(wx, wy, wz, world);
-                pd = claim(p, locIsland, home, locked);
+        // A pooled island is already pasted, it only needs an owner
+        Location pooled = pool.take(levelName, templateId);
+        // Finding a free spot needs the database, the world is only
+        // touched once it is found
+        CompletableFuture<IslandData> claim = plugin.getDatabaseExecutor().supply(() ->
+                pooled != null ? claim(p, pooled, home, locked) : findFreeIsland(p, world, home, locked));
+        TaskManager.whenDone(claim, pd -> {
+            // Until the island is given to the database, any failure
+            // here gives the spot back and lets the owner try again
+            boolean saving = false;
+            try {
                 if (pd == null) {
                     p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
-                    Utils.send("&cUnable to claim level at:" + locIsland.toString());
+                    Utils.send("&cUnable to claim level at:" + levelName);
                     return;
                 }
                 // Call an event
@@ -203,23 +237,94 @@ public class IslandManager {
                     p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorBlockedByAPI);
                     return;
                 }
-                plugin.getSchematics().pasteSchematic(p, locIsland, templateId, biome);
-
-                boolean result = plugin.getDatabase().createIsland(pd);
-                if (result) {
-                    p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).createSuccess);
+                Location locIsland = new Location(pd.getCenter().getFloorX(), pd.getCenter().getFloorY(), pd.getCenter().getFloorZ(), world);
+                if (pooled != null) {
+                    plugin.getSchematics().pasteTiles(p, locIsland, templateId);
                 } else {
-                    p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
-                    return;
+                    plugin.getSchematics().pasteSchematic(p, locIsland, templateId);
                 }
-                if (teleport) {
-                    plugin.getGrid().homeTeleport(p, pd.getId());
+                pd.setBiome(biome.biome.getName());
+
+                TaskManager.whenDone(plugin.getDatabase().createIslandAsync(pd), result -> {
+                    try {
+                        if (!result) {
+                            abandon(p, pd, templateId, pooled);
+                            p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
+                            return;
+                        }
+                        p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).createSuccess);
+                        if (biome != EnumBiome.PLAINS) {
+                            // The islands are pasted into plains worlds
+                            new UpdateBiomeTask(plugin, pd, p).start();
+                        }
+                        plugin.getLevelCalcTask().islandCreated(pd, plugin.getSchematics().getBlockCounts(templateId), p);
+                        if (teleport) {
+                            plugin.getGrid().homeTeleport(p, pd.getId());
+                        }
+                    } finally {
+                        creating.remove(p.getName().toLowerCase());
+                    }
+                }, error -> {
+                    abandon(p, pd, templateId, pooled);
+                    p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
+                });
+                saving = true;
+            } finally {
+                if (!saving) {
+                    abandon(p, pd, templateId, pooled);
                 }
-                return;
             }
+        }, error -> {
+            // A free spot may have been claimed before the request failed,
+            // findFreeIsland gives it back by itself
+            abandon(p, null, templateId, pooled);
+            p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
+        });
+    }
+
+    /**
+     * Gives back the spot of an island that was not created.
+     *
+     * @param p          The player who tried to create the island
+     * @param pd         The claimed island, or null if it was not claimed
+     * @param templateId The schematic of the island
+     * @param pooled     The center of the pooled island, or null if it was not pooled
+     */
+    private void abandon(Player p, IslandData pd, int templateId, Location pooled) {
+        creating.remove(p.getName().toLowerCase());
+        if (pooled != null) {
+            pool.putBack(templateId, pooled);
+        } else if (pd != null) {
+            allocator.release(pd.getLevelName(), pd.getCenter().getFloorX(), pd.getCenter().getFloorZ());
         }
     }
 
+    /**
+     * Claims the next free grid slot in the world,
+     * this runs on the database threads.
+     *
+     * @return The claimed island, or null if it cannot be claimed
+     */
+    private IslandData findFreeIsland(Player p, Level world, String home, boolean locked) {
+        String levelName = world.getName();
+        WorldSettings settings = plugin.getSettings(levelName);
+        int slot = allocator.claim(levelName);
+        if (slot == -1) {
+            return null;
+        }
+        int wx = GridAllocator.getSlotX(slot) * settings.getIslandDistance() + settings.getIslandDistance() / 2;
+        int wz = GridAllocator.getSlotZ(slot) * settings.getIslandDistance() + settings.getIslandDistance() / 2;
+        IslandData pd = null;
+        try {
+            pd = claim(p, new Location(wx, Settings.islandHeight, wz, world), home, locked);
+        } finally {
+            if (pd == null) {
+                allocator.release(levelName, wx, wz);
+            }
+        }
+        return pd;
+    }
+
     private IslandData claim(Player p, Location loc, String home, boolean locked) {
         int x = loc.getFloorX();
         int z = loc.getFloorZ();
@@ -227,7 +332,7 @@ public class IslandManager {
             return null;
         }
 
-        int iKey = generateIslandKey(loc);
+        long iKey = generateIslandKey(loc);
         List<IslandData> number = plugin.getDatabase().getIslands(p.getName());
         IslandData pd = plugin.getDatabase().getIslandLocation(loc.getLevel().getName(), x, z);
         pd.setId(number.size() + 1);
@@ -241,16 +346,14 @@ public class IslandManager {
         return pd;
     }
 
-    public int generateIslandKey(Location loc) {
+    public long generateIslandKey(Location loc) {
         int x = loc.getFloorX();
         int z = loc.getFloorZ();
         return generateIslandKey(x, z, loc.level.getName());
     }
 
-    public int generateIslandKey(int x, int z, String level) {
-        WorldSettings settings = plugin.getSettings(level);
-        // NEW: Key upgrade need to delete island database
-        return x / settings.getIslandDistance() + z / settings.getIslandDistance() * Integer.MAX_VALUE;
+    public long generateIslandKey(int x, int z, String level) {
+        return IslandKey.of(plugin.getSettings(level), x, z);
     }
 
     public void deleteIsland(Player p, IslandData pd) {
@@ -268,20 +371,20 @@ public class IslandManager {
 
         PlayerData pda = plugin.getPlayerInfo(p);
         pda.setPlayerReset(pda.getPlayerReset() + 1);
-        plugin.getDatabase().savePlayerData(pda);
+        pda.saveData();
 
         p.sendMessage(plugin.getPrefix() + plugin.getLocale(p).resetSuccess.replace("[mili]", "" + Settings.resetTime));
     }
 
     public boolean checkIslandAt(Level level) {
-        return plugin.getLevels().contains(level.getName());
+        return plugin.getWorldRegistry().contains(level);
     }
 
     public IslandData GetIslandAt(Location loc) {
         if (!checkIslandAt(loc.getLevel())) {
             return null;
         }
-        int iKey = generateIslandKey(loc);
+        long iKey = generateIslandKey(loc);
         IslandData res = plugin.getDatabase().getIslandById(iKey);
         if (res == null) {
             return null;
@@ -0,0 +1,228 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.island;
+
+import cn.nukkit.level.Level;
+import cn.nukkit.level.Location;
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.storage.WorldSettings;
+import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.utils.Settings;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps a few islands of every world and template pasted
+ * ahead of time, so creating an island only needs to give a
+ * ready island an owner. The pool is refilled one island at a
+ * time while the server is not busy.
+ * <p>
+ * The pool of a world is configured in worlds.yml with
+ * {@code pool.size} and {@code pool.refillTicks}, the ready
+ * islands are saved into pool.yml in the background once they
+ * were changed.
+ *
+ * @author larryTheCoder
+ */
+public class IslandPool implements Runnable {
+
+    // Check the pools every second
+    private static final int INTERVAL = 20;
+    // Only refill when the server keeps up with this
+    private static final float IDLE_TPS = 19.5f;
+
+    private final ASkyBlock plugin;
+    private final Config storage;
+    // World name -> template id -> centers of the ready islands as "x:z"
+    private final Map<String, Map<Integer, Deque<String>>> ready = new HashMap<>();
+    // World name -> ticks until the next refill
+    private final Map<String, Integer> cooldown = new HashMap<>();
+    // Worlds that are waiting for a slot
+    private final Set<String> refilling = new HashSet<>();
+    private boolean dirty = false;
+    // Snapshots are numbered so an older one never replaces a newer one
+    private long snapshots = 0;
+    private long written = 0;
+
+    public IslandPool(ASkyBlock plugin) {
+        this.plugin = plugin;
+        this.storage = new Config(new File(plugin.getDataFolder(), "pool.yml"), Config.YAML);
+
+        ConfigSection section = storage.getSection("worlds");
+        for (String levelName : section.getKeys(false)) {
+            ConfigSection world = section.getSection(levelName);
+            for (String template : world.getKeys(false)) {
+                getReady(levelName, Integer.parseInt(template)).addAll(world.getStringList(template));
+            }
+        }
+        TaskManager.runTaskRepeat(this, INTERVAL);
+    }
+
+    /**
+     * Take a ready island from the pool.
+     *
+     * @param levelName  The world name
+     * @param templateId The island template
+     * @return The center of the island, or null if there is none ready
+     */
+    public Location take(String levelName, int templateId) {
+        Level level = plugin.getServer().getLevelByName(levelName);
+        if (level == null) {
+            // The islands stay in the pool until the world is loaded
+            return null;
+        }
+        String center = getReady(levelName, getKey(templateId)).poll();
+        if (center == null) {
+            return null;
+        }
+        dirty = true;
+        String[] parts = center.split(":");
+        return new Location(Integer.parseInt(parts[0]), Settings.islandHeight, Integer.parseInt(parts[1]), level);
+    }
+
+    /**
+     * Put back an island that was taken but could not be
+     * given to a player.
+     *
+     * @param templateId The island template
+     * @param center     The center of the island
+     */
+    public void putBack(int templateId, Location center) {
+        getReady(center.getLevel().getName(), getKey(templateId)).addFirst(center.getFloorX() + ":" + center.getFloorZ());
+        dirty = true;
+    }
+
+    @Override
+    public void run() {
+        if (dirty) {
+            ConfigSection section = snapshot();
+            long id = snapshots;
+            TaskManager.runTaskAsync(() -> write(section, id));
+        }
+        if (plugin.getServer().getTicksPerSecond() < IDLE_TPS) {
+            return;
+        }
+        Config worlds = plugin.getWorldConfig();
+        for (String levelName : plugin.getWorldRegistry().getNames()) {
+            int size = worlds.getInt(levelName + ".pool.size", 0);
+            if (size <= 0 || refilling.contains(levelName)) {
+                continue;
+            }
+            int wait = cooldown.merge(levelName, -INTERVAL, Integer::sum);
+            if (wait > 0) {
+                continue;
+            }
+
+            // Fill the template that has the least ready islands first
+            int template = -1;
+            int least = size;
+            for (int id = 1; id <= plugin.getSchematics().getTemplateCount(); id++) {
+                int count = getReady(levelName, id).size();
+                if (count < least) {
+                    least = count;
+                    template = id;
+                }
+            }
+            if (template != -1) {
+                cooldown.put(levelName, worlds.getInt(levelName + ".pool.refillTicks", 200));
+                refill(levelName, template);
+            }
+        }
+    }
+
+    private void refill(String levelName, int template) {
+        refilling.add(levelName);
+        // The first claim of a world reads the database
+        CompletableFuture<Integer> claim = plugin.getDatabaseExecutor().supply(() -> plugin.getIsland().getAllocator().claim(levelName));
+        TaskManager.whenDone(claim, slot -> {
+            refilling.remove(levelName);
+            Level level = plugin.getServer().getLevelByName(levelName);
+            WorldSettings settings = plugin.getSettings(levelName);
+            if (slot == -1 || level == null || settings == null) {
+                return;
+            }
+            int distance = settings.getIslandDistance();
+            int x = GridAllocator.getSlotX(slot) * distance + distance / 2;
+            int z = GridAllocator.getSlotZ(slot) * distance + distance / 2;
+            plugin.getSchematics().pasteSchematic(null, new Location(x, Settings.islandHeight, z, level), template);
+            getReady(levelName, template).add(x + ":" + z);
+            dirty = true;
+        }, error -> refilling.remove(levelName));
+    }
+
+    private int getKey(int templateId) {
+        // The build-in island is the same for every template
+        return plugin.getSchematics().isUseDefaultGeneration() ? 1 : templateId;
+    }
+
+    private Deque<String> getReady(String levelName, int template) {
+        return ready.computeIfAbsent(levelName, k -> new HashMap<>()).computeIfAbsent(template, k -> new ArrayDeque<>());
+    }
+
+    /**
+     * Write the ready islands into pool.yml if they were changed,
+     * this is called on the main thread when the plugin stops.
+     */
+    public void save() {
+        if (dirty) {
+            ConfigSection section = snapshot();
+            write(section, snapshots);
+        }
+    }
+
+    /**
+     * Copies the ready islands, the pool is only changed on
+     * the main thread so this must run there too.
+     */
+    private ConfigSection snapshot() {
+        dirty = false;
+        snapshots++;
+        ConfigSection section = new ConfigSection();
+        ready.forEach((levelName, templates) -> {
+            ConfigSection world = new ConfigSection();
+            templates.forEach((template, centers) -> world.put(String.valueOf(template), new ArrayList<>(centers)));
+            section.put(levelName, world);
+        });
+        return section;
+    }
+
+    private void write(ConfigSection section, long id) {
+        synchronized (storage) {
+            if (id < written) {
+                return;
+            }
+            written = id;
+            storage.set("worlds", section);
+            storage.save();
+        }
+    }
+}
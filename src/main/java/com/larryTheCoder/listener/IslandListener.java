@@ -42,6 +42,7 @@ import cn.nukkit.event.player.*;
 import cn.nukkit.level.Location;
 import cn.nukkit.utils.TextFormat;
 import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.database.ProtectionIndex;
 import com.larryTheCoder.events.IslandEnterEvent;
 import com.larryTheCoder.events.IslandExitEvent;
 import com.larryTheCoder.storage.IslandData;
@@ -49,6 +50,7 @@ import com.larryTheCoder.storage.SettingsFlag;
 import com.larryTheCoder.utils.Settings;
 import com.larryTheCoder.utils.Utils;
 
+import static cn.nukkit.block.BlockID.AIR;
 import static cn.nukkit.block.BlockID.ENDER_CHEST;
 
 /**
@@ -60,9 +62,11 @@ import static cn.nukkit.block.BlockID.ENDER_CHEST;
 public class IslandListener implements Listener {
 
     private final ASkyBlock plugin;
+    private final PlayerCellTracker tracker;
 
     public IslandListener(ASkyBlock plugin) {
         this.plugin = plugin;
+        this.tracker = new PlayerCellTracker(plugin);
     }
 
     /**
@@ -73,7 +77,7 @@ public class IslandListener implements Listener {
      * @return true if in the island world
      */
     private boolean notInWorld(Location loc) {
-        return !ASkyBlock.get().getLevels().contains(loc.getLevel().getName());
+        return !ASkyBlock.get().getWorldRegistry().contains(loc.getLevel());
     }
 
     /**
@@ -85,12 +89,12 @@ public class IslandListener implements Listener {
      */
     private boolean actionAllowed(Location location, SettingsFlag flag) {
         IslandData island = plugin.getGrid().getProtectedIslandAt(location);
-        if (island != null && island.getIgsSettings().getIgsFlag(flag)) {
+        if (island != null && (island.getIgsSettings().getVisitorMask() & flag.getMask()) != 0) {
             //deb.debug("DEBUG: Action is allowed by settings");
             return true;
         }
         //deb.debug("DEBUG: Action is defined by settings");
-        return Settings.defaultWorldSettings.get(flag);
+        return (Settings.defaultWorldFlags & flag.getMask()) != 0;
     }
 
     /**
@@ -111,7 +115,11 @@ public class IslandListener implements Listener {
             return true;
         }
         IslandData island = plugin.getGrid().getProtectedIslandAt(location);
-        if (island != null && (island.getIgsSettings().getIgsFlag(flag) || island.getMembers().contains(player.getName()))) {
+        if (island == null && !plugin.getGrid().isResolved(location)) {
+            // The cell is still loading, the islands of the player are known already
+            island = getOwnIslandAt(player, location);
+        }
+        if (island != null && ((island.getIgsSettings().getVisitorMask() & flag.getMask()) != 0 || island.getMembers().contains(player.getName()))) {
             //deb.debug("DEBUG: Action is allowed, flag=" + island.getIgsSettings().getIgsFlag(flag) + " member=" + island.getMembers().contains(player.getName()));
             return true;
         }
@@ -128,7 +136,26 @@ public class IslandListener implements Listener {
 
         //deb.debug("DEBUG: Action is defined by settings");
         // Fixed
-        return Settings.defaultWorldSettings.get(flag);
+        return (Settings.defaultWorldFlags & flag.getMask()) != 0;
+    }
+
+    /**
+     * Get the island of the player that protects this location,
+     * only the islands that are in the memory are checked.
+     *
+     * @param player   The player
+     * @param location The location to be checked
+     * @return The island, or null if none of the player islands protects it
+     */
+    private IslandData getOwnIslandAt(Player player, Location location) {
+        int x = location.getFloorX();
+        int z = location.getFloorZ();
+        for (IslandData pd : plugin.getDatabase().getIslandCache().getIslands(player.getName(), location.getLevel().getName())) {
+            if (ProtectionIndex.protects(pd, x, z)) {
+                return pd;
+            }
+        }
+        return null;
     }
 
     private String getPrefix() {
@@ -155,8 +182,11 @@ public class IslandListener implements Listener {
             return;
         }
 
-        final IslandData islandTo = plugin.getGrid().getProtectedIslandAt(e.getTo());
-        final IslandData islandFrom = plugin.getGrid().getProtectedIslandAt(e.getFrom()); // Announcement entering
+        if (!tracker.isTracked(p)) {
+            tracker.setLastIsland(p, tracker.getIslandAt(p, e.getFrom()));
+        }
+        final IslandData islandTo = tracker.getIslandAt(p, e.getTo());
+        final IslandData islandFrom = tracker.getLastIsland(p); // Announcement entering
         /*
          * Only says something if there is a change in islands
          *
@@ -214,6 +244,30 @@ public class IslandListener implements Listener {
         }
     }
 
+    /**
+     * Remembers the island the player moved onto, once
+     * every other plugin had the chance to cancel the move.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMoved(PlayerMoveEvent e) {
+        if (e.getTo().getFloorX() == e.getFrom().getFloorX() && e.getTo().getFloorZ() == e.getFrom().getFloorZ()) {
+            return;
+        }
+        Player p = e.getPlayer();
+        if (notInWorld(p)) {
+            if (tracker.isTracked(p)) {
+                tracker.remove(p);
+            }
+            return;
+        }
+        tracker.setLastIsland(p, tracker.getIslandAt(p, e.getTo()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        tracker.remove(e.getPlayer());
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)
     public void onBucketUseEvent(PlayerBucketFillEvent e) {
         //deb.debug("DEBUG: " + e.getEventName());
@@ -421,6 +475,28 @@ public class IslandListener implements Listener {
         //deb.debug("Action is not allowed and cancelled");
     }
 
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlaced(BlockPlaceEvent e) {
+        if (notInWorld(e.getPlayer())) {
+            return;
+        }
+        IslandData island = plugin.getGrid().getProtectedIslandAt(e.getBlock().getLocation());
+        if (island != null) {
+            plugin.getLevelCalcTask().blockChanged(island, e.getBlockReplace().getId(), e.getBlock().getId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBroken(BlockBreakEvent e) {
+        if (notInWorld(e.getPlayer())) {
+            return;
+        }
+        IslandData island = plugin.getGrid().getProtectedIslandAt(e.getBlock().getLocation());
+        if (island != null) {
+            plugin.getLevelCalcTask().blockChanged(island, e.getBlock().getId(), AIR);
+        }
+    }
+
     @EventHandler(priority = EventPriority.LOW)
     public void onCraft(CraftItemEvent event) {
         Player player = event.getPlayer();
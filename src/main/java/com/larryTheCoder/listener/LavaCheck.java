@@ -27,7 +27,6 @@
 package com.larryTheCoder.listener;
 
 import cn.nukkit.block.Block;
-import cn.nukkit.block.BlockLiquid;
 import cn.nukkit.event.EventHandler;
 import cn.nukkit.event.EventPriority;
 import cn.nukkit.event.Listener;
@@ -36,14 +35,14 @@ import cn.nukkit.level.Location;
 import cn.nukkit.level.Sound;
 import cn.nukkit.level.particle.SmokeParticle;
 import cn.nukkit.math.BlockFace;
-import cn.nukkit.math.Vector3;
-import com.google.common.collect.HashMultiset;
-import com.google.common.collect.Multiset;
 import com.larryTheCoder.ASkyBlock;
-import com.larryTheCoder.player.PlayerData;
+import com.larryTheCoder.database.ProtectionIndex;
+import com.larryTheCoder.player.PlayerSessionCache;
 import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.utils.CobbleStats;
+import com.larryTheCoder.utils.LongObjectMap;
 import com.larryTheCoder.utils.Settings;
-import com.larryTheCoder.utils.Utils;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
@@ -51,33 +50,32 @@ import java.util.concurrent.ThreadLocalRandom;
 import static cn.nukkit.block.BlockID.*;
 
 /**
+ * The magic cobble stone generator. The generator tier of an island
+ * is resolved once and kept until the island level changes, so a
+ * busy generator only costs a map lookup and a random draw. Islands
+ * that left the protection index are dropped every half a minute.
+ *
  * @author tastybento
  * @author larryTheCoder
  */
 public class LavaCheck implements Listener {
 
-    private static Map<Integer, Multiset<Block>> stats = new HashMap<>();
+    // Ticks between two sweeps of the generators
+    private static final int SWEEP_INTERVAL = 600;
+
     private static Map<Integer, Map<Block, Double>> configChances = new HashMap<>();
     private final ASkyBlock plugin;
-    private List<Vector3> isOnTick = new ArrayList<>();
+    // Keyed by the island key, only used from the main thread
+    private final LongObjectMap<Generator> generators = new LongObjectMap<>();
+    private final Map<Integer, Tier> tiers = new HashMap<>();
+    // The chances the tiers were built from, replaced on a reload
+    private TreeMap<Integer, TreeMap<Double, Block>> source;
+    // The protection index version of the last sweep
+    private int sweptVersion = -1;
 
     public LavaCheck(ASkyBlock aSkyBlock) {
         plugin = aSkyBlock;
-        stats.clear();
-    }
-
-    /**
-     * @return the magic cobble stone stats
-     */
-    public static Map<Integer, Multiset<Block>> getStats() {
-        return stats;
-    }
-
-    /**
-     * Clears the magic cobble gen stats
-     */
-    public static void clearStats() {
-        stats.clear();
+        TaskManager.runTaskRepeat(this::sweep, SWEEP_INTERVAL);
     }
 
     /**
@@ -112,6 +110,26 @@ public class LavaCheck implements Listener {
         return result;
     }
 
+    /**
+     * Return the chances for this level and block id
+     *
+     * @param level  The level for the block
+     * @param fullId The block id shifted by 4 with the block data
+     * @return chance, or 0 if the level or block don't exist
+     */
+    public static double getConfigChances(int level, int fullId) {
+        Map<Block, Double> chances = configChances.get(level);
+        if (chances == null) {
+            return 0;
+        }
+        for (Map.Entry<Block, Double> entry : chances.entrySet()) {
+            if ((entry.getKey().getId() << 4 | entry.getKey().getDamage()) == fullId) {
+                return entry.getValue();
+            }
+        }
+        return 0;
+    }
+
     /**
      * Determines if a location is in the island world or not or in the new
      * nether if it is activated
@@ -120,13 +138,13 @@ public class LavaCheck implements Listener {
      * @return true if in the island world
      */
     private boolean notInWorld(Location loc) {
-        return !ASkyBlock.get().getLevels().contains(loc.getLevel().getName());
+        return !ASkyBlock.get().getWorldRegistry().contains(loc.getLevel());
     }
 
     @EventHandler(priority = EventPriority.LOWEST)
     public void onCleanstoneGen(BlockFromToEvent e) {
         // If magic cobble gen isn't used
-        if (!Settings.useMagicCobbleGen) {
+        if (!Settings.useMagicCobbleGen || Settings.magicCobbleGenChances == null || Settings.magicCobbleGenChances.isEmpty()) {
             return;
         }
         // Do this only in the SkyBlock world
@@ -136,8 +154,6 @@ public class LavaCheck implements Listener {
 
         Block block = e.getTo();
         if (block.getId() == WATER || block.getId() == STILL_WATER || block.getId() == LAVA || block.getId() == STILL_LAVA) {
-            BlockLiquid blockLiq = (BlockLiquid) block;
-
             // This is a very weird thing to be reproduce.
             // #BlameNukkit :/
             Block flowedFrom = e.getBlock();
@@ -146,41 +162,119 @@ public class LavaCheck implements Listener {
                 return;
             }
 
-            int level = Integer.MIN_VALUE;
-            IslandData pd = plugin.getIslandInfo(e.getBlock());
-            if (pd != null && pd.getOwner() != null) {
-                PlayerData pd2 = plugin.getDatabase().getPlayerData(pd.getOwner());
-                if (pd2 != null) {
-                    level = pd2.getIslandLevel();
-                }
+            IslandData pd = plugin.getGrid().getProtectedIslandAt(flowedFrom.getLocation());
+            Tier tier = getTier(pd);
+            if (tier == null) {
+                return;
             }
+            int index = tier.draw(ThreadLocalRandom.current().nextDouble());
+            Block result = tier.blocks[index];
 
-            if (!Settings.magicCobbleGenChances.isEmpty()) {
-                Map.Entry<Integer, TreeMap<Double, Block>> entry = Settings.magicCobbleGenChances.floorEntry(level);
-                double maxValue = entry.getValue().lastKey();
-                double rnd = Utils.randomDouble() * maxValue;
-                Map.Entry<Double, Block> en = entry.getValue().ceilingEntry(rnd);
-
-                if (en != null) {
-                    e.setCancelled();
-                    flowedFrom.getLevel().setBlock(flowedFrom, en.getValue());
-                    flowedFrom.getLevel().addSound(flowedFrom.add(0.5, 0.5, 0.5), Sound.RANDOM_FIZZ, 1, 2.6F + (ThreadLocalRandom.current().nextFloat() - ThreadLocalRandom.current().nextFloat()) * 0.8F);
-
-                    for (int i = 0; i < 8; ++i) {
-                        flowedFrom.getLevel().addParticle(new SmokeParticle(flowedFrom.add(Math.random(), 1.2, Math.random())));
-                    }
-
-                    // Record stats, per level
-                    if (stats.containsKey(entry.getKey())) {
-                        stats.get(entry.getKey()).add(en.getValue());
-                    } else {
-                        Multiset<Block> set = HashMultiset.create();
-                        set.add(en.getValue());
-                        stats.put(entry.getKey(), set);
-                    }
-                }
+            e.setCancelled();
+            flowedFrom.getLevel().setBlock(flowedFrom, result);
+            if (pd != null) {
+                plugin.getLevelCalcTask().blockChanged(pd, flowedFrom.getId(), result.getId());
+            }
+            flowedFrom.getLevel().addSound(flowedFrom.add(0.5, 0.5, 0.5), Sound.RANDOM_FIZZ, 1, 2.6F + (ThreadLocalRandom.current().nextFloat() - ThreadLocalRandom.current().nextFloat()) * 0.8F);
+
+            for (int i = 0; i < 8; ++i) {
+                flowedFrom.getLevel().addParticle(new SmokeParticle(flowedFrom.add(Math.random(), 1.2, Math.random())));
             }
+
+            // Record stats, per level
+            plugin.getCobbleStats().record(tier.slots[index]);
+        }
+    }
+
+    /**
+     * Get the generator tier of the island. The tier is cached per
+     * island and resolved again when the island level changes.
+     *
+     * @param pd The island, or null outside of any island
+     * @return The tier, or null if no tier matches the island level
+     */
+    private Tier getTier(IslandData pd) {
+        if (source != Settings.magicCobbleGenChances) {
+            // The chances were reloaded
+            source = Settings.magicCobbleGenChances;
+            tiers.clear();
+            generators.clear();
         }
+        if (pd == null || pd.getOwner() == null) {
+            return getTierFor(Integer.MIN_VALUE);
+        }
+
+        Generator generator = generators.get(pd.getIslandId());
+        if (generator == null || !generator.isIsland(pd)) {
+            // A new island or an island that was created again on this spot
+            generator = new Generator(pd);
+            generators.put(pd.getIslandId(), generator);
+            generator.level = resolveLevel(pd, generator);
+        }
+        int level = plugin.getLevelCalcTask().getTracker().getLevel(pd);
+        if (level >= 0 && level != generator.level) {
+            generator.level = level;
+            generator.tier = null;
+        }
+        if (generator.tier == null) {
+            generator.tier = getTierFor(generator.level);
+        }
+        return generator.tier;
+    }
+
+    /**
+     * Get the island level without touching the database on this
+     * thread. The level of an offline owner is loaded in the
+     * background, the default tier is used until it is known.
+     *
+     * @param pd        The island
+     * @param generator The generator that receives the loaded level
+     * @return The island level, or Integer.MIN_VALUE if it is not known yet
+     */
+    private int resolveLevel(IslandData pd, Generator generator) {
+        int level = plugin.getLevelCalcTask().getTracker().getLevel(pd);
+        if (level >= 0) {
+            return level;
+        }
+        String owner = pd.getOwner();
+        PlayerSessionCache cache = plugin.getPlayerCache();
+        if (cache.isLoaded(owner)) {
+            return cache.get(owner).getIslandLevel();
+        }
+        TaskManager.whenDone(plugin.getDatabaseExecutor().supply(() -> plugin.getDatabase().getPlayerData(owner)), pda -> {
+            if (pda != null && generators.get(generator.islandId) == generator && generator.level == Integer.MIN_VALUE) {
+                generator.level = pda.getIslandLevel();
+                generator.tier = null;
+            }
+        });
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Drop the generators of the islands that were deleted, moved
+     * or whose cell is no longer in the protection index.
+     */
+    private void sweep() {
+        ProtectionIndex index = plugin.getDatabase().getIslandCache().getProtectionIndex();
+        int version = index.getVersion();
+        if (version == sweptVersion || generators.isEmpty()) {
+            return;
+        }
+        sweptVersion = version;
+        for (Generator generator : generators.values()) {
+            IslandData pd = index.getIslandAt(generator.levelName, generator.x, generator.z);
+            if (pd == null || pd.getIslandId() != generator.islandId || !generator.isIsland(pd)) {
+                generators.remove(generator.islandId);
+            }
+        }
+    }
+
+    private Tier getTierFor(int level) {
+        Map.Entry<Integer, TreeMap<Double, Block>> entry = source.floorEntry(level);
+        if (entry == null) {
+            return null;
+        }
+        return tiers.computeIfAbsent(entry.getKey(), k -> new Tier(k, entry.getValue(), plugin.getCobbleStats()));
     }
 
     public boolean generatesCobble(Block block, Block toBlock) {
@@ -195,4 +289,78 @@ public class LavaCheck implements Listener {
         return false;
     }
 
+    /**
+     * The blocks of one generator tier with their cumulative chances.
+     */
+    private static class Tier {
+
+        private final double[] bounds;
+        private final Block[] blocks;
+        // The stats slot of every block
+        private final int[] slots;
+
+        Tier(int level, TreeMap<Double, Block> chances, CobbleStats stats) {
+            bounds = new double[chances.size()];
+            blocks = new Block[chances.size()];
+            slots = new int[chances.size()];
+            int i = 0;
+            for (Map.Entry<Double, Block> entry : chances.entrySet()) {
+                Block block = entry.getValue();
+                bounds[i] = entry.getKey();
+                blocks[i] = block;
+                slots[i] = stats.getSlot(level, block.getId() << 4 | block.getDamage());
+                i++;
+            }
+        }
+
+        /**
+         * @param rnd A random number between 0 and 1
+         * @return The index of the block that was drawn
+         */
+        int draw(double rnd) {
+            double value = rnd * bounds[bounds.length - 1];
+            int low = 0;
+            int high = bounds.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (bounds[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static class Generator {
+
+        private final long islandId;
+        private final String levelName;
+        private final String owner;
+        // The island center, used to find the island in the index
+        private final int x;
+        private final int z;
+        private int level = Integer.MIN_VALUE;
+        private Tier tier;
+
+        Generator(IslandData pd) {
+            this.islandId = pd.getIslandId();
+            this.levelName = pd.getLevelName();
+            this.owner = pd.getOwner();
+            this.x = pd.getCenter().getFloorX();
+            this.z = pd.getCenter().getFloorZ();
+        }
+
+        /**
+         * The island data is loaded again by every cache miss, so the
+         * island is compared by its location and owner instead.
+         *
+         * @param pd The island
+         * @return true if this generator belongs to the island
+         */
+        boolean isIsland(IslandData pd) {
+            return owner.equalsIgnoreCase(pd.getOwner()) && Objects.equals(levelName, pd.getLevelName());
+        }
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.listener;
+
+import cn.nukkit.Player;
+import cn.nukkit.level.Location;
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.database.ProtectionIndex;
+import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.storage.WorldSettings;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Remembers the island cell every player is standing in. The
+ * protection index is only read again when the player crosses
+ * into another cell or when the index was modified, moving
+ * inside the same cell is a bounds check on the islands that
+ * were read before.
+ *
+ * @author larryTheCoder
+ */
+class PlayerCellTracker {
+
+    private static final IslandData[] UNKNOWN = new IslandData[0];
+
+    private final ASkyBlock plugin;
+    private final Map<UUID, Cell> cells = new HashMap<>();
+
+    PlayerCellTracker(ASkyBlock plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Get the island that protects the location the player is at.
+     *
+     * @param p   The player
+     * @param loc The location of the player
+     * @return The island, or null if no island protects the location
+     */
+    IslandData getIslandAt(Player p, Location loc) {
+        Cell cell = cells.computeIfAbsent(p.getUniqueId(), k -> new Cell());
+        String levelName = loc.getLevel().getName();
+        if (!levelName.equals(cell.levelName)) {
+            WorldSettings settings = plugin.getSettings(levelName);
+            if (settings == null || settings.getIslandDistance() <= 0) {
+                return null;
+            }
+            cell.levelName = levelName;
+            cell.distance = settings.getIslandDistance();
+            cell.islands = null;
+        }
+
+        int x = loc.getFloorX();
+        int z = loc.getFloorZ();
+        int cellX = Math.floorDiv(x, cell.distance);
+        int cellZ = Math.floorDiv(z, cell.distance);
+        ProtectionIndex index = plugin.getDatabase().getIslandCache().getProtectionIndex();
+        // Read the version first, a change that happens while the
+        // cell is read will be seen on the next move
+        int version = index.getVersion();
+        if (cell.islands == null || cell.x != cellX || cell.z != cellZ || cell.version != version) {
+            cell.x = cellX;
+            cell.z = cellZ;
+            cell.version = version;
+            cell.islands = index.getCell(levelName, x, z);
+            if (cell.islands == null) {
+                // Not resolved yet, this starts loading the cell
+                cell.islands = UNKNOWN;
+                return plugin.getGrid().getProtectedIslandAt(loc);
+            }
+        }
+
+        for (IslandData pd : cell.islands) {
+            if (ProtectionIndex.protects(pd, x, z)) {
+                return pd;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param p The player
+     * @return true if the island of the player was set before
+     */
+    boolean isTracked(Player p) {
+        Cell cell = cells.get(p.getUniqueId());
+        return cell != null && cell.tracked;
+    }
+
+    /**
+     * @param p The player
+     * @return The island the player was on after the last move
+     */
+    IslandData getLastIsland(Player p) {
+        Cell cell = cells.get(p.getUniqueId());
+        return cell == null ? null : cell.island;
+    }
+
+    /**
+     * @param p      The player
+     * @param island The island the player is on now, or null
+     */
+    void setLastIsland(Player p, IslandData island) {
+        Cell cell = cells.computeIfAbsent(p.getUniqueId(), k -> new Cell());
+        cell.island = island;
+        cell.tracked = true;
+    }
+
+    /**
+     * Forget the player, when the player leaves the server.
+     *
+     * @param p The player
+     */
+    void remove(Player p) {
+        cells.remove(p.getUniqueId());
+    }
+
+    private static class Cell {
+
+        private String levelName;
+        private int distance;
+        private int x;
+        private int z;
+        private int version;
+        // The islands of the cell, null when the cell must be read
+        private IslandData[] islands;
+        // The island after the last move
+        private IslandData island;
+        private boolean tracked = false;
+    }
+}
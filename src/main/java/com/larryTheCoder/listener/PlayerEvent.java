@@ -65,7 +65,7 @@ public class PlayerEvent implements Listener {
      * @return true if in the island world
      */
     private boolean notInWorld(Location loc) {
-        return !ASkyBlock.get().getLevels().contains(loc.getLevel().getName());
+        return !ASkyBlock.get().getWorldRegistry().contains(loc.getLevel());
     }
 
     /**
@@ -114,10 +114,14 @@ public class PlayerEvent implements Listener {
     }
 
 
-    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onPlayerLogin(PlayerPreLoginEvent ex) {
         Player p = ex.getPlayer();
-        plugin.getIslandInfo(p);
+        // Every island of the player is kept in the memory, protection
+        // uses them while the cells around the player are loading
+        plugin.getDatabase().getIslands(p.getName());
+        // Load player data
+        plugin.getPlayerCache().load(p.getName());
     }
 
     @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
@@ -125,10 +129,9 @@ public class PlayerEvent implements Listener {
         // load player inventory if exists
         Player p = ex.getPlayer();
         plugin.getInventory().loadPlayerInventory(p);
-        // Load player data
-        if (plugin.getPlayerInfo(p) == null) {
-            Utils.send(p.getName() + "&a data doesn't exists. Creating new ones");
-            plugin.getDatabase().createPlayer(p.getName());
+        // Load player data, in case the pre-login were cancelled
+        if (plugin.getPlayerCache().load(p.getName()) == null) {
+            Utils.send("&cUnable to load the data for " + p.getName());
         }
 
         // Load messages
@@ -147,6 +150,7 @@ public class PlayerEvent implements Listener {
             // Remove the island data from cache provides the memory to server
             plugin.getDatabase().removeIslandFromCache(pd);
         }
+        plugin.getPlayerCache().unload(p.getName());
     }
 
     @EventHandler(priority = EventPriority.HIGH)
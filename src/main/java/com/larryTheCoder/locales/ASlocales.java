@@ -78,6 +78,7 @@ public final class ASlocales {
     public String adminHelpMessage = "Add a message for all skyblock users";
     public String adminHelpClear = "Flushes all he memory in the plugin";
     public String adminHelpInfo = "Check information on the given player";
+    public String adminHelpStats = "Show the database statistics";
     // Challenges
     public String challengesHelp1 = "§aUse /c <name> to view information about a challenge.";
     public String challengesHelp2 = "§aUse /c complete <name> to attempt to complete that challenge.";
@@ -124,6 +125,7 @@ public final class ASlocales {
     public String errorLevelGenerated = "§cThe level has already generated";
     public String errorNotEnoughMoney = "§cYou don't have enough money! Default price: $[price]";
     public String errorIslandPC = "§cCannot attempt to generate level. PC Type of schematic";
+    public String errorIslandCreating = "§cYour island is still being created, please wait";
     // Commands messages
     public String kickSuccess = "§aKicked [player] from SkyBlock world!";
     public String createSuccess = "§aSuccessfully created you an island!";
@@ -168,6 +170,9 @@ public final class ASlocales {
     public String groundNoAir = "§eWhat do you think you are? You can't set home on air!";
     // Guard island
     public String islandProtected = "§cThat island is protected";
+    // Island level
+    public String levelCalculating = "§eCalculating your island level...";
+    public String levelIslandIs = "§aYour island level is §e[level]";
     // Panels
     public String panelIslandHeader = "§eWelcome to the Island Panel. Please fill in these forms.";
     public String panelIslandHome = "§dYour Home Name.";
@@ -296,6 +301,7 @@ public final class ASlocales {
         errorLevelGenerated = TextFormat.colorize('&', locale.getString("errorLevelGenerated", "§cThe level has already generated"));
         errorNotEnoughMoney = TextFormat.colorize('&', locale.getString("errorNotEnoughMoney", "§cYou don't have enough money! Default price: $[price]"));
         errorIslandPC = TextFormat.colorize('&', locale.getString("errorIslandPC", "§cCannot attempt to generate level. PC Type of schematic"));
+        errorIslandCreating = TextFormat.colorize('&', locale.getString("errorIslandCreating", "§cYour island is still being created, please wait"));
         // Commands messages
         kickSuccess = TextFormat.colorize('&', locale.getString("kickSuccess", "§aKicked [player] from SkyBlock world!"));
         createSuccess = TextFormat.colorize('&', locale.getString("createSuccess", "§aSuccessfully created you an island!"));
@@ -340,6 +346,9 @@ public final class ASlocales {
         groundNoAir = TextFormat.colorize('&', locale.getString("groundNoAir", "§eWhat do you think you are? You can't set home on air!"));
         // Guard island
         islandProtected = TextFormat.colorize('&', locale.getString("islandProtected", "§cThat island is protected"));
+        // Island level
+        levelCalculating = TextFormat.colorize('&', locale.getString("levelCalculating", "§eCalculating your island level..."));
+        levelIslandIs = TextFormat.colorize('&', locale.getString("levelIslandIs", "§aYour island level is §e[level]"));
         // Panels
         panelIslandHeader = TextFormat.colorize('&', locale.getString("panelIslandHeader", "§eWelcome to the Island Panel. Please fill in these forms."));
         panelIslandHome = TextFormat.colorize('&', locale.getString("panelIslandHome", "§dYour Home Name."));
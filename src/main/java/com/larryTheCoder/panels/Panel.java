@@ -47,12 +47,15 @@ import com.larryTheCoder.schematic.SchematicHandler;
 import com.larryTheCoder.storage.IslandData;
 import com.larryTheCoder.storage.IslandSettings;
 import com.larryTheCoder.storage.SettingsFlag;
+import com.larryTheCoder.task.TaskManager;
+import com.larryTheCoder.task.UpdateBiomeTask;
 import com.larryTheCoder.utils.Settings;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -199,7 +202,7 @@ public class Panel implements Listener {
                 responsesSimple = windowSimple.getResponse();
 
                 int islandIde = responsesSimple.getClickedButtonId();
-                addProtectionOverlay(p, plugin.getDatabase().getIsland(p.getName(), islandIde + 1));
+                TaskManager.whenDone(plugin.getDatabase().getIslandAsync(p.getName(), islandIde + 1), pd -> addProtectionOverlay(p, pd));
                 break;
             case FIRST_TIME_SETTING:
                 // Check if the player closed this form
@@ -213,7 +216,7 @@ public class Panel implements Listener {
                 responsesSimple = windowSimple.getResponse();
 
                 int islandId = responsesSimple.getClickedButtonId();
-                addSettingFormOverlay(p, plugin.getDatabase().getIsland(p.getName(), islandId + 1));
+                TaskManager.whenDone(plugin.getDatabase().getIslandAsync(p.getName(), islandId + 1), pd -> addSettingFormOverlay(p, pd));
                 break;
             case SECOND_TIME_SETTING:
                 // Check if the player closed this form
@@ -226,20 +229,29 @@ public class Panel implements Listener {
                 response = windowCustom.getResponse();
 
                 int idea = 1;
-                IslandData pd = plugin.getDatabase().getIsland(p.getName(), mapIslandId.get(p));
-                if (pd == null) {
-                    p.sendMessage(plugin.getLocale(p).errorResponseUnknown);
-                    break;
-                }
                 boolean lock = response.getToggleResponse(idea++);
-                String nameIsland = response.getInputResponse(idea);
-                if (pd.isLocked() != lock) {
-                    pd.setLocked(lock);
-                }
-                if (!pd.getName().equalsIgnoreCase(nameIsland)) {
-                    pd.setName(nameIsland);
-                }
-                plugin.getDatabase().saveIsland(pd);
+                String nameIsland = response.getInputResponse(idea++);
+                String biome = response.getDropdownResponse(idea).getElementContent();
+                TaskManager.whenDone(plugin.getDatabase().getIslandAsync(p.getName(), mapIslandId.get(p)), pd -> {
+                    if (pd == null) {
+                        p.sendMessage(plugin.getLocale(p).errorResponseUnknown);
+                        return;
+                    }
+                    if (pd.isLocked() != lock) {
+                        pd.setLocked(lock);
+                    }
+                    if (!pd.getName().equalsIgnoreCase(nameIsland)) {
+                        pd.setName(nameIsland);
+                    }
+                    boolean changeBiome = !biome.replace("_", " ").equalsIgnoreCase(pd.getBiome());
+                    if (changeBiome) {
+                        pd.setBiome(UpdateBiomeTask.getBiome(biome).getName());
+                    }
+                    plugin.getDatabase().saveIslandAsync(pd);
+                    if (changeBiome) {
+                        new UpdateBiomeTask(plugin, pd, p).start();
+                    }
+                });
                 break;
             case FIRST_TIME_DELETE:
                 // Check if the player closed this form
@@ -253,7 +265,7 @@ public class Panel implements Listener {
                 FormResponseSimple delete = windowSimple.getResponse();
 
                 String islandUID = delete.getClickedButton().getText();
-                addDeleteFormOverlay(p, plugin.getDatabase().getIsland(p.getName(), islandUID));
+                TaskManager.whenDone(plugin.getDatabase().getIslandAsync(p.getName(), islandUID), pd -> addDeleteFormOverlay(p, pd));
                 break;
             case SECOND_TIME_DELETE:
                 // Check if the player closed this form
@@ -268,7 +280,7 @@ public class Panel implements Listener {
 
                 int buttonId = modalForm.getResponse().getClickedButtonId();
                 if (buttonId == 0) {
-                    plugin.getIsland().deleteIsland(p, plugin.getDatabase().getIsland(p.getName(), idButton));
+                    TaskManager.whenDone(plugin.getDatabase().getIslandAsync(p.getName(), idButton), pd -> plugin.getIsland().deleteIsland(p, pd));
                 } else {
                     p.sendMessage(plugin.getLocale(p).deleteIslandCancelled);
                 }
@@ -279,14 +291,9 @@ public class Panel implements Listener {
                     break;
                 }
 
-                IslandData pd3 = plugin.getDatabase().getIsland(p.getName(), mapIslandId.get(p));
-                if (pd3 == null) {
-                    return;
-                }
-
-                IslandSettings pd4 = pd3.getIgsSettings();
-
+                // Read the form now, the island is applied once it is loaded
                 windowCustom = (FormWindowCustom) event.getWindow();
+                Map<SettingsFlag, Boolean> responds = new HashMap<>();
                 int idSc = 1;
                 int settingsId = 1;
                 for (Element element : windowCustom.getElements()) {
@@ -296,14 +303,22 @@ public class Panel implements Listener {
 
                     SettingsFlag flag = SettingsFlag.getFlag(settingsId);
                     if (flag != null) {
-                        boolean respond = windowCustom.getResponse().getToggleResponse(idSc);
-                        pd4.setIgsFlag(flag, respond);
+                        responds.put(flag, windowCustom.getResponse().getToggleResponse(idSc));
                         idSc++;
                         settingsId++;
                     }
                 }
 
-                plugin.getDatabase().saveIsland(pd3);
+                TaskManager.whenDone(plugin.getDatabase().getIslandAsync(p.getName(), mapIslandId.get(p)), pd3 -> {
+                    if (pd3 == null) {
+                        return;
+                    }
+
+                    IslandSettings pd4 = pd3.getIgsSettings();
+                    responds.forEach(pd4::setIgsFlag);
+
+                    plugin.getDatabase().saveIslandAsync(pd3);
+                });
                 break;
         }
     }
@@ -331,6 +346,31 @@ public class Panel implements Listener {
     }
 
     private void showChallengeType(Player player, String type) {
+        // The island challenges need the blocks around the player counted first
+        List<CompletableFuture<long[]>> scans = new ArrayList<>();
+        for (Map.Entry<String, List<String>> list : plugin.getChallenges().getChallengeList().entrySet()) {
+            if (!list.getKey().equalsIgnoreCase(type)) {
+                continue;
+            }
+            for (String challenge : list.getValue()) {
+                CompletableFuture<long[]> scan = plugin.getChallenges().scanIsland(player, challenge);
+                if (scan != null) {
+                    scans.add(scan);
+                }
+            }
+        }
+        if (scans.isEmpty()) {
+            addChallengeTypeForm(player, type);
+            return;
+        }
+        TaskManager.whenDone(CompletableFuture.allOf(scans.toArray(new CompletableFuture[0])), v -> {
+            if (player.isOnline()) {
+                addChallengeTypeForm(player, type);
+            }
+        });
+    }
+
+    private void addChallengeTypeForm(Player player, String type) {
         FormWindowSimple panelIsland = new FormWindowSimple("Quest Menu for " + type, getLocale(player).panelChallengesHeader);
 
         HashMap<String, String> orders = new HashMap<>();
@@ -357,11 +397,14 @@ public class Panel implements Listener {
     }
 
     public void addIslandFormOverlay(Player player) {
+        TaskManager.whenDone(plugin.getDatabase().getIslandsAsync(player.getName()), islands -> addIslandFormOverlay(player, islands.size()));
+    }
+
+    private void addIslandFormOverlay(Player player, int homes) {
         // First check the availability for worlds
         ArrayList<String> worldName = plugin.getLevels();
         // TODO: Check max homes
 
-        int homes = plugin.getDatabase().getIslands(player.getName()).size();
         FormWindowCustom panelIsland = new FormWindowCustom("Island Menu");
 
         panelIsland.addElement(new ElementLabel(getLocale(player).panelIslandHeader));
@@ -386,8 +429,10 @@ public class Panel implements Listener {
     }
 
     public void addHomeFormOverlay(Player p) {
-        ArrayList<IslandData> listHome = plugin.getDatabase().getIslands(p.getName());
+        TaskManager.whenDone(plugin.getDatabase().getIslandsAsync(p.getName()), listHome -> addHomeFormOverlay(p, listHome));
+    }
 
+    private void addHomeFormOverlay(Player p, ArrayList<IslandData> listHome) {
         FormWindowSimple islandHome = new FormWindowSimple("Home list", getLocale(p).panelHomeHeader.replace("[function]", "§aTeleport to them"));
         for (IslandData pd : listHome) {
             islandHome.addButton(new ElementButton(pd.getName()));
@@ -402,20 +447,7 @@ public class Panel implements Listener {
 
     private void addDeleteFormOverlay(Player p, IslandData pd) {
         if (pd == null) {
-            ArrayList<IslandData> listHome = plugin.getDatabase().getIslands(p.getName());
-            // Automatically show default island setting
-            if (listHome.size() == 1) {
-                addDeleteFormOverlay(p, listHome.get(0));
-                return;
-            }
-
-            FormWindowSimple islandHome = new FormWindowSimple("Choose your home", getLocale(p).panelHomeHeader.replace("[function]", "§aDelete your island."));
-            for (IslandData pda : listHome) {
-                islandHome.addButton(new ElementButton(pda.getName()));
-            }
-
-            int id = p.showFormWindow(islandHome);
-            panelDataId.put(id, PanelType.FIRST_TIME_DELETE);
+            TaskManager.whenDone(plugin.getDatabase().getIslandsAsync(p.getName()), listHome -> addDeleteListOverlay(p, listHome));
             return;
         }
         mapIslandId.put(p, pd.getId());
@@ -426,6 +458,22 @@ public class Panel implements Listener {
         panelDataId.put(id, PanelType.SECOND_TIME_DELETE);
     }
 
+    private void addDeleteListOverlay(Player p, ArrayList<IslandData> listHome) {
+        // Automatically show default island setting
+        if (listHome.size() == 1) {
+            addDeleteFormOverlay(p, listHome.get(0));
+            return;
+        }
+
+        FormWindowSimple islandHome = new FormWindowSimple("Choose your home", getLocale(p).panelHomeHeader.replace("[function]", "§aDelete your island."));
+        for (IslandData pda : listHome) {
+            islandHome.addButton(new ElementButton(pda.getName()));
+        }
+
+        int id = p.showFormWindow(islandHome);
+        panelDataId.put(id, PanelType.FIRST_TIME_DELETE);
+    }
+
     public void addProtectionOverlay(Player p) {
         this.addProtectionOverlay(p, null);
     }
@@ -433,20 +481,7 @@ public class Panel implements Listener {
     private void addProtectionOverlay(Player p, IslandData pd) {
         // This is the island Form
         if (pd == null) {
-            ArrayList<IslandData> listHome = plugin.getDatabase().getIslands(p.getName());
-            // Automatically show default island setting
-            if (listHome.size() == 1) {
-                addProtectionOverlay(p, plugin.getDatabase().getIsland(p.getName(), 1));
-                return;
-            }
-
-            FormWindowSimple islandHome = new FormWindowSimple("Choose your home", getLocale(p).panelHomeHeader.replace("[function]", "§aSet your island settings."));
-            for (IslandData pda : listHome) {
-                islandHome.addButton(new ElementButton(pda.getName()));
-            }
-
-            int id = p.showFormWindow(islandHome);
-            panelDataId.put(id, PanelType.FIRST_TIME_PROTECTION);
+            TaskManager.whenDone(plugin.getDatabase().getIslandsAsync(p.getName()), listHome -> addProtectionListOverlay(p, listHome));
             return;
         }
 
@@ -467,6 +502,22 @@ public class Panel implements Listener {
         panelDataId.put(id, PanelType.SECOND_TIME_PROTECTION);
     }
 
+    private void addProtectionListOverlay(Player p, ArrayList<IslandData> listHome) {
+        // Automatically show default island setting
+        if (listHome.size() == 1) {
+            addProtectionOverlay(p, listHome.get(0));
+            return;
+        }
+
+        FormWindowSimple islandHome = new FormWindowSimple("Choose your home", getLocale(p).panelHomeHeader.replace("[function]", "§aSet your island settings."));
+        for (IslandData pda : listHome) {
+            islandHome.addButton(new ElementButton(pda.getName()));
+        }
+
+        int id = p.showFormWindow(islandHome);
+        panelDataId.put(id, PanelType.FIRST_TIME_PROTECTION);
+    }
+
     public void addSettingFormOverlay(Player p) {
         this.addSettingFormOverlay(p, null);
     }
@@ -474,20 +525,7 @@ public class Panel implements Listener {
     private void addSettingFormOverlay(Player p, IslandData pd) {
         // This is the island Form
         if (pd == null) {
-            ArrayList<IslandData> listHome = plugin.getDatabase().getIslands(p.getName());
-            // Automatically show default island setting
-            if (listHome.size() == 1) {
-                addSettingFormOverlay(p, plugin.getDatabase().getIsland(p.getName(), 1));
-                return;
-            }
-
-            FormWindowSimple islandHome = new FormWindowSimple("Choose your home", getLocale(p).panelHomeHeader.replace("[function]", "§aSet your island settings."));
-            for (IslandData pda : listHome) {
-                islandHome.addButton(new ElementButton(pda.getName()));
-            }
-
-            int id = p.showFormWindow(islandHome);
-            panelDataId.put(id, PanelType.FIRST_TIME_SETTING);
+            TaskManager.whenDone(plugin.getDatabase().getIslandsAsync(p.getName()), listHome -> addSettingListOverlay(p, listHome));
             return;
         }
 
@@ -496,12 +534,30 @@ public class Panel implements Listener {
         settingForm.addElement(new ElementLabel(getLocale(p).panelSettingHeader));
         settingForm.addElement(new ElementToggle("Locked", pd.isLocked()));
         settingForm.addElement(new ElementInput("Island Name", "", pd.getName())); // islandMaxNameLong
+        List<String> biomes = UpdateBiomeTask.getBiomeNames();
+        settingForm.addElement(new ElementDropdown("Biome", biomes, Math.max(0, biomes.indexOf(pd.getBiome().replace(" ", "_")))));
         mapIslandId.put(p, pd.getId());
 
         int id = p.showFormWindow(settingForm);
         panelDataId.put(id, PanelType.SECOND_TIME_SETTING);
     }
 
+    private void addSettingListOverlay(Player p, ArrayList<IslandData> listHome) {
+        // Automatically show default island setting
+        if (listHome.size() == 1) {
+            addSettingFormOverlay(p, listHome.get(0));
+            return;
+        }
+
+        FormWindowSimple islandHome = new FormWindowSimple("Choose your home", getLocale(p).panelHomeHeader.replace("[function]", "§aSet your island settings."));
+        for (IslandData pda : listHome) {
+            islandHome.addButton(new ElementButton(pda.getName()));
+        }
+
+        int id = p.showFormWindow(islandHome);
+        panelDataId.put(id, PanelType.FIRST_TIME_SETTING);
+    }
+
     private ASlocales getLocale(Player p) {
         return plugin.getLocale(p);
     }
@@ -121,6 +121,15 @@ public class PlayerData implements Cloneable {
         return islandLevel;
     }
 
+    /**
+     * Set the user's island level
+     *
+     * @param islandLevel The island level value
+     */
+    public void setIslandLevel(int islandLevel) {
+        this.islandLevel = islandLevel;
+    }
+
     /**
      * Get the user banned list for the SkyBlock users
      * This is more likely that this user hates that person.
@@ -307,6 +316,10 @@ public class PlayerData implements Cloneable {
      * the hard way.
      */
     public void saveData() {
+        if (ASkyBlock.get().getPlayerCache() != null) {
+            ASkyBlock.get().getPlayerCache().save(this);
+            return;
+        }
         ASkyBlock.get().getDatabase().savePlayerData(this);
     }
 
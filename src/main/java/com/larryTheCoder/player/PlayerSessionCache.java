@@ -0,0 +1,203 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.player;
+
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.utils.Utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the PlayerData of every online player so the
+ * reads doesn't need to query the database each time.
+ * Offline players are kept for a short time after they
+ * were read. Writes are passed to the database, which
+ * buffers them in its write-behind queue.
+ *
+ * @author larryTheCoder
+ */
+public class PlayerSessionCache {
+
+    // Offline players that are kept before the cache is pruned
+    private static final int MAX_OFFLINE = 1000;
+
+    private final ASkyBlock plugin;
+    private final long offlineTime;
+    // Online players, keyed by their lowercase name
+    private final Map<String, PlayerData> sessions = new ConcurrentHashMap<>();
+    // Offline players that were read recently
+    private final Map<String, Offline> offline = new ConcurrentHashMap<>();
+
+    /**
+     * @param plugin      The plugin
+     * @param offlineTime The seconds an offline player data is kept after it was read
+     */
+    public PlayerSessionCache(ASkyBlock plugin, int offlineTime) {
+        this.plugin = plugin;
+        this.offlineTime = Math.max(0, offlineTime) * 1000L;
+    }
+
+    /**
+     * Loads the player data into the session, this will
+     * create a new data if the player doesn't have one.
+     *
+     * @param playerName The name of the player
+     * @return The player data, or null if the database failed
+     */
+    public PlayerData load(String playerName) {
+        String key = playerName.toLowerCase();
+        PlayerData pd = sessions.get(key);
+        if (pd != null) {
+            return pd;
+        }
+        Offline entry = offline.remove(key);
+        if (entry != null) {
+            pd = entry.pd;
+        } else {
+            pd = plugin.getDatabase().getPlayerData(playerName);
+        }
+        if (pd == null) {
+            Utils.send(playerName + "&a data doesn't exists. Creating new ones");
+            plugin.getDatabase().createPlayer(playerName);
+            pd = plugin.getDatabase().getPlayerData(playerName);
+        }
+        if (pd != null) {
+            PlayerData previous = sessions.putIfAbsent(key, pd);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        return pd;
+    }
+
+    /**
+     * Gets the player data, online players are served from
+     * the memory while offline players are read from the
+     * database and kept for a short time.
+     *
+     * @param playerName The name of the player
+     * @return The player data, or null if not exists
+     */
+    public PlayerData get(String playerName) {
+        String key = playerName.toLowerCase();
+        PlayerData pd = sessions.get(key);
+        if (pd != null) {
+            return pd;
+        }
+        long now = System.currentTimeMillis();
+        Offline entry = offline.get(key);
+        if (entry != null && entry.expires > now) {
+            return entry.pd;
+        }
+        pd = plugin.getDatabase().getPlayerData(playerName);
+        if (pd != null) {
+            keep(key, pd, now);
+        }
+        return pd;
+    }
+
+    /**
+     * Check if the player data is held in this session
+     *
+     * @param playerName The name of the player
+     * @return true if the player is online and loaded
+     */
+    public boolean isLoaded(String playerName) {
+        return sessions.containsKey(playerName.toLowerCase());
+    }
+
+    /**
+     * Saves the player data. The database queues the
+     * write, so this doesn't wait for the database.
+     *
+     * @param pd The player data
+     * @return false if the database failed to save it
+     */
+    public boolean save(PlayerData pd) {
+        String key = pd.getPlayerName().toLowerCase();
+        if (sessions.get(key) != pd) {
+            keep(key, pd, System.currentTimeMillis());
+        }
+        return plugin.getDatabase().savePlayerData(pd);
+    }
+
+    /**
+     * Removes the player from the session and saves
+     * the data.
+     *
+     * @param playerName The name of the player
+     */
+    public void unload(String playerName) {
+        String key = playerName.toLowerCase();
+        PlayerData pd = sessions.remove(key);
+        if (pd == null) {
+            return;
+        }
+        // The player data may be changed without being saved
+        // (deaths, members), so always save it on leave.
+        keep(key, pd, System.currentTimeMillis());
+        plugin.getDatabase().savePlayerData(pd);
+    }
+
+    /**
+     * Saves all the players in this session, this is
+     * called when the plugin is disabling.
+     */
+    public void saveAll() {
+        sessions.values().forEach(pd -> plugin.getDatabase().savePlayerData(pd));
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private void keep(String key, PlayerData pd, long now) {
+        if (offlineTime <= 0) {
+            return;
+        }
+        if (offline.size() >= MAX_OFFLINE) {
+            offline.values().removeIf(entry -> entry.expires <= now);
+            if (offline.size() >= MAX_OFFLINE) {
+                offline.clear();
+            }
+        }
+        offline.put(key, new Offline(pd, now + offlineTime));
+    }
+
+    private static class Offline {
+
+        private final PlayerData pd;
+        private final long expires;
+
+        Offline(PlayerData pd, long expires) {
+            this.pd = pd;
+            this.expires = expires;
+        }
+    }
+}
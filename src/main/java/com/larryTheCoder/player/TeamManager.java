@@ -92,7 +92,7 @@ public class TeamManager {
     }
 
     public ArrayList<String> getPlayerMembers(String p) {
-        PlayerData pd = plugin.getDatabase().getPlayerData(p);
+        PlayerData pd = plugin.getPlayerInfo(p);
         if (pd.members != null && !pd.members.isEmpty()) {
             return pd.members;
         }
@@ -100,7 +100,7 @@ public class TeamManager {
     }
 
     private boolean kick(Player p, PlayerData td) {
-        if (plugin.level.contains(p.getLevel().getName())) {
+        if (plugin.getWorldRegistry().contains(p.getLevel())) {
             String st = td.leader;
             IslandData pd = plugin.getDatabase().getIsland(p.getName(), 1);
             IslandData p1 = plugin.getDatabase().getIsland(st, 1);
@@ -113,12 +113,12 @@ public class TeamManager {
     }
 
     public String getLeader(String p) {
-        PlayerData pd = plugin.getDatabase().getPlayerData(p);
+        PlayerData pd = plugin.getPlayerInfo(p);
         return pd.leader;
     }
 
     public boolean inTeam(String team) {
-        PlayerData pd = plugin.getDatabase().getPlayerData(team);
+        PlayerData pd = plugin.getPlayerInfo(team);
         return pd.inTeam;
     }
 }
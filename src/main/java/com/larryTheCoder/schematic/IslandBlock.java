@@ -33,9 +33,9 @@ import cn.nukkit.blockentity.BlockEntityChest;
 import cn.nukkit.blockentity.BlockEntityFlowerPot;
 import cn.nukkit.blockentity.BlockEntitySign;
 import cn.nukkit.item.Item;
+import cn.nukkit.level.Level;
 import cn.nukkit.level.Location;
 import cn.nukkit.level.Position;
-import cn.nukkit.level.biome.EnumBiome;
 import cn.nukkit.level.format.generic.BaseFullChunk;
 import cn.nukkit.math.Vector3;
 import cn.nukkit.utils.TextFormat;
@@ -410,27 +410,18 @@ class IslandBlock extends BlockMinecraftId {
     }
 
     /**
-     * Paste this block at blockLoc
+     * Attach the tile entity (sign, flower pot or chest) of this block. The
+     * block must already be placed and its chunk loaded.
      *
-     * @param p        The player who created this island
-     * @param blockLoc The block location
+     * @param p     The player that owns the island
+     * @param level The level the schematic is pasted in
+     * @param loc   The absolute location of this block
      */
-    void paste(Player p, Position blockLoc, EnumBiome biome) {
-        Vector3 loc = new Vector3(x, y, z).add(blockLoc);
-        // OH! So this was the issue why the chunk isn't gonna load :/
-        // Checked the return type of `loc`, its should be Vector3 not Location.
-        while (!blockLoc.getLevel().isChunkLoaded((int) loc.getX() >> 4, (int) loc.getZ() >> 4)) {
-            loadChunkAt(new Position(loc.getFloorX(), loc.getFloorY(), loc.getFloorZ(), blockLoc.getLevel()));
-        }
-
+    void pasteTile(Player p, Level level, Vector3 loc) {
         try {
-            blockLoc.getLevel().setBlock(loc, Block.get(typeId, data), true, true);
-            blockLoc.getLevel().setBiomeId(loc.getFloorX(), loc.getFloorZ(), (byte) biome.id);
-
-            // Usually when the chunk is loaded it will be fully loaded, no need task anymore
+            BaseFullChunk chunk = level.getChunk(loc.getFloorX() >> 4, loc.getFloorZ() >> 4);
             if (signText != null) {
                 // Various bug fixed (Nukkit bug)
-                BaseFullChunk chunk = blockLoc.getLevel().getChunk(loc.getFloorX() >> 4, loc.getFloorZ() >> 4);
                 cn.nukkit.nbt.tag.CompoundTag nbt = new cn.nukkit.nbt.tag.CompoundTag()
                         .putList(new cn.nukkit.nbt.tag.ListTag<>("Items"))
                         .putString("id", BlockEntity.SIGN)
@@ -447,10 +438,9 @@ class IslandBlock extends BlockMinecraftId {
                         chunk,
                         nbt);
 
-                blockLoc.getLevel().addBlockEntity(e);
+                level.addBlockEntity(e);
                 e.spawnToAll();
             } else if (potItem != null) {
-                BaseFullChunk chunk = blockLoc.getLevel().getChunk(loc.getFloorX() >> 4, loc.getFloorZ() >> 4);
                 cn.nukkit.nbt.tag.CompoundTag nbt = new cn.nukkit.nbt.tag.CompoundTag()
                         .putString("id", BlockEntity.FLOWER_POT)
                         .putInt("x", (int) loc.x)
@@ -464,9 +454,8 @@ class IslandBlock extends BlockMinecraftId {
                         chunk,
                         nbt);
 
-                blockLoc.getLevel().addBlockEntity(potBlock);
-            } else if (Block.get(typeId, data).getId() == Block.CHEST) {
-                BaseFullChunk chunk = blockLoc.getLevel().getChunk(loc.getFloorX() >> 4, loc.getFloorZ() >> 4);
+                level.addBlockEntity(potBlock);
+            } else if (typeId == Block.CHEST) {
                 cn.nukkit.nbt.tag.CompoundTag nbt = new cn.nukkit.nbt.tag.CompoundTag()
                         .putList(new cn.nukkit.nbt.tag.ListTag<>("Items"))
                         .putString("id", BlockEntity.CHEST)
@@ -487,11 +476,11 @@ class IslandBlock extends BlockMinecraftId {
                     e.getInventory().setContents(chestContents);
                 }
 
-                blockLoc.getLevel().addBlockEntity(e);
+                level.addBlockEntity(e);
                 e.spawnToAll();
             }
         } catch (Exception ignored) {
-            Utils.sendDebug("&7Warning: Block " + typeId + ":" + data + " not found. Ignoring...");
+            Utils.sendDebug("&7Warning: Tile entity for " + typeId + ":" + data + " could not be created. Ignoring...");
         }
     }
 
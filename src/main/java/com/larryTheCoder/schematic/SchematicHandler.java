@@ -34,11 +34,9 @@ import cn.nukkit.blockentity.BlockEntityChest;
 import cn.nukkit.item.Item;
 import cn.nukkit.level.Level;
 import cn.nukkit.level.Position;
-import cn.nukkit.level.biome.EnumBiome;
 import cn.nukkit.level.format.generic.BaseFullChunk;
 import cn.nukkit.level.generator.object.tree.ObjectTree;
 import cn.nukkit.math.NukkitRandom;
-import cn.nukkit.math.Vector3;
 import cn.nukkit.utils.Config;
 import cn.nukkit.utils.ConfigSection;
 import cn.nukkit.utils.TextFormat;
@@ -47,10 +45,8 @@ import com.google.common.collect.Maps;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.utils.Settings;
 import com.larryTheCoder.utils.Utils;
-import org.jnbt.*;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.*;
 
@@ -63,17 +59,10 @@ import java.util.*;
  */
 public final class SchematicHandler {
 
-    // Avoid OOM during startup OR reload
-    private Map<Integer, ArrayList<IslandBlock>> islandBlocks;
-    private Map<Vector3, Map<String, Tag>> tileEntitiesMap;
+    // Compiled island templates, avoid OOM during startup OR reload
+    private Map<Integer, SchematicTemplate> templates;
     private Map<Integer, Map<Configuration, Object>> schemaConfiguration;
     private Map<Integer, String> configKey;
-    // Schematic size
-    private short width;
-    private short length;
-    private short height;
-    // Bedrock location (can be null)
-    private Map<Integer, Vector3> bedrock;
     // Panel configuration
     private List<String> schematicList;
     // Configuration
@@ -98,9 +87,7 @@ public final class SchematicHandler {
             return;
         }
         // Start the schematic handler
-        islandBlocks = Maps.newHashMap();
-        bedrock = Maps.newHashMap();
-        tileEntitiesMap = Maps.newHashMap();
+        templates = Maps.newHashMap();
         schemaConfiguration = Maps.newHashMap();
         schematicList = Lists.newArrayList();
         configKey = Maps.newHashMap();
@@ -165,380 +152,67 @@ public final class SchematicHandler {
         while (iter.hasNext()) {
             id++;
             File file = iter.next();
-            short[] blocks;
-            byte[] data;
-
             try {
-                CompoundTag schematicTag;
-                try (FileInputStream stream = new FileInputStream(file); NBTInputStream nbtStream = new NBTInputStream(stream)) {
-                    schematicTag = (CompoundTag) nbtStream.readTag();
-                }
-                if (!schematicTag.getName().equals("Schematic")) {
-                    throw new IllegalArgumentException("Tag \"Schematic\" does not exist or is not first");
-                }
-                Map<String, Tag> schematic = schematicTag.getValue();
-                Vector3 origin;
-                try {
-                    int originX = getChildTag(schematic, "WEOriginX", IntTag.class).getValue();
-                    int originY = getChildTag(schematic, "WEOriginY", IntTag.class).getValue();
-                    int originZ = getChildTag(schematic, "WEOriginZ", IntTag.class).getValue();
-                    Vector3 min = new Vector3(originX, originY, originZ);
-                    origin = min.clone();
-                } catch (IllegalArgumentException shouldNotHappend) {
-                    throw new IOException("Missing piece of WEOriginXYZ");
-                }
-                if (!schematic.containsKey("Blocks")) {
-                    throw new IllegalArgumentException("Schematic file is missing a \"Blocks\" tag");
-                }
-                width = getChildTag(schematic, "Width", ShortTag.class).getValue();
-                length = getChildTag(schematic, "Length", ShortTag.class).getValue();
-                height = getChildTag(schematic, "Height", ShortTag.class).getValue();
-                byte[] blockId = getChildTag(schematic, "Blocks", ByteArrayTag.class).getValue();
-                data = getChildTag(schematic, "Data", ByteArrayTag.class).getValue();
-                byte[] addId = new byte[0];
-                blocks = new short[blockId.length]; // Have to later combine IDs
-                // We support 4096 block IDs using the same method as vanilla
-                // Minecraft, where
-                // the highest 4 bits are stored in a separate byte array.
-                if (schematic.containsKey("AddBlocks")) {
-                    addId = getChildTag(schematic, "AddBlocks", ByteArrayTag.class).getValue();
-                }
-
-                // Combine the AddBlocks data with the first 8-bit block ID
-                for (int index = 0; index < blockId.length; index++) {
-                    if ((index >> 1) >= addId.length) { // No corresponding
-                        // AddBlocks index
-                        blocks[index] = (short) (blockId[index] & 0xFF);
-                    } else if ((index & 1) == 0) {
-                        blocks[index] = (short) (((addId[index >> 1] & 0x0F) << 8) + (blockId[index] & 0xFF));
-                    } else {
-                        blocks[index] = (short) (((addId[index >> 1] & 0xF0) << 4) + (blockId[index] & 0xFF));
-                    }
-                }
-
-                List<Tag> entities = getChildTag(schematic, "Entities", ListTag.class).getValue();
-                for (Tag tag : entities) {
-                    if (!(tag instanceof CompoundTag)) {
-                        continue;
-                    }
-
-                    CompoundTag nbt = (CompoundTag) tag;
-                    EntityObject ent = new EntityObject();
-                    for (Map.Entry<String, Tag> entry : nbt.getValue().entrySet()) {
-
-                        switch (entry.getKey()) {
-                            case "Pos":
-                                if (entry.getValue() instanceof ListTag) {
-                                    List<Tag> pos;
-                                    pos = ((ListTag) entry.getValue()).getValue();
-                                    double x = (double) pos.get(0).getValue() - origin.getX();
-                                    double y = (double) pos.get(1).getValue() - origin.getY();
-                                    double z = (double) pos.get(2).getValue() - origin.getZ();
-                                    ent.setLocation(new Vector3(x, y, z));
-                                }
-                                break;
-                            case "Motion":
-                                if (entry.getValue() instanceof ListTag) {
-                                    List<Tag> pos;
-                                    pos = ((ListTag) entry.getValue()).getValue();
-                                    ent.setMotion(new Vector3((double) pos.get(0).getValue(), (double) pos.get(1).getValue(),
-                                            (double) pos.get(2).getValue()));
-                                }
-                                break;
-                            case "Rotation":
-                                if (entry.getValue() instanceof ListTag) {
-                                    List<Tag> pos;
-                                    pos = ((ListTag) entry.getValue()).getValue();
-                                    ent.setYaw((float) pos.get(0).getValue());
-                                    ent.setPitch((float) pos.get(1).getValue());
-                                }
-                                break;
-                            case "Color":
-                                if (entry.getValue() instanceof ByteTag) {
-                                    ent.setColor(((ByteTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "Sheared":
-                                if (entry.getValue() instanceof ByteTag) {
-                                    if (((ByteTag) entry.getValue()).getValue() != (byte) 0) {
-                                        ent.setSheared(true);
-                                    } else {
-                                        ent.setSheared(false);
-                                    }
-                                }
-                                break;
-                            case "RabbitType":
-                                if (entry.getValue() instanceof IntTag) {
-                                    ent.setRabbitType(((IntTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "Profession":
-                                if (entry.getValue() instanceof IntTag) {
-                                    ent.setProfession(((IntTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "CarryingChest":
-                                if (entry.getValue() instanceof ByteTag) {
-                                    ent.setCarryingChest(((ByteTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "OwnerUUID":
-                                ent.setOwned(true);
-                                break;
-                            case "CollarColor":
-                                if (entry.getValue() instanceof ByteTag) {
-                                    ent.setCollarColor(((ByteTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "Facing":
-                                if (entry.getValue() instanceof ByteTag) {
-                                    ent.setFacing(((ByteTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "Motive":
-                                if (entry.getValue() instanceof StringTag) {
-                                    ent.setMotive(((StringTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "ItemDropChance":
-                                if (entry.getValue() instanceof FloatTag) {
-                                    ent.setItemDropChance(((FloatTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "ItemRotation":
-                                if (entry.getValue() instanceof ByteTag) {
-                                    ent.setItemRotation(((ByteTag) entry.getValue()).getValue());
-                                }
-                                break;
-                            case "Item":
-                                if (entry.getValue() instanceof CompoundTag) {
-                                    CompoundTag itemTag = (CompoundTag) entry.getValue();
-                                    itemTag.getValue().forEach((key, value) -> {
-                                        switch (key) {
-                                            case "Count":
-                                                if (value instanceof ByteTag) {
-                                                    ent.setCount(((ByteTag) value).getValue());
-                                                }
-                                                break;
-                                            case "Damage":
-                                                if (value instanceof ShortTag) {
-                                                    ent.setDamage(((ShortTag) value).getValue());
-                                                }
-                                                break;
-                                            case "id":
-                                                if (value instanceof StringTag) {
-                                                    ent.setId(((StringTag) value).getValue());
-                                                }
-                                                break;
-                                            default:
-                                                break;
-                                        }
-                                    });
-                                }
-                                break;
-                            case "TileX":
-                                if (entry.getValue() instanceof IntTag) {
-                                    ent.setTileX((double) ((IntTag) entry.getValue()).getValue() - origin.getX());
-                                }
-                                break;
-                            case "TileY":
-                                if (entry.getValue() instanceof IntTag) {
-                                    ent.setTileY((double) ((IntTag) entry.getValue()).getValue() - origin.getY());
-                                }
-                                break;
-                            case "TileZ":
-                                if (entry.getValue() instanceof IntTag) {
-                                    ent.setTileZ((double) ((IntTag) entry.getValue()).getValue() - origin.getZ());
-                                }
-                                break;
-                            default:
-                                break;
-                        }
-                    }
-                }
-
-                List<Tag> tileEntities = getChildTag(schematic, "TileEntities", ListTag.class).getValue();
-                for (Tag tag : tileEntities) {
-                    if (!(tag instanceof CompoundTag)) {
-                        continue;
-                    }
-                    CompoundTag t = (CompoundTag) tag;
-
-                    int x = 0;
-                    int y = 0;
-                    int z = 0;
-
-                    Map<String, Tag> values = new HashMap<>();
-
-                    for (Map.Entry<String, Tag> entry : t.getValue().entrySet()) {
-                        switch (entry.getKey()) {
-                            case "x":
-                                if (entry.getValue() instanceof IntTag) {
-                                    x = ((IntTag) entry.getValue()).getValue();
-                                }
-                                break;
-                            case "y":
-                                if (entry.getValue() instanceof IntTag) {
-                                    y = ((IntTag) entry.getValue()).getValue();
-                                }
-                                break;
-                            case "z":
-                                if (entry.getValue() instanceof IntTag) {
-                                    z = ((IntTag) entry.getValue()).getValue();
-                                }
-                                break;
-                            default:
-                                break;
-                        }
-
-                        values.put(entry.getKey(), entry.getValue());
-                    }
-
-                    Vector3 vec = new Vector3(x, y, z);
-                    tileEntitiesMap.put(vec, values);
-                }
-            } catch (IOException e) {
+                SchematicTemplate template = SchematicTemplate.load(file);
+                template.prepareTiles(id);
+                templates.put(id, template);
+            } catch (IOException | IllegalArgumentException e) {
                 Utils.send(TextFormat.RED + "Error while attempt to register schematic: " + file.getName());
                 e.printStackTrace();
                 continue;
             }
-            Vector3 bedrockLocation = null;
-            for (int x = 0; x < width; ++x) {
-                for (int y = 0; y < height; ++y) {
-                    for (int z = 0; z < length; ++z) {
-                        int index = y * width * length + z * width + x;
-                        if (blocks[index] == 7) {
-                            if (bedrockLocation == null || bedrockLocation.getY() < y) {
-                                bedrockLocation = new Vector3(x, y, z);
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Put the attachable blocks into list
-            bedrock.put(id, bedrockLocation);
 
-            handleSchematic(blocks, data, id);
+            setDefaultValue(id);
+            prepareIslandValue(id);
             iter.remove();
         }
-        if (islandBlocks.size() == 0) {
+        if (templates.size() == 0) {
             useDefaultGeneration = true;
             Utils.send("&cNo schematic found in list. Using default island-generation");
             return;
         }
-        Utils.send("&eSuccessfully loaded &e" + islandBlocks.size() + " &eSchematic");
+        Utils.send("&eSuccessfully loaded &e" + templates.size() + " &eSchematic");
     }
 
     /**
-     * This method prepares to pastes a schematic.
+     * This method handling player island blocks chunk-by-chunk with id,
+     * the biome is changed afterwards by {@link com.larryTheCoder.task.UpdateBiomeTask}
      *
-     * @param blocks The Blocks (same as data)
-     * @param data   Data (damage or meta)
-     * @param id     The id of the island template
+     * @param p   The player, or null to paste the tile entities later
+     *            with {@link #pasteTiles(Player, Position, int)}
+     * @param pos The position to pasting the blocks
+     * @param id  The island id
      */
-    private void handleSchematic(short[] blocks, byte[] data, int id) {
-        ArrayList<IslandBlock> blockToAdded = new ArrayList<>();
-        Vector3 EndRock = new Vector3();
-        if (bedrock.get(id) != null) {
-            EndRock = this.bedrock.get(id);
-        }
-        Map<Vector3, Map<String, Tag>> TileEntities = tileEntitiesMap;
-        for (int x = 0; x < width; ++x) {
-            for (int y = 0; y < height; ++y) {
-                for (int z = 0; z < length; ++z) {
-                    int index = y * width * length + z * width + x;
-                    // Only bother if this block is above ground zero and
-                    // only bother with air if it is below sea level
-                    // TODO: need to check max world height too?
-                    int h = Settings.islandHeight + y - EndRock.getFloorY();
-                    if (h >= 0 && h < 255 && (blocks[index] != 0 || h < Settings.islandHeight)) {
-                        // Only bother if the schematic blocks are within the range that y can be
-                        IslandBlock block = new IslandBlock(x, y, z, id);
-                        block.setBlock(blocks[index], data[index]);
-                        // Tile Entities
-                        if (TileEntities.containsKey(new Vector3(x, y, z))) {
-                            switch (block.getTypeId()) {
-                                case Item.FLOWER_POT:
-                                    block.setFlowerPot(TileEntities.get(new Vector3(x, y, z)));
-                                    break;
-                                case Item.SIGN_POST:
-                                    block.setSign(TileEntities.get(new Vector3(x, y, z)));
-                                    break;
-                                case Item.CHEST:
-                                    block.setChest(TileEntities.get(new Vector3(x, y, z)));
-                                    break;
-                                case Item.WALL_SIGN:
-                                    block.setSign(TileEntities.get(new Vector3(x, y, z)));
-                                    break;
-                                default:
-                                    break;
-                            }
-                        }
-                        blockToAdded.add(block);
-                    }
-
-                }
-            }
-        }
-        // Clear all of the island blocks (API)
-        if (islandBlocks.get(id) != null) {
-            islandBlocks.get(id).clear();
-        }
-        islandBlocks.put(id, blockToAdded);
-        setDefaultValue(id);
-        prepareIslandValue(id);
-    }
-
-    /**
-     * This method handling player island blocks-by-blocks with id and
-     * Biome
-     *
-     * @param p     The player
-     * @param pos   The position to pasting the blocks
-     * @param biome The Biome
-     * @param id    The island id
-     */
-    public void pasteSchematic(Player p, Position pos, int id, EnumBiome biome) {
+    public void pasteSchematic(Player p, Position pos, int id) {
         // Usually this will be detected by this system
-        if (isUseDefaultGeneration() || islandBlocks.get(id) == null) {
+        if (isUseDefaultGeneration() || templates.get(id) == null) {
             createIsland(pos);
             return;
         }
 
-        List<IslandBlock> blocks = getIslandBlocks(id);
-        for (IslandBlock block : blocks) {
-            block.paste(p, pos, biome);
-        }
+        new SchematicPaster(pos).paste(p, templates.get(id));
     }
 
     /**
-     * Get the list of available islands
+     * Paste the tile entities of an island that were pasted
+     * without a player.
      *
-     * @param id The id of the block
-     * @return An array of the listed blocks
+     * @param p   The player who owns the island now
+     * @param pos The position the island was pasted at
+     * @param id  The island id
      */
-    private List<IslandBlock> getIslandBlocks(int id) {
-        return islandBlocks.get(id);
+    public void pasteTiles(Player p, Position pos, int id) {
+        if (isUseDefaultGeneration() || templates.get(id) == null) {
+            return;
+        }
+        new SchematicPaster(pos).pasteTiles(p, templates.get(id));
     }
 
     /**
-     * Get child tag of a NBT structure.
-     *
-     * @param items    The parent tag map
-     * @param key      The name of the tag to get
-     * @param expected The expected type of the tag
-     * @return child tag casted to the expected type
+     * @return The number of island templates, at least 1
      */
-    private <T extends Tag> T getChildTag(Map<String, Tag> items, String key, Class<T> expected) throws IllegalArgumentException {
-        if (!items.containsKey(key)) {
-            throw new IllegalArgumentException("Schematic file is missing a \"" + key + "\" tag");
-        }
-        Tag tag = items.get(key);
-        if (!expected.isInstance(tag)) {
-            throw new IllegalArgumentException(key + " tag is not of tag type " + expected.getName());
-        }
-        return expected.cast(tag);
+    public int getTemplateCount() {
+        return isUseDefaultGeneration() ? 1 : Math.max(1, schematicList.size());
     }
 
     /**
@@ -623,6 +297,19 @@ public final class SchematicHandler {
         this.setIslandValue(id, Configuration.PASTE_ENTITIES, usePasteEntity);
     }
 
+    /**
+     * Count the blocks that are pasted for the island template.
+     *
+     * @param id The schematic id
+     * @return The number of blocks indexed by block id, or null for the build-in island
+     */
+    public long[] getBlockCounts(int id) {
+        if (isUseDefaultGeneration() || templates.get(id) == null) {
+            return null;
+        }
+        return templates.get(id).countBlocks();
+    }
+
     /**
      * Return if the schematic using the default chest in config
      *
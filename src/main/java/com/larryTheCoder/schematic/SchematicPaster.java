@@ -0,0 +1,147 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.schematic;
+
+import cn.nukkit.Player;
+import cn.nukkit.block.Block;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.Position;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.math.Vector3;
+import com.larryTheCoder.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pastes a schematic one chunk at a time. Blocks are written straight into
+ * the chunk sections, so each chunk is loaded once, lit once and sent to the
+ * viewers once instead of being relit and resent for every single block.
+ * Tile entities are attached in a second pass after all of the blocks are in
+ * place.
+ *
+ * @author larryTheCoder
+ */
+class SchematicPaster {
+
+    private final Level level;
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    // Every chunk touched by this paste, null if it could not be loaded
+    private final Map<Long, BaseFullChunk> chunks = new LinkedHashMap<>();
+    private final List<Vector3> lights = new ArrayList<>();
+
+    SchematicPaster(Position origin) {
+        this.level = origin.getLevel();
+        this.originX = origin.getFloorX();
+        this.originY = origin.getFloorY();
+        this.originZ = origin.getFloorZ();
+    }
+
+    /**
+     * Paste the given template for the player.
+     *
+     * @param p        The player who owns the island, or null to leave
+     *                 out the tile entities until the island has an owner
+     * @param template The compiled schematic
+     */
+    void paste(Player p, SchematicTemplate template) {
+        template.forEachBlock((x, y, z, id, data) -> {
+            if (template.isPastable(y)) {
+                setBlock(originX + x, originY + y, originZ + z, id, data);
+            }
+        });
+
+        // Light and height are recomputed once for every chunk
+        for (BaseFullChunk chunk : chunks.values()) {
+            if (chunk != null) {
+                chunk.recalculateHeightMap();
+                chunk.populateSkyLight();
+            }
+        }
+        for (Vector3 light : lights) {
+            level.updateBlockLight(light.getFloorX(), light.getFloorY(), light.getFloorZ());
+        }
+        // Marks the chunk dirty and resends it to every viewer in one go
+        for (BaseFullChunk chunk : chunks.values()) {
+            if (chunk != null) {
+                level.setChunk(chunk.getX(), chunk.getZ(), chunk, false);
+            }
+        }
+
+        if (p != null) {
+            pasteTiles(p, template);
+        }
+    }
+
+    /**
+     * Attach the tile entities of the template, signs and chests
+     * are filled in for the player.
+     *
+     * @param p        The player who owns the island
+     * @param template The compiled schematic
+     */
+    void pasteTiles(Player p, SchematicTemplate template) {
+        for (IslandBlock block : template.getTiles()) {
+            block.pasteTile(p, level, block.getVector().add(originX, originY, originZ));
+        }
+    }
+
+    private void setBlock(int x, int y, int z, int id, int data) {
+        if (y < 0 || y > 255 || id >= Block.list.length || Block.list[id] == null) {
+            Utils.sendDebug("&7Warning: Block " + id + ":" + data + " not found. Ignoring...");
+            return;
+        }
+        BaseFullChunk chunk = getChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return;
+        }
+
+        chunk.setBlock(x & 0x0f, y, z & 0x0f, id, data);
+        if (Block.light[id] > 0) {
+            lights.add(new Vector3(x, y, z));
+        }
+    }
+
+    private BaseFullChunk getChunk(int chunkX, int chunkZ) {
+        long hash = Level.chunkHash(chunkX, chunkZ);
+        if (chunks.containsKey(hash)) {
+            return chunks.get(hash);
+        }
+
+        BaseFullChunk chunk = level.getChunk(chunkX, chunkZ, true);
+        if (chunk == null) {
+            Utils.sendDebug("&7Warning: Unable to load chunk " + chunkX + ":" + chunkZ + " for schematic. Ignoring...");
+        }
+        chunks.put(hash, chunk);
+        return chunk;
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.schematic;
+
+import cn.nukkit.block.Block;
+import cn.nukkit.item.Item;
+import com.larryTheCoder.utils.Settings;
+import com.larryTheCoder.utils.Utils;
+import org.jnbt.*;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A schematic compiled into a packed form. Only non-air blocks are kept,
+ * grouped into 16x16x16 sections where each block is a pair of shorts: its
+ * position inside the section and an index into the block palette. Tile
+ * entities are kept aside, keyed by their block index.
+ * <p>
+ * The compiled form is cached next to the source file and reused for as
+ * long as the checksum of the source matches.
+ *
+ * @author larryTheCoder
+ */
+class SchematicTemplate {
+
+    private static final int MAGIC = 0x41534253;
+    private static final int FORMAT = 1;
+    private static final String CACHE_SUFFIX = ".compiled";
+
+    private final int width;
+    private final int height;
+    private final int length;
+    // Highest bedrock block (can be null)
+    private final int[] bedrock;
+    // Packed block states, (id << 4) | data
+    private final int[] palette;
+    private final short[][] positions;
+    private final short[][] states;
+    private final Map<Integer, Map<String, Tag>> tileEntities;
+    // Blocks that carry a tile entity, built when the template is registered
+    private List<IslandBlock> tiles = Collections.emptyList();
+
+    private SchematicTemplate(int width, int height, int length, int[] bedrock, int[] palette,
+                              short[][] positions, short[][] states, Map<Integer, Map<String, Tag>> tileEntities) {
+        this.width = width;
+        this.height = height;
+        this.length = length;
+        this.bedrock = bedrock;
+        this.palette = palette;
+        this.positions = positions;
+        this.states = states;
+        this.tileEntities = tileEntities;
+    }
+
+    /**
+     * Load a schematic, using the compiled cache when it is still up to
+     * date with the source file or compiling and caching it otherwise.
+     *
+     * @param file The .schematic file
+     * @return The compiled template
+     * @throws IOException if the schematic cannot be read
+     */
+    static SchematicTemplate load(File file) throws IOException {
+        byte[] source = Files.readAllBytes(file.toPath());
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        long checksum = crc.getValue();
+
+        File cache = new File(file.getParentFile(), file.getName() + CACHE_SUFFIX);
+        if (cache.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)))) {
+                SchematicTemplate template = read(in, checksum);
+                if (template != null) {
+                    return template;
+                }
+            } catch (IOException | RuntimeException ex) {
+                Utils.sendDebug("&7Unable to read " + cache.getName() + ", recompiling it.");
+            }
+        }
+
+        SchematicTemplate template = compile(source);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cache)))) {
+            template.write(out, checksum);
+        } catch (IOException ex) {
+            Utils.send("&cUnable to write the schematic cache " + cache.getName());
+            if (cache.exists()) {
+                cache.delete();
+            }
+        }
+        return template;
+    }
+
+    private static SchematicTemplate compile(byte[] source) throws IOException {
+        CompoundTag schematicTag;
+        try (NBTInputStream nbtStream = new NBTInputStream(new ByteArrayInputStream(source))) {
+            schematicTag = (CompoundTag) nbtStream.readTag();
+        }
+        if (!schematicTag.getName().equals("Schematic")) {
+            throw new IllegalArgumentException("Tag \"Schematic\" does not exist or is not first");
+        }
+        Map<String, Tag> schematic = schematicTag.getValue();
+        if (!schematic.containsKey("Blocks")) {
+            throw new IllegalArgumentException("Schematic file is missing a \"Blocks\" tag");
+        }
+        int width = getChildTag(schematic, "Width", ShortTag.class).getValue();
+        int length = getChildTag(schematic, "Length", ShortTag.class).getValue();
+        int height = getChildTag(schematic, "Height", ShortTag.class).getValue();
+        byte[] blockId = getChildTag(schematic, "Blocks", ByteArrayTag.class).getValue();
+        byte[] data = getChildTag(schematic, "Data", ByteArrayTag.class).getValue();
+        byte[] addId = new byte[0];
+        // We support 4096 block IDs using the same method as vanilla
+        // Minecraft, where the highest 4 bits are stored in a separate
+        // byte array.
+        if (schematic.containsKey("AddBlocks")) {
+            addId = getChildTag(schematic, "AddBlocks", ByteArrayTag.class).getValue();
+        }
+
+        int sectionsX = (width + 15) >> 4;
+        int sectionsZ = (length + 15) >> 4;
+        int sectionsY = (height + 15) >> 4;
+        int[] counts = new int[sectionsX * sectionsY * sectionsZ];
+        int[] bedrock = null;
+        for (int x = 0; x < width; ++x) {
+            for (int y = 0; y < height; ++y) {
+                for (int z = 0; z < length; ++z) {
+                    int id = getBlockId(blockId, addId, y * width * length + z * width + x);
+                    if (id == 0) {
+                        continue;
+                    }
+                    counts[sectionKey(x, y, z, sectionsX, sectionsZ)]++;
+                    if (id == Block.BEDROCK && (bedrock == null || bedrock[1] < y)) {
+                        bedrock = new int[]{x, y, z};
+                    }
+                }
+            }
+        }
+
+        short[][] positions = new short[counts.length][];
+        short[][] states = new short[counts.length][];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                positions[i] = new short[counts[i]];
+                states[i] = new short[counts[i]];
+                counts[i] = 0;
+            }
+        }
+
+        Map<Integer, Integer> paletteIndex = new HashMap<>();
+        for (int y = 0; y < height; ++y) {
+            for (int z = 0; z < length; ++z) {
+                for (int x = 0; x < width; ++x) {
+                    int index = y * width * length + z * width + x;
+                    int id = getBlockId(blockId, addId, index);
+                    if (id == 0) {
+                        continue;
+                    }
+                    int state = id << 4 | (data[index] & 0x0f);
+                    Integer paletteId = paletteIndex.computeIfAbsent(state, k -> paletteIndex.size());
+
+                    int key = sectionKey(x, y, z, sectionsX, sectionsZ);
+                    int slot = counts[key]++;
+                    positions[key][slot] = (short) ((y & 0x0f) << 8 | (z & 0x0f) << 4 | (x & 0x0f));
+                    states[key][slot] = paletteId.shortValue();
+                }
+            }
+        }
+        int[] palette = new int[paletteIndex.size()];
+        paletteIndex.forEach((state, paletteId) -> palette[paletteId] = state);
+
+        Map<Integer, Map<String, Tag>> tileEntities = new HashMap<>();
+        List<Tag> tileTags = getChildTag(schematic, "TileEntities", ListTag.class).getValue();
+        for (Tag tag : tileTags) {
+            if (tag instanceof CompoundTag) {
+                putTileEntity(tileEntities, ((CompoundTag) tag).getValue(), width, length);
+            }
+        }
+
+        return new SchematicTemplate(width, height, length, bedrock, palette, positions, states, tileEntities);
+    }
+
+    private static SchematicTemplate read(DataInputStream in, long checksum) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT || in.readLong() != checksum) {
+            return null;
+        }
+        int width = in.readShort();
+        int height = in.readShort();
+        int length = in.readShort();
+        int[] bedrock = null;
+        if (in.readBoolean()) {
+            bedrock = new int[]{in.readShort(), in.readShort(), in.readShort()};
+        }
+
+        int[] palette = new int[in.readInt()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = in.readInt();
+        }
+
+        int sectionCount = ((width + 15) >> 4) * ((height + 15) >> 4) * ((length + 15) >> 4);
+        short[][] positions = new short[sectionCount][];
+        short[][] states = new short[sectionCount][];
+        int used = in.readInt();
+        for (int i = 0; i < used; i++) {
+            int key = in.readInt();
+            int count = in.readInt();
+            positions[key] = new short[count];
+            states[key] = new short[count];
+            for (int j = 0; j < count; j++) {
+                positions[key][j] = in.readShort();
+                states[key][j] = in.readShort();
+            }
+        }
+
+        Map<Integer, Map<String, Tag>> tileEntities = new HashMap<>();
+        byte[] tileData = new byte[in.readInt()];
+        in.readFully(tileData);
+        try (NBTInputStream nbtStream = new NBTInputStream(new ByteArrayInputStream(tileData))) {
+            for (Tag tag : ((ListTag) nbtStream.readTag()).getValue()) {
+                putTileEntity(tileEntities, ((CompoundTag) tag).getValue(), width, length);
+            }
+        }
+
+        return new SchematicTemplate(width, height, length, bedrock, palette, positions, states, tileEntities);
+    }
+
+    private void write(DataOutputStream out, long checksum) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeLong(checksum);
+        out.writeShort(width);
+        out.writeShort(height);
+        out.writeShort(length);
+        out.writeBoolean(bedrock != null);
+        if (bedrock != null) {
+            out.writeShort(bedrock[0]);
+            out.writeShort(bedrock[1]);
+            out.writeShort(bedrock[2]);
+        }
+
+        out.writeInt(palette.length);
+        for (int state : palette) {
+            out.writeInt(state);
+        }
+
+        int used = 0;
+        for (short[] section : positions) {
+            if (section != null) {
+                used++;
+            }
+        }
+        out.writeInt(used);
+        for (int key = 0; key < positions.length; key++) {
+            if (positions[key] == null) {
+                continue;
+            }
+            out.writeInt(key);
+            out.writeInt(positions[key].length);
+            for (int j = 0; j < positions[key].length; j++) {
+                out.writeShort(positions[key][j]);
+                out.writeShort(states[key][j]);
+            }
+        }
+
+        List<Tag> tileTags = new ArrayList<>();
+        tileEntities.values().forEach(values -> tileTags.add(new CompoundTag("", values)));
+        ByteArrayOutputStream tileData = new ByteArrayOutputStream();
+        try (NBTOutputStream nbtStream = new NBTOutputStream(tileData)) {
+            nbtStream.writeTag(new ListTag("TileEntities", CompoundTag.class, tileTags));
+        }
+        out.writeInt(tileData.size());
+        out.write(tileData.toByteArray());
+    }
+
+    private static int getBlockId(byte[] blockId, byte[] addId, int index) {
+        if ((index >> 1) >= addId.length) { // No corresponding AddBlocks index
+            return blockId[index] & 0xFF;
+        } else if ((index & 1) == 0) {
+            return ((addId[index >> 1] & 0x0F) << 8) + (blockId[index] & 0xFF);
+        } else {
+            return ((addId[index >> 1] & 0xF0) << 4) + (blockId[index] & 0xFF);
+        }
+    }
+
+    private static int sectionKey(int x, int y, int z, int sectionsX, int sectionsZ) {
+        return ((y >> 4) * sectionsZ + (z >> 4)) * sectionsX + (x >> 4);
+    }
+
+    private static void putTileEntity(Map<Integer, Map<String, Tag>> tileEntities, Map<String, Tag> values, int width, int length) {
+        int x = values.get("x") instanceof IntTag ? ((IntTag) values.get("x")).getValue() : 0;
+        int y = values.get("y") instanceof IntTag ? ((IntTag) values.get("y")).getValue() : 0;
+        int z = values.get("z") instanceof IntTag ? ((IntTag) values.get("z")).getValue() : 0;
+
+        tileEntities.put(y * width * length + z * width + x, new HashMap<>(values));
+    }
+
+    private static <T extends Tag> T getChildTag(Map<String, Tag> items, String key, Class<T> expected) throws IllegalArgumentException {
+        if (!items.containsKey(key)) {
+            throw new IllegalArgumentException("Schematic file is missing a \"" + key + "\" tag");
+        }
+        Tag tag = items.get(key);
+        if (!expected.isInstance(tag)) {
+            throw new IllegalArgumentException(key + " tag is not of tag type " + expected.getName());
+        }
+        return expected.cast(tag);
+    }
+
+    /**
+     * Visit every non-air block of this template, section by section.
+     *
+     * @param visitor The block visitor
+     */
+    void forEachBlock(BlockVisitor visitor) {
+        int sectionsX = (width + 15) >> 4;
+        int sectionsZ = (length + 15) >> 4;
+        for (int key = 0; key < positions.length; key++) {
+            short[] section = positions[key];
+            if (section == null) {
+                continue;
+            }
+            int baseX = (key % sectionsX) << 4;
+            int baseZ = ((key / sectionsX) % sectionsZ) << 4;
+            int baseY = (key / (sectionsX * sectionsZ)) << 4;
+            for (int i = 0; i < section.length; i++) {
+                int pos = section[i];
+                int state = palette[states[key][i]];
+                visitor.visit(baseX + (pos & 0x0f), baseY + (pos >> 8 & 0x0f), baseZ + (pos >> 4 & 0x0f), state >> 4, state & 0x0f);
+            }
+        }
+    }
+
+    /**
+     * Only bother if this block is above ground zero and within the range
+     * that y can be once the bedrock is lined up with the island height.
+     *
+     * @param y The y of the block in the template
+     * @return true if the block should be pasted
+     */
+    boolean isPastable(int y) {
+        int h = Settings.islandHeight + y - (bedrock == null ? 0 : bedrock[1]);
+        return h >= 0 && h < 255;
+    }
+
+    /**
+     * Count the blocks that are pasted from this template.
+     *
+     * @return The number of blocks, indexed by block id
+     */
+    long[] countBlocks() {
+        long[] counts = new long[256];
+        forEachBlock((x, y, z, id, data) -> {
+            if (id < counts.length && isPastable(y)) {
+                counts[id]++;
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Build the tile entity blocks (signs, flower pots and chests) of this
+     * template for the given island template id.
+     *
+     * @param id The island template id
+     */
+    void prepareTiles(int id) {
+        List<IslandBlock> blocks = new ArrayList<>();
+        forEachBlock((x, y, z, blockId, data) -> {
+            if (!isPastable(y)) {
+                return;
+            }
+            Map<String, Tag> tileData = tileEntities.get(y * width * length + z * width + x);
+            IslandBlock block = new IslandBlock(x, y, z, id);
+            block.setBlock(blockId, (byte) data);
+            switch (blockId) {
+                case Item.FLOWER_POT:
+                    if (tileData != null) {
+                        block.setFlowerPot(tileData);
+                        blocks.add(block);
+                    }
+                    break;
+                case Item.SIGN_POST:
+                case Item.WALL_SIGN:
+                    if (tileData != null) {
+                        block.setSign(tileData);
+                        blocks.add(block);
+                    }
+                    break;
+                case Item.CHEST:
+                    if (tileData != null) {
+                        block.setChest(tileData);
+                    }
+                    blocks.add(block);
+                    break;
+                default:
+                    break;
+            }
+        });
+        tiles = blocks;
+    }
+
+    List<IslandBlock> getTiles() {
+        return tiles;
+    }
+
+    interface BlockVisitor {
+
+        void visit(int x, int y, int z, int id, int data);
+    }
+}
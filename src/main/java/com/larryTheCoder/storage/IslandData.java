@@ -46,7 +46,7 @@ public class IslandData implements Cloneable {
     public int homeX = 0;
     public int homeY = 0;
     public int homeZ = 0;
-    private int islandId = 0;
+    private long islandId = 0;
     private int id = 0;
     private String levelName;
     private String owner;
@@ -77,7 +77,7 @@ public class IslandData implements Cloneable {
     }
 
     @SuppressWarnings({"AssignmentToMethodParameter", "OverridableMethodCallInConstructor"})
-    public IslandData(String levelName, int X, int Y, int Z, int homeX, int homeY, int homeZ, int PSize, String name, String owner, String biome, int id, int islandId, boolean locked, String defaultvalue, boolean isSpawn) {
+    public IslandData(String levelName, int X, int Y, int Z, int homeX, int homeY, int homeZ, int PSize, String name, String owner, String biome, int id, long islandId, boolean locked, String defaultvalue, boolean isSpawn) {
         if (biome.isEmpty()) {
             biome = "PLAINS";
         }
@@ -141,12 +141,12 @@ public class IslandData implements Cloneable {
     }
 
     /**
-     * The ID count of the island for player
-     * this counts how much island player had
+     * The grid key of the island, unique in every
+     * world. See {@link com.larryTheCoder.island.IslandKey}
      *
-     * @return int
+     * @return long
      */
-    public int getIslandId() {
+    public long getIslandId() {
         return islandId;
     }
 
@@ -155,9 +155,9 @@ public class IslandData implements Cloneable {
      * Please do not use this in any production
      * server, this method is mean to be final only
      *
-     * @param islandId int
+     * @param islandId long
      */
-    public void setIslandId(int islandId) {
+    public void setIslandId(long islandId) {
         this.islandId = islandId;
     }
 
@@ -237,7 +237,10 @@ public class IslandData implements Cloneable {
      * @return ArrayList or empty array
      */
     public ArrayList<String> getMembers() {
-        PlayerData pd = ASkyBlock.get().getDatabase().getPlayerData(this.owner);
+        if (this.owner == null) {
+            return Lists.newArrayList();
+        }
+        PlayerData pd = ASkyBlock.get().getPlayerInfo(this.owner);
         if (pd == null) {
             return Lists.newArrayList();
         }
@@ -356,7 +359,7 @@ public class IslandData implements Cloneable {
     @Override
     public int hashCode() {
         int hash = 7;
-        hash = 61 * hash + this.islandId;
+        hash = 61 * hash + Long.hashCode(this.islandId);
         hash = 61 * hash + this.id;
         hash = 61 * hash + Objects.hashCode(this.levelName);
         hash = 61 * hash + Objects.hashCode(this.owner);
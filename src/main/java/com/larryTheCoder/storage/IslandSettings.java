@@ -28,28 +28,29 @@ package com.larryTheCoder.storage;
 
 import com.larryTheCoder.utils.Settings;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Island Settings, generic settings to support
  * coop islands.
  * <p>
- * This class fix the truncated data on database,
- * which I cannot fix.
+ * The flags are kept in a single bit mask, one bit for each
+ * {@link SettingsFlag}. The database value is stored as
+ * {@code #<flags>/<known>} in hex, the old {@code "id:1, id:0"}
+ * format is still read.
  * @author tastybento
  */
 public class IslandSettings {
 
-    private final HashMap<SettingsFlag, Boolean> igs = new HashMap<>();
+    private long flags;
     private IslandData pd;
 
     IslandSettings(IslandData pd, String defVal) {
         this.pd = pd;
 
         // Sometimes this shit could be empty
-        if (defVal.isEmpty()) {
+        if (defVal == null || defVal.isEmpty()) {
             this.setIgsDefaults();
         } else {
             this.serializeIds(defVal);
@@ -61,6 +62,22 @@ public class IslandSettings {
         this.setIgsDefaults();
     }
 
+    /**
+     * Converts the settings map into a bit mask
+     *
+     * @param values The settings, null values are false
+     * @return The bit mask of the flags that are true
+     */
+    public static long toMask(Map<SettingsFlag, Boolean> values) {
+        long mask = 0;
+        for (Map.Entry<SettingsFlag, Boolean> entry : values.entrySet()) {
+            if (entry.getKey() != null && Boolean.TRUE.equals(entry.getValue())) {
+                mask |= entry.getKey().getMask();
+            }
+        }
+        return mask;
+    }
+
     /**
      * Get the Island Guard flag status
      *
@@ -68,19 +85,31 @@ public class IslandSettings {
      * @return true or false, or false if flag is not in the list
      */
     public boolean getIgsFlag(SettingsFlag flag) {
-        //Utils.sendDebug"DEBUG: asking for " + flag + " = " + igs.get(flag));
-        if (this.igs.containsKey(flag)) {
-            return igs.get(flag);
-        }
-        return false;
+        return (flags & flag.getMask()) != 0;
     }
 
     /**
-     * Get all the island settings values
+     * Get the mask of the actions that visitors are
+     * allowed to do on this island. Test it with
+     * {@link SettingsFlag#getMask()}.
+     *
+     * @return The bit mask of the allowed flags
+     */
+    public long getVisitorMask() {
+        return flags;
+    }
+
+    /**
+     * Get all the island settings values, this is a
+     * copy and changing it doesn't affect the island.
      *
      * @return java.util.HashMap
      */
     public HashMap<SettingsFlag, Boolean> getIgsValues() {
+        HashMap<SettingsFlag, Boolean> igs = new HashMap<>();
+        for (SettingsFlag flag : SettingsFlag.values()) {
+            igs.put(flag, getIgsFlag(flag));
+        }
         return igs;
     }
 
@@ -91,7 +120,11 @@ public class IslandSettings {
      * @param value The value to be set on that flag
      */
     public void setIgsFlag(SettingsFlag flag, boolean value) {
-        igs.put(flag, value);
+        if (value) {
+            flags |= flag.getMask();
+        } else {
+            flags &= ~flag.getMask();
+        }
     }
 
     /**
@@ -99,19 +132,7 @@ public class IslandSettings {
      * this island
      */
     private void setIgsDefaults() {
-        for (SettingsFlag flag : SettingsFlag.values()) {
-            if (!Settings.defaultIslandSettings.containsKey(flag)) {
-                // Default default
-                this.igs.put(flag, false);
-            } else {
-                if (Settings.defaultIslandSettings.get(flag) == null) {
-                    //plugin.getLogger().info("DEBUG: null flag " + flag);
-                    this.igs.put(flag, false);
-                } else {
-                    this.igs.put(flag, Settings.defaultIslandSettings.get(flag));
-                }
-            }
-        }
+        this.flags = Settings.defaultIslandFlags;
     }
 
     /**
@@ -119,34 +140,39 @@ public class IslandSettings {
      * this island
      */
     private void setSpawnDefaults() {
-        for (SettingsFlag flag : SettingsFlag.values()) {
-            if (!Settings.defaultSpawnSettings.containsKey(flag)) {
-                // Default default
-                this.igs.put(flag, false);
-            } else {
-                if (Settings.defaultSpawnSettings.get(flag) == null) {
-                    this.igs.put(flag, false);
-                } else {
-                    this.igs.put(flag, Settings.defaultSpawnSettings.get(flag));
-                }
-            }
-        }
+        this.flags = Settings.defaultSpawnFlags;
     }
 
     private void serializeIds(String defaultValue) {
-        if (pd.isSpawn()) {
+        if (pd != null && pd.isSpawn()) {
             setSpawnDefaults();
         } else {
             setIgsDefaults();
         }
         try {
-            String[] at = defaultValue.split(", ");
-            for (String string : at) {
-                String[] at2 = string.split(":");
-                ArrayList<String> list = new ArrayList<>(Arrays.asList(at2));
+            if (defaultValue.charAt(0) == '#') {
+                // Compact format, flags that weren't known when it
+                // were saved keeps their defaults
+                int split = defaultValue.indexOf('/');
+                long values = Long.parseUnsignedLong(defaultValue.substring(1, split), 16);
+                long known = Long.parseUnsignedLong(defaultValue.substring(split + 1), 16);
+                flags = (flags & ~known) | (values & known);
+                return;
+            }
 
-                boolean value = list.get(1).equalsIgnoreCase("1");
-                igs.put(SettingsFlag.getFlag(list.get(0)), value);
+            // Legacy format, "id:1, id:0"
+            int start = 0;
+            while (start < defaultValue.length()) {
+                int end = defaultValue.indexOf(", ", start);
+                if (end == -1) {
+                    end = defaultValue.length();
+                }
+                int colon = defaultValue.indexOf(':', start);
+                SettingsFlag flag = SettingsFlag.getFlag(Integer.parseInt(defaultValue.substring(start, colon)));
+                if (flag != null) {
+                    setIgsFlag(flag, defaultValue.charAt(colon + 1) == '1');
+                }
+                start = end + 2;
             }
         } catch (Exception ignored) {
             //Utils.sendDebug"Protection settings is outdated.");
@@ -157,20 +183,6 @@ public class IslandSettings {
      * @return Serialized set of settings
      */
     public String getSettings() {
-        StringBuilder buf = new StringBuilder();
-        // Personal island protection settings - serialize enum into 1's and 0's representing the boolean values
-        try {
-            HashMap<SettingsFlag, Boolean> set = getIgsValues();
-            // Highly efficient data store system
-            set.forEach((key, value) -> {
-                if (buf.length() > 0) {
-                    buf.append(", ");
-                }
-                buf.append(key.getId()).append(":").append(value ? "1" : "0");
-            });
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return buf.toString();
+        return "#" + Long.toHexString(flags) + "/" + Long.toHexString(SettingsFlag.ALL_FLAGS);
     }
 }
@@ -218,8 +218,30 @@ public enum SettingsFlag {
      */
     VISITOR_ITEM_PICKUP("Visitor pickup item", 40);
 
+    /**
+     * Mask with the bit of every known flag set
+     */
+    public static final long ALL_FLAGS;
+    // Flags by their id, the ids are stored in database
+    private static final SettingsFlag[] BY_ID;
+
+    static {
+        int maxId = 0;
+        long all = 0;
+        for (SettingsFlag flag : values()) {
+            maxId = Math.max(maxId, flag.id);
+            all |= flag.mask;
+        }
+        BY_ID = new SettingsFlag[maxId + 1];
+        for (SettingsFlag flag : values()) {
+            BY_ID[flag.id] = flag;
+        }
+        ALL_FLAGS = all;
+    }
+
     private int id;
     private String name;
+    private final long mask;
 
     /**
      * Create a value for the enum
@@ -230,15 +252,15 @@ public enum SettingsFlag {
     SettingsFlag(String name, int id) {
         this.name = name;
         this.id = id;
+        // The bit follows the id, not the order of this enum
+        this.mask = 1L << (id - 1);
     }
 
     public static SettingsFlag getFlag(int name) {
-        for (SettingsFlag flag : SettingsFlag.values()) {
-            if (flag.getId() == name) {
-                return flag;
-            }
+        if (name < 0 || name >= BY_ID.length) {
+            return null;
         }
-        return null;
+        return BY_ID[name];
     }
 
     public static SettingsFlag getFlag(String name) {
@@ -252,4 +274,13 @@ public enum SettingsFlag {
     public String getName() {
         return name;
     }
+
+    /**
+     * Get the bit of this flag in the island settings mask
+     *
+     * @return long with a single bit set
+     */
+    public long getMask() {
+        return mask;
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.storage;
+
+import cn.nukkit.Server;
+import cn.nukkit.event.EventHandler;
+import cn.nukkit.event.EventPriority;
+import cn.nukkit.event.Listener;
+import cn.nukkit.event.level.LevelLoadEvent;
+import cn.nukkit.event.level.LevelUnloadEvent;
+import cn.nukkit.level.Level;
+
+import java.util.*;
+
+/**
+ * The SkyBlock worlds, indexed by the loaded level and by the
+ * world name. Lookups are one hash lookup and allocate nothing,
+ * so they can be used in every event. The indexes are replaced
+ * as a whole when a world is added, loaded or unloaded, which
+ * also makes them safe to read from any thread.
+ *
+ * @author larryTheCoder
+ */
+public class WorldRegistry implements Listener {
+
+    private Collection<WorldSettings> settings = Collections.emptyList();
+    private volatile Map<Level, WorldSettings> byLevel = new IdentityHashMap<>();
+    // Both the world name and the lower case name are keys
+    private volatile Map<String, WorldSettings> byName = new HashMap<>();
+    private volatile List<String> names = Collections.emptyList();
+
+    /**
+     * Rebuild the indexes from the settings of every SkyBlock world.
+     *
+     * @param worlds The settings of the worlds
+     */
+    public void rebuild(Collection<WorldSettings> worlds) {
+        rebuild(worlds, null);
+    }
+
+    private synchronized void rebuild(Collection<WorldSettings> worlds, Level unloading) {
+        settings = new ArrayList<>(worlds);
+        Map<Level, WorldSettings> levels = new IdentityHashMap<>();
+        Map<String, WorldSettings> keys = new HashMap<>();
+        List<String> list = new ArrayList<>();
+        for (WorldSettings world : settings) {
+            String name = world.getLevel().getName();
+            Level level = Server.getInstance().getLevelByName(name);
+            if (level != null && level != unloading) {
+                levels.put(level, world);
+            }
+            keys.put(name, world);
+            keys.putIfAbsent(name.toLowerCase(), world);
+            list.add(name);
+        }
+        byLevel = levels;
+        byName = keys;
+        names = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * @param level The level
+     * @return The settings of the world, or null if it is not a SkyBlock world
+     */
+    public WorldSettings get(Level level) {
+        return level == null ? null : byLevel.get(level);
+    }
+
+    /**
+     * @param levelName The world name, case insensitive
+     * @return The settings of the world, or null if it is not a SkyBlock world
+     */
+    public WorldSettings get(String levelName) {
+        if (levelName == null) {
+            return null;
+        }
+        Map<String, WorldSettings> keys = byName;
+        WorldSettings world = keys.get(levelName);
+        return world != null ? world : keys.get(levelName.toLowerCase());
+    }
+
+    /**
+     * @param level The level
+     * @return true if the level is a loaded SkyBlock world
+     */
+    public boolean contains(Level level) {
+        return get(level) != null;
+    }
+
+    /**
+     * @return The names of every SkyBlock world, the list can't be modified
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLevelLoad(LevelLoadEvent e) {
+        rebuild(settings, null);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLevelUnload(LevelUnloadEvent e) {
+        // The level is still loaded while the event is called
+        rebuild(settings, e.getLevel());
+    }
+}
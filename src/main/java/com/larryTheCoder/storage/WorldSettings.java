@@ -40,9 +40,11 @@ public class WorldSettings {
     private final boolean stopTime;
     private final int seaLevel;
     private final int plotRange;
+    private final int keyIndex;
 
-    public WorldSettings(Level level) {
+    public WorldSettings(Level level, int keyIndex) {
         this.level = level;
+        this.keyIndex = keyIndex;
         // By using default parameters
         this.permission = "is.create";
         this.plotMax = 5;
@@ -52,7 +54,7 @@ public class WorldSettings {
         this.plotRange = 100;
     }
 
-    public WorldSettings(String permission, Level level, int plotMax, int plotSize, int plotRange, boolean stopTime, int seaLevel) {
+    public WorldSettings(String permission, Level level, int plotMax, int plotSize, int plotRange, boolean stopTime, int seaLevel, int keyIndex) {
         this.permission = permission;
         this.level = level;
         this.plotMax = plotMax;
@@ -60,6 +62,7 @@ public class WorldSettings {
         this.stopTime = stopTime;
         this.plotRange = plotRange;
         this.seaLevel = seaLevel;
+        this.keyIndex = keyIndex;
     }
 
     public int getSeaLevel() {
@@ -89,4 +92,11 @@ public class WorldSettings {
     public int getMaximumIsland() {
         return plotMax;
     }
+
+    /**
+     * @return The index of this world in the island keys
+     */
+    public int getKeyIndex() {
+        return keyIndex;
+    }
 }
@@ -27,28 +27,20 @@
 package com.larryTheCoder.task;
 
 import cn.nukkit.Server;
-import cn.nukkit.block.Block;
-import cn.nukkit.blockentity.BlockEntity;
 import cn.nukkit.command.CommandSender;
 import cn.nukkit.level.Level;
-import cn.nukkit.level.Position;
-import cn.nukkit.level.format.generic.BaseFullChunk;
-import cn.nukkit.math.Vector3;
-import cn.nukkit.scheduler.NukkitRunnable;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.storage.IslandData;
 import com.larryTheCoder.storage.WorldSettings;
-import com.larryTheCoder.utils.Pair;
-import com.larryTheCoder.utils.Settings;
 import com.larryTheCoder.utils.Utils;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 /**
  * The best solution for reset provider in island removal,
- * Using chunk instead of using set-block
+ * Using chunk instead of using set-block. The chunks are
+ * handed over to the {@link DeletionQueue}.
  *
  * @author larryTheCoder
  * @author tastybento
@@ -73,12 +65,12 @@ public class DeleteIslandTask implements Runnable {
             Server.getInstance().dispatchCommand(player, "is leave"); // Easy
         }
         Level level = plugin.getServer().getLevelByName(pd.getLevelName());
-        WorldSettings settings = plugin.getSettings(level.getName());
         if (level == null) {
             Utils.send("ERROR: Cannot find the level " + pd.getLevelName());
             Utils.send("The sender who execute this: " + pd.getOwner());
             return;
         }
+        WorldSettings settings = plugin.getSettings(level.getName());
 
         // Determine if chunks need to be cleaned up or not
         boolean cleanUpBlocks = false;
@@ -92,132 +84,39 @@ public class DeleteIslandTask implements Runnable {
         int maxX = pd.getMinProtectedX() + pd.getProtectionSize();
         int maxZ = pd.getMinProtectedZ() + pd.getProtectionSize();
 
-        int islandSpacing = plugin.getSettings(level.getName()).getIslandDistance() - pd.getProtectionSize();
+        int islandSpacing = settings.getIslandDistance() - pd.getProtectionSize();
         int minxX = (pd.getCenter().getFloorX() - range - islandSpacing);
         int minzZ = (pd.getCenter().getFloorZ() - range - islandSpacing);
         int maxxX = (pd.getCenter().getFloorX() + range + islandSpacing);
         int maxzZ = (pd.getCenter().getFloorZ() + range + islandSpacing);
 
-        // get the chunks for these locations
-        final BaseFullChunk minChunk = level.getChunk(minX >> 4, minZ >> 4, true);
-        final BaseFullChunk maxChunk = level.getChunk(maxX >> 4, maxZ >> 4, true);
-
-        if (!minChunk.isGenerated() || !maxChunk.isGenerated()) {
-            level.regenerateChunk(minChunk.getX(), minChunk.getZ());
-            level.regenerateChunk(maxChunk.getX(), maxChunk.getZ());
-        }
-
-        List<Pair> chunksToClear = new ArrayList<>();
-        List<BaseFullChunk> chunksToRemoved = new ArrayList<>();
-
-        // Find out what chunks are within the island protection range
-        for (int x = minChunk.getX(); x <= maxChunk.getX(); x++) {
-            for (int z = minChunk.getZ(); z <= maxChunk.getZ(); z++) {
-                boolean regen = true;
-
-                if ((level.getChunk(x, z, true).getX() << 4) < minxX) {
-                    //Utils.sendDebug"DEBUG: min x coord is less than absolute min! " + minxX);
-                    regen = false;
-                }
-                if ((level.getChunk(x, z, true).getZ() << 4) < minzZ) {
-                    //Utils.sendDebug"DEBUG: min z coord is less than absolute min! " + minzZ);
-                    regen = false;
-                }
-                if ((level.getChunk(x, z, true).getX() << 4) > maxxX) {
-                    //Utils.sendDebug"DEBUG: max x coord is more than absolute max! " + maxxX);
-                    regen = false;
-                }
-                if ((level.getChunk(x, z, true).getZ() << 4) > maxzZ) {
-                    //Utils.sendDebug"DEBUG: max z coord in chunk is more than absolute max! " + maxzZ);
-                    regen = false;
-                }
-
-                Utils.loadChunkAt(new Position(x, 0, z, level));
+        // Find out what chunks are within the island protection range, the
+        // chunks themselves are only loaded once the job gets to them
+        List<String> chunks = new ArrayList<>();
+        for (int x = minX >> 4; x <= maxX >> 4; x++) {
+            for (int z = minZ >> 4; z <= maxZ >> 4; z++) {
+                boolean regen = (x << 4) >= minxX && (z << 4) >= minzZ && (x << 4) <= maxxX && (z << 4) <= maxzZ;
 
                 if (regen) {
-                    // Loop in loop are not recommended.
-                    // So we seperate some chunks and let the task do it works
-                    chunksToRemoved.add(level.getChunk(x, z));
-                } else {
+                    chunks.add(DeletionJob.fullChunk(x, z));
+                } else if (cleanUpBlocks) {
                     // Add to clear up list if requested
-                    if (cleanUpBlocks) {
-                        chunksToClear.add(new Pair(x, z));
-                    }
+                    chunks.add(DeletionJob.partialChunk(x, z));
                 }
             }
         }
 
-        // Clear up any chunks in list
-        if (!chunksToRemoved.isEmpty()) {
-            new NukkitRunnable() {
-                public boolean state = false;
-
-                @Override
-                public void run() {
-                    Iterator<BaseFullChunk> iChunk = chunksToRemoved.iterator();
-                    int count = 0;
-                    while (iChunk.hasNext() && count++ < Settings.cleanRate) {
-                        BaseFullChunk chunk = iChunk.next();
-                        for (int y = settings.getSeaLevel(); y < 255 - settings.getSeaLevel(); y++) {
-                            for (int x = 0; x < 16; x++) {
-                                for (int z = 0; z < 16; z++) {
-                                    chunk.setBlock(x, y, z, 0); // AIR! SOLUTION! TREATING!
-                                    BlockEntity entity = chunk.getTile(x, y, z);
-                                    // Sometimes chest will be removed, but the data wont
-                                    // This can corrupt the world data so be prepare
-                                    if (entity != null) {
-                                        chunk.removeBlockEntity(entity);
-                                    }
-                                }
-                            }
-                        }
-                        level.generateChunkCallback(chunk.getX(), chunk.getZ(), chunk);
-                        iChunk.remove();
-                    }
-                    if (chunksToRemoved.isEmpty()) {
-                        this.cancel();
-                    }
-                }
-
-            }.runTaskTimer(plugin, 0, 20);
+        if (!chunks.isEmpty()) {
+            int islandMinX = pd.getCenter().getFloorX() - range;
+            int islandMinZ = pd.getCenter().getFloorZ() - range;
+            DeletionJob job = new DeletionJob(level.getName(), player.getName(), islandMinX, islandMinZ,
+                    islandMinX + range * 2, islandMinZ + range * 2, chunks, chunks.size());
+            plugin.getDeletionQueue().submit(job, player);
+        } else {
+            plugin.getIsland().getAllocator().release(level.getName(), pd.getCenter().getFloorX(), pd.getCenter().getFloorZ());
         }
 
-        // Clear up any chunks
-        if (!chunksToClear.isEmpty()) {
-            Utils.send("&eIsland delete Task-2: There are &a" + chunksToClear.size() + " &echunks that need to be cleared up.");
-            Utils.send("&eClean rate is &a" + Settings.cleanRate + " &echunks per second. Should take ~" + Math.round(chunksToClear.size() / Settings.cleanRate) + "s");
-            new NukkitRunnable() {
-                @Override
-                public void run() {
-                    Iterator<Pair> it = chunksToClear.iterator();
-                    int count = 0;
-                    while (it.hasNext() && count++ < Settings.cleanRate) {
-                        Pair pair = it.next();
-                        for (int x = 0; x < 16; x++) {
-                            for (int z = 0; z < 16; z++) {
-                                // Check if coords are in island space
-                                int xCoord = pair.getLeft() * 16 + x; // Its chunks u need to understand
-                                int zCoord = pair.getRight() * 16 + z;
-                                if (pd.inIslandSpace(xCoord, zCoord)) {
-                                    // Delete all the chunks here
-                                    for (int y = 0; y < 255 - settings.getSeaLevel(); y++) {
-                                        // Overworld
-                                        Vector3 vec = new Vector3(xCoord, y + settings.getSeaLevel(), zCoord);
-                                        level.setBlock(vec, Block.get(Block.AIR), true, true);
-                                    }
-                                }
-                            }
-                        }
-
-                        it.remove();
-                    }
-                    if (chunksToClear.isEmpty()) {
-                        Utils.send("&aFinished island deletion Task-2");
-                        this.cancel();
-                    }
-                }
-            }.runTaskTimer(plugin, 0, 20);
-        }
+        plugin.getLevelCalcTask().getTracker().remove(pd);
 
         // Remove from database
         boolean result = ASkyBlock.get().getDatabase().deleteIsland(pd);
@@ -0,0 +1,234 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.task;
+
+import cn.nukkit.blockentity.BlockEntity;
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.generic.BaseChunk;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.level.format.generic.EmptyChunkSection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A resumable island deletion. Holds the chunks that still need to be
+ * cleared, one entry at a time, so the job can be stopped at any chunk and
+ * picked up again from its saved record.
+ *
+ * @author larryTheCoder
+ */
+public class DeletionJob {
+
+    private final String id;
+    private final String levelName;
+    private final String senderName;
+    // Island space, chunks on the border only clear the columns inside it
+    private final int minX;
+    private final int minZ;
+    private final int maxX;
+    private final int maxZ;
+    private final int total;
+    // Chunks left to clear, "x:z:f" for a full chunk or "x:z:p" for a partial one
+    private final List<String> chunks;
+    private long busyNanos = 0;
+
+    DeletionJob(String levelName, String senderName, int minX, int minZ, int maxX, int maxZ, List<String> chunks, int total) {
+        this.id = levelName + "_" + minX + "_" + minZ;
+        this.levelName = levelName;
+        this.senderName = senderName;
+        this.minX = minX;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxZ = maxZ;
+        this.chunks = chunks;
+        this.total = total;
+    }
+
+    static String fullChunk(int x, int z) {
+        return x + ":" + z + ":f";
+    }
+
+    static String partialChunk(int x, int z) {
+        return x + ":" + z + ":p";
+    }
+
+    /**
+     * Clear the next chunk of this job.
+     *
+     * @param level    The level the island is in
+     * @param seaLevel The sea level of the level, nothing below it is touched
+     * @return true if there are still chunks left
+     */
+    boolean step(Level level, int seaLevel) {
+        if (chunks.isEmpty()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        String[] entry = chunks.remove(0).split(":");
+        int chunkX = Integer.parseInt(entry[0]);
+        int chunkZ = Integer.parseInt(entry[1]);
+
+        BaseFullChunk chunk = level.getChunk(chunkX, chunkZ, true);
+        if (chunk != null) {
+            if (entry[2].equals("f")) {
+                clearFull(chunk, seaLevel, 255 - seaLevel);
+            } else {
+                clearPartial(chunk, seaLevel, 255);
+            }
+            chunk.recalculateHeightMap();
+            chunk.populateSkyLight();
+            level.generateChunkCallback(chunkX, chunkZ, chunk);
+        }
+        busyNanos += System.nanoTime() - start;
+        return !chunks.isEmpty();
+    }
+
+    private void clearFull(BaseFullChunk chunk, int minY, int maxY) {
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            int bottom = sectionY << 4;
+            int top = bottom + 16;
+            if (bottom >= minY && top <= maxY && chunk instanceof BaseChunk) {
+                // The whole section is inside the range, swap it for an empty one
+                ((BaseChunk) chunk).setSection(sectionY, new EmptyChunkSection(sectionY));
+            } else if (top > minY && bottom < maxY) {
+                for (int y = Math.max(bottom, minY); y < Math.min(top, maxY); y++) {
+                    for (int x = 0; x < 16; x++) {
+                        for (int z = 0; z < 16; z++) {
+                            chunk.setBlock(x, y, z, 0, 0);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Sometimes chest will be removed, but the data wont
+        // This can corrupt the world data so be prepare
+        for (BlockEntity entity : new ArrayList<>(chunk.getBlockEntities().values())) {
+            if (entity.getFloorY() >= minY && entity.getFloorY() < maxY) {
+                entity.close();
+            }
+        }
+    }
+
+    private void clearPartial(BaseFullChunk chunk, int minY, int maxY) {
+        int baseX = chunk.getX() << 4;
+        int baseZ = chunk.getZ() << 4;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                if (!inIslandSpace(baseX + x, baseZ + z)) {
+                    continue;
+                }
+                for (int y = minY; y < maxY; y++) {
+                    chunk.setBlock(x, y, z, 0, 0);
+                }
+            }
+        }
+
+        for (BlockEntity entity : new ArrayList<>(chunk.getBlockEntities().values())) {
+            if (entity.getFloorY() >= minY && inIslandSpace(entity.getFloorX(), entity.getFloorZ())) {
+                entity.close();
+            }
+        }
+    }
+
+    private boolean inIslandSpace(int x, int z) {
+        return x >= minX && x < maxX && z >= minZ && z < maxZ;
+    }
+
+    /**
+     * Estimate how long this job still needs, based on how long the chunks
+     * cleared so far took and how much time is given every tick.
+     *
+     * @param budgetNanos The time given to deletions every tick
+     * @return The remaining time in seconds
+     */
+    long getEta(long budgetNanos) {
+        int done = getDone();
+        if (done == 0 || budgetNanos <= 0) {
+            return -1;
+        }
+        double ticks = (double) busyNanos / done * chunks.size() / budgetNanos;
+        return (long) Math.ceil(ticks / 20);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLevelName() {
+        return levelName;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public int getCenterX() {
+        return (minX + maxX) / 2;
+    }
+
+    public int getCenterZ() {
+        return (minZ + maxZ) / 2;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getDone() {
+        return total - chunks.size();
+    }
+
+    public int getProgress() {
+        return total == 0 ? 100 : getDone() * 100 / total;
+    }
+
+    Map<String, Object> save() {
+        Map<String, Object> record = new HashMap<>();
+        record.put("level", levelName);
+        record.put("sender", senderName);
+        record.put("island", minX + ":" + minZ + ":" + maxX + ":" + maxZ);
+        record.put("total", total);
+        record.put("chunks", new ArrayList<>(chunks));
+        return record;
+    }
+
+    @SuppressWarnings("unchecked")
+    static DeletionJob load(Map<String, Object> record) {
+        String[] island = ((String) record.get("island")).split(":");
+        List<String> chunks = new ArrayList<>((List<String>) record.get("chunks"));
+
+        return new DeletionJob((String) record.get("level"), (String) record.get("sender"),
+                Integer.parseInt(island[0]), Integer.parseInt(island[1]),
+                Integer.parseInt(island[2]), Integer.parseInt(island[3]),
+                chunks, ((Number) record.get("total")).intValue());
+    }
+}
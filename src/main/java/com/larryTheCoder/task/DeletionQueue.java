@@ -0,0 +1,180 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.task;
+
+import cn.nukkit.Player;
+import cn.nukkit.command.CommandSender;
+import cn.nukkit.level.Level;
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.storage.WorldSettings;
+import com.larryTheCoder.utils.Settings;
+import com.larryTheCoder.utils.Utils;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Runs island deletions on the main thread within a time budget per tick.
+ * Jobs are saved to deletions.yml so an unfinished deletion picks up where
+ * it stopped after a restart.
+ *
+ * @author larryTheCoder
+ */
+public class DeletionQueue implements Runnable {
+
+    // Save and report progress every 5 seconds
+    private static final int REPORT_INTERVAL = 100;
+
+    private final ASkyBlock plugin;
+    private final Config storage;
+    private final Deque<DeletionJob> jobs = new ArrayDeque<>();
+    private final Map<String, CommandSender> senders = new HashMap<>();
+    private int taskId = -1;
+    private int ticks = 0;
+
+    public DeletionQueue(ASkyBlock plugin) {
+        this.plugin = plugin;
+        this.storage = new Config(new File(plugin.getDataFolder(), "deletions.yml"), Config.YAML);
+
+        ConfigSection section = storage.getSection("jobs");
+        for (String key : section.getKeys(false)) {
+            try {
+                jobs.add(DeletionJob.load(section.getSection(key).getAllMap()));
+            } catch (Exception ex) {
+                Utils.send("&cUnable to resume the island deletion " + key + ", skipping!");
+            }
+        }
+        if (!jobs.isEmpty()) {
+            Utils.send("&eResuming &a" + jobs.size() + " &eunfinished island deletion(s).");
+            start();
+        }
+    }
+
+    /**
+     * Queue a new island deletion.
+     *
+     * @param job    The deletion job
+     * @param sender The one who asked for the deletion
+     */
+    public void submit(DeletionJob job, CommandSender sender) {
+        jobs.add(job);
+        senders.put(job.getId(), sender);
+        sender.sendMessage(plugin.getPrefix() + "§eDeleting §a" + job.getTotal() + " §echunks of the island...");
+        save();
+        start();
+    }
+
+    private void start() {
+        if (taskId == -1) {
+            taskId = TaskManager.runTaskRepeat(this, 1);
+        }
+    }
+
+    @Override
+    public void run() {
+        long budget = Settings.deleteBudget * 1000000L;
+        long deadline = System.nanoTime() + budget;
+        while (!jobs.isEmpty() && System.nanoTime() < deadline) {
+            DeletionJob job = jobs.peek();
+            Level level = plugin.getServer().getLevelByName(job.getLevelName());
+            WorldSettings settings = plugin.getSettings(job.getLevelName());
+            if (level == null || settings == null) {
+                Utils.send("&cCannot find the level " + job.getLevelName() + ", dropping the island deletion.");
+                finish(job);
+                continue;
+            }
+
+            if (!job.step(level, settings.getSeaLevel())) {
+                finish(job);
+            }
+        }
+
+        if (++ticks % REPORT_INTERVAL == 0 || jobs.isEmpty()) {
+            for (DeletionJob job : jobs) {
+                CommandSender sender = getSender(job);
+                if (sender != null) {
+                    long eta = job.getEta(budget);
+                    sender.sendMessage(plugin.getPrefix() + "§eIsland deletion: §a" + job.getProgress() + "% §7("
+                            + job.getDone() + "/" + job.getTotal() + " chunks" + (eta < 0 ? "" : ", ~" + eta + "s left") + ")");
+                }
+            }
+            save();
+        }
+        if (jobs.isEmpty()) {
+            TaskManager.IMP.cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    private void finish(DeletionJob job) {
+        jobs.remove(job);
+        // The slot can only be given to a new island once it is cleared
+        plugin.getIsland().getAllocator().release(job.getLevelName(), job.getCenterX(), job.getCenterZ());
+        CommandSender sender = getSender(job);
+        if (sender != null) {
+            sender.sendMessage(plugin.getPrefix() + "§aThe island has been fully deleted.");
+        }
+        senders.remove(job.getId());
+    }
+
+    private CommandSender getSender(DeletionJob job) {
+        CommandSender sender = senders.get(job.getId());
+        if (sender instanceof Player && !((Player) sender).isOnline()) {
+            sender = null;
+        }
+        if (sender == null) {
+            // After a restart, or when the player came back
+            sender = plugin.getServer().getPlayerExact(job.getSenderName());
+            if (sender != null) {
+                senders.put(job.getId(), sender);
+            }
+        }
+        return sender;
+    }
+
+    /**
+     * @return The deletions that are still running
+     */
+    public Collection<DeletionJob> getJobs() {
+        return Collections.unmodifiableCollection(jobs);
+    }
+
+    /**
+     * Save the remaining chunks of every job.
+     */
+    public void save() {
+        ConfigSection section = new ConfigSection();
+        for (DeletionJob job : jobs) {
+            section.put(job.getId(), new ConfigSection(new LinkedHashMap<>(job.save())));
+        }
+        storage.set("jobs", section);
+        storage.save();
+    }
+}
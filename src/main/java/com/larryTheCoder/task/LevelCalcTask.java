@@ -28,36 +28,45 @@
 package com.larryTheCoder.task;
 
 import cn.nukkit.Player;
+import cn.nukkit.command.CommandSender;
+import cn.nukkit.level.Level;
 import cn.nukkit.permission.PermissionAttachmentInfo;
+import cn.nukkit.utils.Config;
 import com.larryTheCoder.ASkyBlock;
-import com.larryTheCoder.player.PlayerData;
 import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.utils.BlockValues;
+import com.larryTheCoder.utils.ChunkSnapshot;
+import com.larryTheCoder.utils.RegionSnapshot;
 import com.larryTheCoder.utils.Utils;
 
-import java.util.ArrayDeque;
-import java.util.Map;
-import java.util.Queue;
+import java.io.File;
+import java.util.*;
 
 /**
- * Calculates the level of the island
+ * Calculates the level of the island. The island chunks are
+ * copied by the {@link SnapshotService}, then the blocks are
+ * counted and valued in the background. Once counted, the
+ * {@link LevelTracker} keeps the level up to date and a full
+ * count is only done again now and then to correct drift.
  */
-public class LevelCalcTask {
+public class LevelCalcTask implements Runnable {
 
-    private final Queue<Player> levelUpdateQueue = new ArrayDeque<>(32);
-    private ASkyBlock plugin;
+    private final Queue<LevelRequest> levelUpdateQueue = new ArrayDeque<>(32);
+    // Islands that are waiting or being calculated
+    private final Set<Long> queued = new HashSet<>();
+    private final Map<Long, Long> lastCalculated = new HashMap<>();
+    private final ASkyBlock plugin;
+    private final BlockValues values;
+    private final LevelTracker tracker;
+    // Only one island is copied and counted at a time
+    private boolean busy = false;
+    private int ticks = 0;
 
     public LevelCalcTask(ASkyBlock plugin) {
         this.plugin = plugin;
-        TaskManager.runTaskRepeatAsync(() -> {
-            if (!updateList()) {
-                return;
-            }
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }, 20);
+        this.values = new BlockValues(new Config(new File(plugin.getDataFolder(), "blockvalues.yml"), Config.YAML));
+        this.tracker = new LevelTracker(plugin, values);
+        TaskManager.runTaskRepeat(this, 1);
     }
 
     /**
@@ -68,51 +77,247 @@ public class LevelCalcTask {
      * @param player The player itself
      */
     public void addUpdateQueue(Player player) {
-        levelUpdateQueue.add(player);
+        int multiplier = getMultiplier(player);
+        TaskManager.whenDone(plugin.getDatabase().getIslandAsync(player.getName(), 1), pd -> {
+            if (pd == null) {
+                player.sendMessage(plugin.getPrefix() + plugin.getLocale(player).errorNoIsland);
+                return;
+            }
+            // Already counted, the tracker keeps it up to date
+            if (tracker.getLevel(pd) >= 0 && tracker.getMultiplier(pd) == multiplier) {
+                player.sendMessage(plugin.getPrefix() + plugin.getLocale(player).levelIslandIs.replace("[level]", Integer.toString(tracker.getLevel(pd))));
+                return;
+            }
+            addUpdateQueue(pd, player, multiplier);
+        });
+    }
+
+    /**
+     * Adds an island into the queue. The same island is only queued
+     * once and can't be calculated again before the cooldown is over.
+     *
+     * @param pd         The island
+     * @param sender     The one who asked for it, gets the result
+     * @param multiplier The level multiplier of the island owner
+     * @return false if the island is already queued or too soon
+     */
+    public boolean addUpdateQueue(IslandData pd, CommandSender sender, int multiplier) {
+        Player p = sender instanceof Player ? (Player) sender : null;
+        if (queued.contains(pd.getIslandId())) {
+            sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).levelCalculating);
+            return false;
+        }
+        Long last = lastCalculated.get(pd.getIslandId());
+        long wait = last == null ? 0 : last + values.getCooldown() * 1000L - System.currentTimeMillis();
+        if (wait > 0) {
+            sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorTooSoon.replace("[secs]", (wait / 1000 + 1) + "s").replace("[cmd]", "level"));
+            return false;
+        }
+
+        queued.add(pd.getIslandId());
+        levelUpdateQueue.add(new LevelRequest(pd, sender, multiplier));
+        sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).levelCalculating);
+        return true;
     }
 
-    private boolean updateList() {
-        int size = Math.min(0xfffff, levelUpdateQueue.size());
+    /**
+     * Count the island in the background, without anyone waiting
+     * for the result.
+     *
+     * @param pd The island
+     */
+    private void queueRescan(IslandData pd) {
+        if (queued.add(pd.getIslandId())) {
+            Player owner = pd.getOwner() == null ? null : plugin.getServer().getPlayerExact(pd.getOwner());
+            int multiplier = owner != null ? getMultiplier(owner) : tracker.getMultiplier(pd);
+            levelUpdateQueue.add(new LevelRequest(pd, null, multiplier));
+        }
+    }
+
+    /**
+     * Record a block change on an island. An island that is not
+     * counted yet gets counted in the background.
+     *
+     * @param pd        The island the block is in
+     * @param removedId The block id that was there before
+     * @param addedId   The block id that is there now
+     */
+    public void blockChanged(IslandData pd, int removedId, int addedId) {
+        if (!tracker.change(pd, removedId, addedId)) {
+            queueRescan(pd);
+        }
+    }
+
+    /**
+     * Start tracking a new island from the blocks that were pasted on it.
+     *
+     * @param pd     The new island
+     * @param counts The pasted blocks indexed by block id, or null if unknown
+     * @param owner  The island owner
+     */
+    public void islandCreated(IslandData pd, long[] counts, Player owner) {
+        if (counts == null) {
+            queueRescan(pd);
+            return;
+        }
+        tracker.seed(pd, counts, getMultiplier(owner));
+    }
 
-        if (size == 0) {
+    @Override
+    public void run() {
+        // Write the levels of offline owners every 30 seconds
+        if (++ticks % 600 == 0) {
+            tracker.flush();
+        }
+        // Look for islands that needs a full count every minute
+        if (ticks % 1200 == 0) {
+            if (values.getIdleTime() > 0) {
+                tracker.evictIdle(values.getIdleTime() * 1000L);
+            }
+            if (values.getRescanInterval() > 0) {
+                tracker.getStale(values.getRescanInterval() * 1000L).forEach(this::queueRescan);
+            }
+            long cooldown = System.currentTimeMillis() - values.getCooldown() * 1000L;
+            lastCalculated.values().removeIf(last -> last < cooldown);
+        }
+
+        if (busy) {
+            return;
+        }
+        LevelRequest request = levelUpdateQueue.poll();
+        if (request == null) {
             // Idle
-            return false;
+            return;
         }
 
-        int limit = Math.min(20, size);
-        Player[] copy = new Player[limit];
-        for (int i = 0; i < limit; i++) {
-            copy[i] = levelUpdateQueue.poll();
+        IslandData pd = request.pd;
+        Level level = plugin.getServer().getLevelByName(pd.getLevelName());
+        if (level == null) {
+            queued.remove(pd.getIslandId());
+            return;
         }
 
-        for (Player targetPlayer : copy) {
-            PlayerData pda = plugin.getPlayerInfo(targetPlayer);
-            IslandData pd = plugin.getIslandInfo(targetPlayer);
+        busy = true;
+        int maxX = pd.getMinProtectedX() + pd.getProtectionSize() - 1;
+        int maxZ = pd.getMinProtectedZ() + pd.getProtectionSize() - 1;
+        // The snapshot is completed on the main thread
+        plugin.getSnapshots().request(level, pd.getMinProtectedX(), pd.getMinProtectedZ(), maxX, maxZ, 0, 255)
+                .whenComplete((snapshot, error) -> {
+                    if (error != null) {
+                        failed(request, error);
+                        return;
+                    }
+                    TaskManager.runTaskAsync(() -> {
+                        try {
+                            long[] counts = calculate(request, snapshot);
+                            TaskManager.runTask(() -> finish(request, counts));
+                        } catch (Throwable ex) {
+                            TaskManager.runTask(() -> failed(request, ex));
+                        }
+                    });
+                });
+    }
 
-            // Get the player multiplier if it available
-            int multiplier = 1;
-            for (Map.Entry<String, PermissionAttachmentInfo> pType : targetPlayer.getEffectivePermissions().entrySet()) {
-                String type = pType.getKey();
-                if (!type.equalsIgnoreCase("is.multiplier.")) {
+    private long[] calculate(LevelRequest request, RegionSnapshot region) {
+        IslandData pd = request.pd;
+        long[] counts = new long[256];
+        for (ChunkSnapshot snapshot : region.getChunks()) {
+            int baseX = snapshot.getX() << 4;
+            int baseZ = snapshot.getZ() << 4;
+            for (int sectionY = 0; sectionY < 16; sectionY++) {
+                if (snapshot.isSectionEmpty(sectionY)) {
                     continue;
                 }
-                // Then check if the player has a valid value
-                String spl = type.substring(14);
-                if (!spl.isEmpty() && Utils.isNumeric(spl)) {
-                    // Get the max value should there be more than one
-                    multiplier = Math.max(multiplier, Integer.valueOf(spl));
-                    // Do some sanity checking
-                    if (multiplier < 1) {
-                        multiplier = 1;
+                for (int x = 0; x < 16; x++) {
+                    for (int z = 0; z < 16; z++) {
+                        if (!pd.inIslandSpace(baseX + x, baseZ + z)) {
+                            continue;
+                        }
+                        for (int y = sectionY << 4; y < (sectionY + 1) << 4; y++) {
+                            counts[snapshot.getBlockId(x, y, z)]++;
+                        }
                     }
-                } else {
-                    Utils.send("&cPlayer " + targetPlayer.getName() + " has permission: " + type + " <-- the last part MUST be a number! Ignoring...");
                 }
             }
+        }
+        return counts;
+    }
 
+    private void finish(LevelRequest request, long[] counts) {
+        busy = false;
+        queued.remove(request.pd.getIslandId());
+        lastCalculated.put(request.pd.getIslandId(), System.currentTimeMillis());
+        int islandLevel = tracker.seed(request.pd, counts, request.multiplier);
 
+        CommandSender sender = request.sender;
+        if (sender != null && (!(sender instanceof Player) || ((Player) sender).isOnline())) {
+            Player p = sender instanceof Player ? (Player) sender : null;
+            sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).levelIslandIs.replace("[level]", Integer.toString(islandLevel)));
+        }
+    }
+
+    private void failed(LevelRequest request, Throwable error) {
+        busy = false;
+        queued.remove(request.pd.getIslandId());
+        Utils.send("&cUnable to calculate the level of the island " + request.pd.getIslandId() + ": " + error.getMessage());
+        if (plugin.isDebug()) {
+            error.printStackTrace();
+        }
+
+        CommandSender sender = request.sender;
+        if (sender != null && (!(sender instanceof Player) || ((Player) sender).isOnline())) {
+            Player p = sender instanceof Player ? (Player) sender : null;
+            sender.sendMessage(plugin.getPrefix() + plugin.getLocale(p).errorFailedCritical);
         }
-        return true;
     }
 
+    /**
+     * Get the player multiplier if it available
+     *
+     * @param targetPlayer The player
+     * @return The level multiplier, at least 1
+     */
+    private int getMultiplier(Player targetPlayer) {
+        int multiplier = 1;
+        for (Map.Entry<String, PermissionAttachmentInfo> pType : targetPlayer.getEffectivePermissions().entrySet()) {
+            String type = pType.getKey();
+            if (!type.toLowerCase().startsWith("is.multiplier.")) {
+                continue;
+            }
+            // Then check if the player has a valid value
+            String spl = type.substring(14);
+            if (!spl.isEmpty() && Utils.isNumeric(spl)) {
+                // Get the max value should there be more than one
+                multiplier = Math.max(multiplier, Integer.valueOf(spl));
+                // Do some sanity checking
+                if (multiplier < 1) {
+                    multiplier = 1;
+                }
+            } else {
+                Utils.send("&cPlayer " + targetPlayer.getName() + " has permission: " + type + " <-- the last part MUST be a number! Ignoring...");
+            }
+        }
+        return multiplier;
+    }
+
+    public BlockValues getBlockValues() {
+        return values;
+    }
+
+    public LevelTracker getTracker() {
+        return tracker;
+    }
+
+    private static class LevelRequest {
+
+        private final IslandData pd;
+        private final CommandSender sender;
+        private final int multiplier;
+
+        LevelRequest(IslandData pd, CommandSender sender, int multiplier) {
+            this.pd = pd;
+            this.sender = sender;
+            this.multiplier = multiplier;
+        }
+    }
 }
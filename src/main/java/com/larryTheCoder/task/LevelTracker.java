@@ -0,0 +1,252 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.task;
+
+import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.player.PlayerData;
+import com.larryTheCoder.player.PlayerSessionCache;
+import com.larryTheCoder.storage.IslandData;
+import com.larryTheCoder.utils.BlockValues;
+
+import java.util.*;
+
+/**
+ * Keeps a running block count for every island that has been fully
+ * counted once. Placed and broken blocks only adjust the counters, so
+ * the island level stays up to date without scanning the island again.
+ * Islands that stay unchanged while their owner is offline are dropped,
+ * they are counted again on their next change. This is only used from
+ * the main thread.
+ *
+ * @author larryTheCoder
+ */
+public class LevelTracker {
+
+    private final ASkyBlock plugin;
+    private final BlockValues values;
+    // Keyed by the island key
+    private final Map<Long, IslandCounter> islands = new HashMap<>();
+    // Islands whose level changed while their owner was offline
+    private final Set<Long> dirty = new HashSet<>();
+
+    LevelTracker(ASkyBlock plugin, BlockValues values) {
+        this.plugin = plugin;
+        this.values = values;
+    }
+
+    /**
+     * Replace the counters of the island with a full count.
+     *
+     * @param pd         The island
+     * @param counts     The number of blocks, indexed by block id
+     * @param multiplier The level multiplier of the island owner
+     * @return The island level
+     */
+    public int seed(IslandData pd, long[] counts, int multiplier) {
+        IslandCounter counter = new IslandCounter(pd, counts.clone(), multiplier);
+        counter.points = values.getPoints(counter.counts);
+        counter.level = -1;
+        islands.put(pd.getIslandId(), counter);
+        updateLevel(counter);
+        return counter.level;
+    }
+
+    /**
+     * Record a block that was replaced by another one.
+     *
+     * @param pd        The island the block is in
+     * @param removedId The block id that was there before
+     * @param addedId   The block id that is there now
+     * @return false if the island is not counted yet
+     */
+    public boolean change(IslandData pd, int removedId, int addedId) {
+        IslandCounter counter = islands.get(pd.getIslandId());
+        if (counter == null) {
+            return false;
+        }
+        counter.changed = true;
+        counter.lastChanged = System.currentTimeMillis();
+        if (removedId != addedId) {
+            counter.add(removedId, -1);
+            counter.add(addedId, 1);
+            updateLevel(counter);
+        }
+        return true;
+    }
+
+    /**
+     * Stop tracking a deleted island, its owner is back to level 0.
+     *
+     * @param pd The island
+     */
+    public void remove(IslandData pd) {
+        islands.remove(pd.getIslandId());
+        dirty.remove(pd.getIslandId());
+        if (pd.getId() == 1 && pd.getOwner() != null && !setLevel(pd.getOwner(), 0)) {
+            saveLevel(pd.getOwner(), 0);
+        }
+    }
+
+    /**
+     * @param pd The island
+     * @return The island level, or -1 if the island is not counted yet
+     */
+    public int getLevel(IslandData pd) {
+        IslandCounter counter = islands.get(pd.getIslandId());
+        return counter == null ? -1 : counter.level;
+    }
+
+    /**
+     * @param pd The island
+     * @return The level multiplier used for the island, 1 if it is not counted yet
+     */
+    public int getMultiplier(IslandData pd) {
+        IslandCounter counter = islands.get(pd.getIslandId());
+        return counter == null ? 1 : counter.multiplier;
+    }
+
+    /**
+     * Get the islands that were changed since they were fully
+     * counted, and were counted longer ago than the given age.
+     *
+     * @param maxAge The age in milliseconds
+     * @return The islands to count again
+     */
+    List<IslandData> getStale(long maxAge) {
+        long oldest = System.currentTimeMillis() - maxAge;
+        List<IslandData> stale = new ArrayList<>();
+        for (IslandCounter counter : islands.values()) {
+            if (counter.changed && counter.seeded < oldest) {
+                stale.add(counter.pd);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Stop tracking the islands that were not changed for the given
+     * time and whose owner is offline. Their level is written first.
+     *
+     * @param maxIdle The time in milliseconds
+     */
+    void evictIdle(long maxIdle) {
+        long oldest = System.currentTimeMillis() - maxIdle;
+        PlayerSessionCache cache = plugin.getPlayerCache();
+        Iterator<Map.Entry<Long, IslandCounter>> it = islands.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, IslandCounter> entry = it.next();
+            IslandCounter counter = entry.getValue();
+            if (counter.lastChanged >= oldest || (counter.owner != null && cache.isLoaded(counter.owner))) {
+                continue;
+            }
+            if (dirty.remove(entry.getKey())) {
+                saveLevel(counter.owner, counter.level);
+            }
+            it.remove();
+        }
+    }
+
+    /**
+     * Write the level of the islands whose owner is offline.
+     */
+    void flush() {
+        for (Long key : dirty) {
+            IslandCounter counter = islands.get(key);
+            if (counter != null) {
+                saveLevel(counter.owner, counter.level);
+            }
+        }
+        dirty.clear();
+    }
+
+    private void saveLevel(String owner, int level) {
+        TaskManager.runTaskAsync(() -> {
+            PlayerData pda = plugin.getDatabase().getPlayerData(owner);
+            if (pda != null) {
+                pda.setIslandLevel(level);
+                plugin.getDatabase().savePlayerData(pda);
+            }
+        });
+    }
+
+    private void updateLevel(IslandCounter counter) {
+        int level = (int) (Math.max(0, counter.points) * counter.multiplier / values.getLevelCost());
+        if (level == counter.level) {
+            return;
+        }
+        counter.level = level;
+        // The player level is the level of their first island
+        if (counter.pd.getId() != 1 || counter.owner == null) {
+            return;
+        }
+        if (!setLevel(counter.owner, level)) {
+            dirty.add(counter.pd.getIslandId());
+        }
+    }
+
+    private boolean setLevel(String owner, int level) {
+        PlayerSessionCache cache = plugin.getPlayerCache();
+        if (!cache.isLoaded(owner)) {
+            return false;
+        }
+        PlayerData pda = cache.get(owner);
+        pda.setIslandLevel(level);
+        cache.save(pda);
+        return true;
+    }
+
+    private class IslandCounter {
+
+        private final IslandData pd;
+        private final String owner;
+        private final long[] counts;
+        private final int multiplier;
+        private final long seeded = System.currentTimeMillis();
+        private long lastChanged = seeded;
+        // Changed since it was fully counted
+        private boolean changed = false;
+        private long points;
+        private int level;
+
+        IslandCounter(IslandData pd, long[] counts, int multiplier) {
+            this.pd = pd;
+            this.owner = pd.getOwner();
+            this.counts = counts;
+            this.multiplier = multiplier;
+        }
+
+        void add(int id, int delta) {
+            if (id < 0 || id >= counts.length) {
+                return;
+            }
+            long before = values.getPoints(id, counts[id]);
+            counts[id] = Math.max(0, counts[id] + delta);
+            points += values.getPoints(id, counts[id]) - before;
+        }
+    }
+}
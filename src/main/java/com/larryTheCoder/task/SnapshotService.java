@@ -0,0 +1,157 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.task;
+
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import com.larryTheCoder.utils.ChunkSnapshot;
+import com.larryTheCoder.utils.RegionSnapshot;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Copies rectangles of chunks into {@link RegionSnapshot}s. The chunks
+ * are read on the main thread, a few of them every tick within a time
+ * budget, and the snapshot is handed over once all of them are copied.
+ * The snapshot can then be read from any thread. A request whose
+ * chunks can't be copied, or whose level was unloaded, completes
+ * exceptionally.
+ *
+ * @author larryTheCoder
+ */
+public class SnapshotService implements Runnable {
+
+    private final Queue<SnapshotRequest> requests = new ArrayDeque<>();
+    private final int budget;
+    private int taskId = -1;
+
+    /**
+     * @param budget The milliseconds per tick used to copy chunks
+     */
+    public SnapshotService(int budget) {
+        this.budget = Math.max(1, budget);
+    }
+
+    /**
+     * Request a snapshot of the blocks between the given coordinates,
+     * this must be called from the main thread. The future is completed
+     * on the main thread.
+     *
+     * @param level The level to copy
+     * @param minX  The lowest x, inclusive
+     * @param minZ  The lowest z, inclusive
+     * @param maxX  The highest x, inclusive
+     * @param maxZ  The highest z, inclusive
+     * @param minY  The lowest y that needs to be copied
+     * @param maxY  The highest y that needs to be copied
+     * @return The snapshot once it has been copied
+     */
+    public CompletableFuture<RegionSnapshot> request(Level level, int minX, int minZ, int maxX, int maxZ, int minY, int maxY) {
+        SnapshotRequest request = new SnapshotRequest(level, minX >> 4, minZ >> 4, maxX >> 4, maxZ >> 4, minY, maxY);
+        requests.add(request);
+        if (taskId == -1) {
+            taskId = TaskManager.runTaskRepeat(this, 1);
+        }
+        return request.future;
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime() + budget * 1000000L;
+        while (!requests.isEmpty() && System.nanoTime() < deadline) {
+            SnapshotRequest request = requests.peek();
+            try {
+                if (!request.step()) {
+                    requests.poll();
+                    request.complete();
+                }
+            } catch (Exception ex) {
+                requests.poll();
+                request.future.completeExceptionally(ex);
+            }
+        }
+        if (requests.isEmpty()) {
+            TaskManager.IMP.cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+    private static class SnapshotRequest {
+
+        private final CompletableFuture<RegionSnapshot> future = new CompletableFuture<>();
+        private final Level level;
+        private final int minChunkX;
+        private final int minChunkZ;
+        private final int maxChunkX;
+        private final int maxChunkZ;
+        private final int minY;
+        private final int maxY;
+        private final ChunkSnapshot[] chunks;
+        private int next = 0;
+
+        SnapshotRequest(Level level, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, int minY, int maxY) {
+            this.level = level;
+            this.minChunkX = minChunkX;
+            this.minChunkZ = minChunkZ;
+            this.maxChunkX = maxChunkX;
+            this.maxChunkZ = maxChunkZ;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.chunks = new ChunkSnapshot[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+        }
+
+        /**
+         * Copy the next chunk.
+         *
+         * @return false if every chunk is copied
+         */
+        boolean step() {
+            if (next >= chunks.length) {
+                return false;
+            }
+            if (level.getServer().getLevelByName(level.getName()) != level) {
+                throw new IllegalStateException("The level " + level.getName() + " was unloaded");
+            }
+            int sizeZ = maxChunkZ - minChunkZ + 1;
+            int chunkX = minChunkX + next / sizeZ;
+            int chunkZ = minChunkZ + next % sizeZ;
+            BaseFullChunk chunk = level.getChunk(chunkX, chunkZ, true);
+            if (chunk != null && chunk.isGenerated()) {
+                chunks[next] = ChunkSnapshot.of(chunk, minY, maxY);
+            }
+            next++;
+            return next < chunks.length;
+        }
+
+        void complete() {
+            future.complete(new RegionSnapshot(level.getName(), minChunkX, minChunkZ, maxChunkX, maxChunkZ, chunks));
+        }
+    }
+}
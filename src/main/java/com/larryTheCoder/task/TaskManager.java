@@ -28,14 +28,17 @@ package com.larryTheCoder.task;
 
 import cn.nukkit.scheduler.TaskHandler;
 import com.larryTheCoder.ASkyBlock;
+import com.larryTheCoder.utils.Utils;
 import com.larryTheCoder.utils.object.RunnableVal;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class TaskManager {
 
@@ -110,6 +113,42 @@ public class TaskManager {
         }
     }
 
+    /**
+     * Run the callback on the server thread once the
+     * asynchronous request is done. A failed request is
+     * reported and the callback will not be run.
+     *
+     * @param future   The request
+     * @param callback The callback, receives the result of the request
+     */
+    public static <T> void whenDone(CompletableFuture<T> future, Consumer<T> callback) {
+        whenDone(future, callback, error -> {
+        });
+    }
+
+    /**
+     * Run the callback on the server thread once the
+     * asynchronous request is done. A failed request is
+     * reported and the failure callback is run instead.
+     *
+     * @param future   The request
+     * @param callback The callback, receives the result of the request
+     * @param failure  The callback, receives the error of the request
+     */
+    public static <T> void whenDone(CompletableFuture<T> future, Consumer<T> callback, Consumer<Throwable> failure) {
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                Utils.send("&cUnable to complete a database request: " + error.getMessage());
+                if (ASkyBlock.get().isDebug()) {
+                    error.printStackTrace();
+                }
+                runTask(() -> failure.accept(error));
+                return;
+            }
+            runTask(() -> callback.accept(value));
+        });
+    }
+
     /**
      * Break up a series of tasks so that they can run without lagging the
      * server.
@@ -24,98 +24,109 @@
  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
  * USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
+
 package com.larryTheCoder.task;
 
 import cn.nukkit.Player;
 import cn.nukkit.command.CommandSender;
 import cn.nukkit.level.Level;
-import cn.nukkit.level.Position;
 import cn.nukkit.level.biome.Biome;
 import cn.nukkit.level.biome.EnumBiome;
 import cn.nukkit.level.format.generic.BaseFullChunk;
-import cn.nukkit.scheduler.NukkitRunnable;
-import cn.nukkit.scheduler.Task;
 import com.larryTheCoder.ASkyBlock;
 import com.larryTheCoder.storage.IslandData;
-import com.larryTheCoder.storage.WorldSettings;
 import com.larryTheCoder.utils.Settings;
-import com.larryTheCoder.utils.Utils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Deque;
 import java.util.List;
 
-class UpdateBiomeTask extends Task {
+/**
+ * Changes the biome of an island. Every chunk of the island
+ * gets its biome columns written once, on the main thread and
+ * within a time budget per tick, and is then resent to the
+ * players that can see it.
+ *
+ * @author larryTheCoder
+ */
+public class UpdateBiomeTask implements Runnable {
 
+    private final ASkyBlock plugin;
     private final IslandData pd;
     private final CommandSender player;
-    private final ASkyBlock plugin;
+    private final byte biomeId;
+    // Chunk hashes that still need the new biome
+    private final Deque<Long> chunks = new ArrayDeque<>();
+    private int taskId = -1;
 
+    /**
+     * @param plugin The plugin
+     * @param pd     The island, with the new biome name set
+     * @param player Who gets told when it is done, may be null
+     */
     public UpdateBiomeTask(ASkyBlock plugin, IslandData pd, CommandSender player) {
         this.plugin = plugin;
         this.pd = pd;
         this.player = player;
-    }
-
-    @Override
-    public void onRun(int currentTick) {
-        Player p = player.isPlayer() ? (Player) player : null;
-        Level level = plugin.getServer().getLevelByName(pd.getLevelName());
-        WorldSettings settings = plugin.getSettings(pd.getLevelName());
+        Biome biome = getBiome(pd.getBiome());
+        this.biomeId = (byte) (biome != null ? biome : EnumBiome.PLAINS.biome).getId();
 
         int minX = pd.getMinProtectedX();
         int minZ = pd.getMinProtectedZ();
-        int maxX = pd.getMinProtectedX() + pd.getProtectionSize();
-        int maxZ = pd.getMinProtectedZ() + pd.getProtectionSize();
-
-        // get the chunks for these locations
-        final BaseFullChunk minChunk = level.getChunk(minX >> 4, minZ >> 4, true);
-        final BaseFullChunk maxChunk = level.getChunk(maxX >> 4, maxZ >> 4, true);
-
-        if (!minChunk.isGenerated() || !maxChunk.isGenerated()) {
-            level.regenerateChunk(minChunk.getX(), minChunk.getZ());
-            level.regenerateChunk(maxChunk.getX(), maxChunk.getZ());
+        int maxX = minX + pd.getProtectionSize() - 1;
+        int maxZ = minZ + pd.getProtectionSize() - 1;
+        for (int x = minX >> 4; x <= maxX >> 4; x++) {
+            for (int z = minZ >> 4; z <= maxZ >> 4; z++) {
+                chunks.add(Level.chunkHash(x, z));
+            }
         }
+    }
 
-        List<BaseFullChunk> biomeToChanged = new ArrayList<>();
-
-        // Find out what chunks are within the island protection range
-        for (int x = minChunk.getX(); x <= maxChunk.getX(); x++) {
-            for (int z = minChunk.getZ(); z <= maxChunk.getZ(); z++) {
-                Utils.loadChunkAt(new Position(x, 0, z, level));
-                // Loop in loop are not recommended.
-                // So we separate some chunks and let the task do it works
-                biomeToChanged.add(level.getChunk(x, z));
-            }
+    /**
+     * Start changing the biome from the next tick.
+     */
+    public void start() {
+        if (taskId == -1) {
+            taskId = TaskManager.runTaskRepeat(this, 1);
         }
+    }
 
-        // Clear up any chunks in list
-        if (!biomeToChanged.isEmpty()) {
-            new NukkitRunnable() {
+    @Override
+    public void run() {
+        Level level = plugin.getServer().getLevelByName(pd.getLevelName());
+        if (level == null) {
+            chunks.clear();
+        }
 
-                @Override
-                public void run() {
-                    Iterator<BaseFullChunk> iChunk = biomeToChanged.iterator();
-                    int count = 0;
-                    while (iChunk.hasNext() && count++ < Settings.cleanRate) {
-                        BaseFullChunk chunk = iChunk.next();
-                        for (int y = settings.getSeaLevel(); y < 255 - settings.getSeaLevel(); y++) {
-                            for (int x = 0; x < 16; x++) {
-                                for (int z = 0; z < 16; z++) {
-                                    chunk.setBiomeId(x, z, getBiome(pd.getBiome()).getId());
-                                }
-                            }
-                        }
-                        level.generateChunkCallback(chunk.getX(), chunk.getZ(), chunk);
-                        iChunk.remove();
-                    }
-                    if (biomeToChanged.isEmpty()) {
-                        player.sendMessage(plugin.getPrefix() + plugin.getLocale(p).biomeChangeComplete.replace("[biome]", pd.getBiome()));
-                        this.cancel();
+        long deadline = System.nanoTime() + Settings.biomeBudget * 1000000L;
+        while (!chunks.isEmpty() && System.nanoTime() < deadline) {
+            long hash = chunks.poll();
+            BaseFullChunk chunk = level.getChunk(Level.getHashX(hash), Level.getHashZ(hash), true);
+            if (chunk == null || !chunk.isGenerated()) {
+                continue;
+            }
+            int baseX = chunk.getX() << 4;
+            int baseZ = chunk.getZ() << 4;
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    // Leave the columns of the islands next to this one
+                    if (pd.inIslandSpace(baseX + x, baseZ + z)) {
+                        chunk.setBiomeId(x, z, biomeId);
                     }
                 }
+            }
+            // Marks the chunk dirty and resends it to every viewer
+            level.setChunk(chunk.getX(), chunk.getZ(), chunk, false);
+        }
 
-            }.runTaskTimerAsynchronously(plugin, 0, 20);
+        if (chunks.isEmpty()) {
+            TaskManager.IMP.cancelTask(taskId);
+            taskId = -1;
+            if (level != null && player != null && (!(player instanceof Player) || ((Player) player).isOnline())) {
+                Player p = player.isPlayer() ? (Player) player : null;
+                player.sendMessage(plugin.getPrefix() + plugin.getLocale(p).biomeChangeComplete.replace("[biome]", pd.getBiome()));
+            }
         }
     }
 
@@ -123,14 +134,29 @@ class UpdateBiomeTask extends Task {
      * Get Biome by name.
      *
      * @param name Name of biome. Name could contain symbol "_" instead of space
-     * @return Biome. Null - when biome was not found
+     * @return Biome, or null when the biome was not found
+     */
+    public static Biome getBiome(String name) {
+        String biomeName = name.replace("_", " ");
+        for (Biome biome : Biome.biomes) {
+            if (biome != null && biome.getName().equalsIgnoreCase(biomeName)) {
+                return biome;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The names of every biome an island can be changed to,
+     * with "_" instead of spaces
      */
-    private Biome getBiome(String name) {
+    public static List<String> getBiomeNames() {
+        List<String> names = new ArrayList<>();
         for (Biome biome : Biome.biomes) {
             if (biome != null) {
-                if (biome.getName().equalsIgnoreCase(name.replace("_", " "))) return biome;
+                names.add(biome.getName().replace(" ", "_"));
             }
         }
-        return EnumBiome.PLAINS.biome;
+        return names;
     }
 }
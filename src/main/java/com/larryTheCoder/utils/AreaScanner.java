@@ -0,0 +1,170 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.utils;
+
+import cn.nukkit.level.Level;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the blocks inside a cube around a position. The
+ * chunk sections inside the cube are copied on the main thread,
+ * then the copy is counted section by section on the fork/join
+ * pool, skipping the empty ones.
+ *
+ * @author larryTheCoder
+ */
+public final class AreaScanner {
+
+    // Columns of blocks counted by one task
+    private static final int SLAB_WIDTH = 16;
+
+    private AreaScanner() {
+    }
+
+    /**
+     * Count the blocks within the radius of a position, this must
+     * be called from the main thread. Chunks that are not loaded
+     * are not loaded by the scan and count as air.
+     *
+     * @param level   The level to scan
+     * @param centerX The x of the center
+     * @param centerY The y of the center
+     * @param centerZ The z of the center
+     * @param radius  The distance from the center to the sides of the cube
+     * @return The amount of blocks indexed by {@code (id << 4) | data},
+     * completed once the blocks are counted
+     */
+    public static CompletableFuture<long[]> count(Level level, int centerX, int centerY, int centerZ, int radius) {
+        int minX = centerX - radius;
+        int minZ = centerZ - radius;
+        int maxX = centerX + radius;
+        int maxZ = centerZ + radius;
+        int minY = Math.max(0, centerY - radius);
+        int maxY = Math.min(255, centerY + radius);
+        if (minY > maxY) {
+            return CompletableFuture.completedFuture(new long[4096]);
+        }
+
+        int minChunkX = minX >> 4;
+        int minChunkZ = minZ >> 4;
+        int maxChunkX = maxX >> 4;
+        int maxChunkZ = maxZ >> 4;
+        ChunkSnapshot[] chunks = new ChunkSnapshot[(maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1)];
+        int sizeZ = maxChunkZ - minChunkZ + 1;
+        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
+            for (int cz = minChunkZ; cz <= maxChunkZ; cz++) {
+                if (!level.isChunkLoaded(cx, cz)) {
+                    continue;
+                }
+                BaseFullChunk chunk = level.getChunk(cx, cz);
+                if (chunk != null) {
+                    chunks[RegionSnapshot.index(cx, cz, minChunkX, minChunkZ, sizeZ)] = ChunkSnapshot.of(chunk, minY, maxY, true);
+                }
+            }
+        }
+        RegionSnapshot region = new RegionSnapshot(level.getFolderName(), minChunkX, minChunkZ, maxChunkX, maxChunkZ, chunks);
+
+        CountTask task = new CountTask(region, minX, maxX, minY, maxY, minZ, maxZ);
+        return CompletableFuture.supplyAsync(task::invoke, ForkJoinPool.commonPool());
+    }
+
+    private static class CountTask extends RecursiveTask<long[]> {
+
+        private final RegionSnapshot region;
+        private final int minX;
+        private final int maxX;
+        private final int minY;
+        private final int maxY;
+        private final int minZ;
+        private final int maxZ;
+
+        CountTask(RegionSnapshot region, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+            this.region = region;
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.minZ = minZ;
+            this.maxZ = maxZ;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (maxX - minX >= SLAB_WIDTH) {
+                int middle = (minX + maxX) >>> 1;
+                CountTask left = new CountTask(region, minX, middle, minY, maxY, minZ, maxZ);
+                CountTask right = new CountTask(region, middle + 1, maxX, minY, maxY, minZ, maxZ);
+                left.fork();
+                long[] counts = right.compute();
+                long[] other = left.join();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += other[i];
+                }
+                return counts;
+            }
+
+            long[] counts = new long[4096];
+            for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+                for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                    ChunkSnapshot chunk = region.getChunk(cx, cz);
+                    if (chunk != null) {
+                        countChunk(chunk, counts);
+                    }
+                }
+            }
+            return counts;
+        }
+
+        private void countChunk(ChunkSnapshot chunk, long[] counts) {
+            int baseX = chunk.getX() << 4;
+            int baseZ = chunk.getZ() << 4;
+            int fromX = Math.max(minX, baseX) - baseX;
+            int toX = Math.min(maxX, baseX + 15) - baseX;
+            int fromZ = Math.max(minZ, baseZ) - baseZ;
+            int toZ = Math.min(maxZ, baseZ + 15) - baseZ;
+            for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++) {
+                if (chunk.isSectionEmpty(sectionY)) {
+                    continue;
+                }
+                int fromY = Math.max(minY, sectionY << 4);
+                int toY = Math.min(maxY, (sectionY << 4) + 15);
+                for (int y = fromY; y <= toY; y++) {
+                    for (int z = fromZ; z <= toZ; z++) {
+                        for (int x = fromX; x <= toX; x++) {
+                            counts[chunk.getBlockId(x, y, z) << 4 | chunk.getBlockData(x, y, z)]++;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
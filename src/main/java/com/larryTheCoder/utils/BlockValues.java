@@ -0,0 +1,145 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.utils;
+
+import cn.nukkit.utils.Config;
+import cn.nukkit.utils.ConfigSection;
+
+import java.util.Arrays;
+
+/**
+ * The worth of every block for the island level, loaded
+ * from blockvalues.yml. Blocks are looked up by their id
+ * in plain arrays so counting stays cheap.
+ *
+ * @author larryTheCoder
+ */
+public class BlockValues {
+
+    private final int[] values = new int[256];
+    // -1 when there is no limit
+    private final int[] limits = new int[256];
+    private final int levelCost;
+    private final int cooldown;
+    private final int rescanInterval;
+    private final int idleTime;
+
+    public BlockValues(Config cfg) {
+        levelCost = Math.max(1, cfg.getInt("levelCost", 100));
+        cooldown = cfg.getInt("cooldown", 60);
+        rescanInterval = cfg.getInt("rescanInterval", 3600);
+        idleTime = cfg.getInt("idleTime", 1800);
+
+        Arrays.fill(limits, -1);
+        load(cfg.getSection("blocks"), values, "value");
+        load(cfg.getSection("limits"), limits, "limit");
+    }
+
+    private void load(ConfigSection section, int[] target, String type) {
+        for (String key : section.getKeys(false)) {
+            if (!Utils.isNumeric(key) || Integer.parseInt(key) < 0 || Integer.parseInt(key) >= target.length) {
+                Utils.send("&cUnknown block id " + key + " in the block " + type + "s, skipping!");
+                continue;
+            }
+            target[Integer.parseInt(key)] = section.getInt(key);
+        }
+    }
+
+    /**
+     * @param id The block id
+     * @return The points one block of this id is worth
+     */
+    public int getValue(int id) {
+        return id < 0 || id >= values.length ? 0 : values[id];
+    }
+
+    /**
+     * @param id The block id
+     * @return The maximum number of blocks of this id that are counted, or -1
+     */
+    public int getLimit(int id) {
+        return id < 0 || id >= limits.length ? -1 : limits[id];
+    }
+
+    /**
+     * Sum up the points of the counted blocks, blocks above
+     * their limit are not worth anything.
+     *
+     * @param counts The number of blocks, indexed by block id
+     * @return The total points of these blocks
+     */
+    public long getPoints(long[] counts) {
+        long points = 0;
+        for (int id = 0; id < Math.min(counts.length, values.length); id++) {
+            points += getPoints(id, counts[id]);
+        }
+        return points;
+    }
+
+    /**
+     * Get the points of a number of blocks of the same id.
+     *
+     * @param id    The block id
+     * @param count The number of blocks
+     * @return The points of these blocks
+     */
+    public long getPoints(int id, long count) {
+        if (id < 0 || id >= values.length) {
+            return 0;
+        }
+        return (limits[id] < 0 ? count : Math.min(count, limits[id])) * values[id];
+    }
+
+    /**
+     * @return The points needed for every island level
+     */
+    public int getLevelCost() {
+        return levelCost;
+    }
+
+    /**
+     * @return The seconds before the same island can be calculated again
+     */
+    public int getCooldown() {
+        return cooldown;
+    }
+
+    /**
+     * @return The seconds before a tracked island is fully counted again
+     */
+    public int getRescanInterval() {
+        return rescanInterval;
+    }
+
+    /**
+     * @return The seconds without changes before an island of an offline owner is no longer tracked
+     */
+    public int getIdleTime() {
+        return idleTime;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.utils;
+
+import cn.nukkit.level.format.ChunkSection;
+import cn.nukkit.level.format.generic.BaseChunk;
+import cn.nukkit.level.format.generic.BaseFullChunk;
+import cn.nukkit.level.format.generic.EmptyChunkSection;
+
+/**
+ * A read-only copy of the block ids of a chunk, and of the block
+ * data when it is asked for. The copy is taken on the main thread
+ * and can then be read from any thread while the chunk itself keeps
+ * changing.
+ *
+ * @author larryTheCoder
+ */
+public final class ChunkSnapshot {
+
+    private final int x;
+    private final int z;
+    // Per 16 blocks high section, null when the section is empty
+    private final byte[][] ids = new byte[16][];
+    // Same as the ids, null when the data were not copied
+    private final byte[][] data;
+
+    private ChunkSnapshot(int x, int z, boolean withData) {
+        this.x = x;
+        this.z = z;
+        this.data = withData ? new byte[16][] : null;
+    }
+
+    /**
+     * Copy the chunk, this must be called from the main thread.
+     *
+     * @param chunk The chunk to copy
+     * @return The snapshot of the chunk
+     */
+    public static ChunkSnapshot of(BaseFullChunk chunk) {
+        return of(chunk, 0, 255);
+    }
+
+    /**
+     * Copy the sections of the chunk between the given heights,
+     * this must be called from the main thread. Other sections
+     * will read as air.
+     *
+     * @param chunk The chunk to copy
+     * @param minY  The lowest y to copy
+     * @param maxY  The highest y to copy
+     * @return The snapshot of the chunk
+     */
+    public static ChunkSnapshot of(BaseFullChunk chunk, int minY, int maxY) {
+        return of(chunk, minY, maxY, false);
+    }
+
+    /**
+     * Copy the sections of the chunk between the given heights,
+     * this must be called from the main thread. Other sections
+     * will read as air.
+     *
+     * @param chunk    The chunk to copy
+     * @param minY     The lowest y to copy
+     * @param maxY     The highest y to copy
+     * @param withData true to copy the block data too
+     * @return The snapshot of the chunk
+     */
+    public static ChunkSnapshot of(BaseFullChunk chunk, int minY, int maxY, boolean withData) {
+        ChunkSnapshot snapshot = new ChunkSnapshot(chunk.getX(), chunk.getZ(), withData);
+        for (int sectionY = Math.max(0, minY >> 4); sectionY <= Math.min(15, maxY >> 4); sectionY++) {
+            if (chunk instanceof BaseChunk) {
+                ChunkSection section = ((BaseChunk) chunk).getSection(sectionY);
+                if (section == null || section instanceof EmptyChunkSection) {
+                    continue;
+                }
+                snapshot.copySection(sectionY, section::getBlockId, section::getBlockData);
+            } else {
+                int base = sectionY << 4;
+                snapshot.copySection(sectionY, (bx, by, bz) -> chunk.getBlockId(bx, base + by, bz),
+                        (bx, by, bz) -> chunk.getBlockData(bx, base + by, bz));
+            }
+        }
+        return snapshot;
+    }
+
+    private void copySection(int sectionY, BlockReader idReader, BlockReader dataReader) {
+        byte[] section = new byte[4096];
+        byte[] sectionData = data != null ? new byte[4096] : null;
+        boolean empty = true;
+        for (int by = 0; by < 16; by++) {
+            for (int bz = 0; bz < 16; bz++) {
+                for (int bx = 0; bx < 16; bx++) {
+                    int id = idReader.read(bx, by, bz);
+                    if (id != 0) {
+                        section[by << 8 | bz << 4 | bx] = (byte) id;
+                        if (sectionData != null) {
+                            sectionData[by << 8 | bz << 4 | bx] = (byte) dataReader.read(bx, by, bz);
+                        }
+                        empty = false;
+                    }
+                }
+            }
+        }
+        if (!empty) {
+            ids[sectionY] = section;
+            if (data != null) {
+                data[sectionY] = sectionData;
+            }
+        }
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    /**
+     * @param sectionY The section, from 0 to 15
+     * @return true if there are only air blocks in this section
+     */
+    public boolean isSectionEmpty(int sectionY) {
+        return ids[sectionY] == null;
+    }
+
+    /**
+     * Get the block id in this chunk.
+     *
+     * @param x The x inside the chunk, from 0 to 15
+     * @param y The y, from 0 to 255
+     * @param z The z inside the chunk, from 0 to 15
+     * @return The block id
+     */
+    public int getBlockId(int x, int y, int z) {
+        byte[] section = ids[y >> 4];
+        return section == null ? 0 : section[(y & 0x0f) << 8 | z << 4 | x] & 0xff;
+    }
+
+    /**
+     * Get the block data in this chunk, the data must have
+     * been copied with the snapshot.
+     *
+     * @param x The x inside the chunk, from 0 to 15
+     * @param y The y, from 0 to 255
+     * @param z The z inside the chunk, from 0 to 15
+     * @return The block data
+     */
+    public int getBlockData(int x, int y, int z) {
+        byte[] section = data[y >> 4];
+        return section == null ? 0 : section[(y & 0x0f) << 8 | z << 4 | x] & 0x0f;
+    }
+
+    private interface BlockReader {
+
+        int read(int x, int y, int z);
+    }
+}
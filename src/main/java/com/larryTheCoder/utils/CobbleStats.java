@@ -0,0 +1,274 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.utils;
+
+import cn.nukkit.block.Block;
+import com.larryTheCoder.listener.LavaCheck;
+import com.larryTheCoder.utils.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Counts the blocks made by the magic cobble stone generator over a
+ * rolling window of one minute buckets. Every tier and block pair
+ * gets a slot once, a generated block is a single array increment.
+ * Buckets older than the window are reused, so the memory only grows
+ * with the number of configured blocks. This is only used from the
+ * main thread.
+ *
+ * @author larryTheCoder
+ */
+public class CobbleStats {
+
+    public static final int WINDOW_MINUTES = 60;
+    private static final long MINUTE = 60000L;
+
+    // Keyed by the tier level and the full block id
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private int[] slotTier = new int[16];
+    private int[] slotBlock = new int[16];
+    private int slotCount = 0;
+
+    private final long[] bucketMinute = new long[WINDOW_MINUTES];
+    private final long[][] buckets = new long[WINDOW_MINUTES][];
+
+    public CobbleStats() {
+        Arrays.fill(bucketMinute, -1);
+    }
+
+    /**
+     * Get the counter slot of a block in a tier, the slot
+     * should be kept by the caller.
+     *
+     * @param tier   The tier level, Integer.MIN_VALUE for the default tier
+     * @param fullId The block id shifted by 4 with the block data
+     * @return The slot
+     */
+    public int getSlot(int tier, int fullId) {
+        long key = ((long) tier << 32) | (fullId & 0xffffffffL);
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        if (slotCount == slotTier.length) {
+            slotTier = Arrays.copyOf(slotTier, slotCount * 2);
+            slotBlock = Arrays.copyOf(slotBlock, slotCount * 2);
+        }
+        slotTier[slotCount] = tier;
+        slotBlock[slotCount] = fullId;
+        slots.put(key, slotCount);
+        return slotCount++;
+    }
+
+    /**
+     * Count one generated block.
+     *
+     * @param slot The slot of the tier and block
+     */
+    public void record(int slot) {
+        long minute = System.currentTimeMillis() / MINUTE;
+        int index = (int) (minute % WINDOW_MINUTES);
+        long[] bucket = buckets[index];
+        if (bucketMinute[index] != minute) {
+            // This bucket holds a minute that left the window
+            if (bucket != null) {
+                Arrays.fill(bucket, 0);
+            }
+            bucketMinute[index] = minute;
+        }
+        if (bucket == null || bucket.length <= slot) {
+            bucket = bucket == null ? new long[slotTier.length] : Arrays.copyOf(bucket, slotTier.length);
+            buckets[index] = bucket;
+        }
+        bucket[slot]++;
+    }
+
+    /**
+     * Get the number of generated blocks for every minute of the window.
+     *
+     * @param minutes The number of minutes to look back
+     * @return The samples, ordered by time
+     */
+    public List<Sample> getSamples(int minutes) {
+        long now = System.currentTimeMillis() / MINUTE;
+        long oldest = now - Math.max(1, Math.min(minutes, WINDOW_MINUTES));
+        List<Sample> samples = new ArrayList<>();
+        for (long minute = oldest + 1; minute <= now; minute++) {
+            int index = (int) (minute % WINDOW_MINUTES);
+            long[] bucket = buckets[index];
+            if (bucket == null || bucketMinute[index] != minute) {
+                continue;
+            }
+            for (int slot = 0; slot < bucket.length; slot++) {
+                if (bucket[slot] > 0) {
+                    samples.add(new Sample(minute * MINUTE, slotTier[slot], slotBlock[slot], bucket[slot]));
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Get the number of generated blocks in the window.
+     *
+     * @param minutes The number of minutes to look back
+     * @return The counts per tier level and full block id
+     */
+    public Map<Integer, Map<Integer, Long>> getTotals(int minutes) {
+        Map<Integer, Map<Integer, Long>> totals = new TreeMap<>();
+        for (Sample sample : getSamples(minutes)) {
+            totals.computeIfAbsent(sample.getTier(), k -> new TreeMap<>()).merge(sample.getFullId(), sample.getCount(), Long::sum);
+        }
+        return totals;
+    }
+
+    /**
+     * Forget every counted block, the slots are kept.
+     */
+    public void clear() {
+        Arrays.fill(bucketMinute, -1);
+        for (long[] bucket : buckets) {
+            if (bucket != null) {
+                Arrays.fill(bucket, 0);
+            }
+        }
+    }
+
+    /**
+     * Export the window as CSV, one line per minute, tier and block.
+     *
+     * @param minutes The number of minutes to look back
+     * @return The CSV text
+     */
+    public String toCsv(int minutes) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm");
+        StringBuilder builder = new StringBuilder("minute,tier,block,id,data,count,config\n");
+        for (Sample sample : getSamples(minutes)) {
+            builder.append(format.format(new Date(sample.getMinute()))).append(',')
+                    .append(getTierName(sample.getTier())).append(',')
+                    .append(getBlockName(sample.getFullId())).append(',')
+                    .append(sample.getFullId() >> 4).append(',')
+                    .append(sample.getFullId() & 0xf).append(',')
+                    .append(sample.getCount()).append(',')
+                    .append(LavaCheck.getConfigChances(sample.getTier(), sample.getFullId())).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Export the window as JSON, the totals of every tier with the
+     * measured and the configured chance of each block.
+     *
+     * @param minutes The number of minutes to look back
+     * @return The JSON text
+     */
+    public String toJson(int minutes) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("{\n  \"minutes\": ").append(Math.max(1, Math.min(minutes, WINDOW_MINUTES)))
+                .append(",\n  \"time\": ").append(System.currentTimeMillis())
+                .append(",\n  \"tiers\": [");
+        boolean firstTier = true;
+        for (Map.Entry<Integer, Map<Integer, Long>> tier : getTotals(minutes).entrySet()) {
+            long total = 0;
+            for (long count : tier.getValue().values()) {
+                total += count;
+            }
+            builder.append(firstTier ? "\n" : ",\n")
+                    .append("    {\"tier\": ").append(JSONObject.quote(getTierName(tier.getKey())))
+                    .append(", \"total\": ").append(total)
+                    .append(", \"blocks\": [");
+            boolean firstBlock = true;
+            for (Map.Entry<Integer, Long> block : tier.getValue().entrySet()) {
+                builder.append(firstBlock ? "\n" : ",\n")
+                        .append("      {\"block\": ").append(JSONObject.quote(getBlockName(block.getKey())))
+                        .append(", \"id\": ").append(block.getKey() >> 4)
+                        .append(", \"data\": ").append(block.getKey() & 0xf)
+                        .append(", \"count\": ").append(block.getValue())
+                        .append(", \"percent\": ").append(String.format(Locale.ROOT, "%.2f", (double) block.getValue() / total * 100))
+                        .append(", \"config\": ").append(String.format(Locale.ROOT, "%.2f", LavaCheck.getConfigChances(tier.getKey(), block.getKey())))
+                        .append('}');
+                firstBlock = false;
+            }
+            builder.append("\n    ]}");
+            firstTier = false;
+        }
+        builder.append(firstTier ? "]\n}\n" : "\n  ]\n}\n");
+        return builder.toString();
+    }
+
+    /**
+     * @param tier The tier level
+     * @return The name of the tier as it is written in the config
+     */
+    public static String getTierName(int tier) {
+        return tier == Integer.MIN_VALUE ? "default" : String.valueOf(tier);
+    }
+
+    /**
+     * @param fullId The block id shifted by 4 with the block data
+     * @return The name of the block
+     */
+    public static String getBlockName(int fullId) {
+        return Block.get(fullId >> 4, fullId & 0xf).getName().replace(',', ' ');
+    }
+
+    public static class Sample {
+
+        private final long minute;
+        private final int tier;
+        private final int fullId;
+        private final long count;
+
+        Sample(long minute, int tier, int fullId, long count) {
+            this.minute = minute;
+            this.tier = tier;
+            this.fullId = fullId;
+            this.count = count;
+        }
+
+        /**
+         * @return The start of the minute in milliseconds
+         */
+        public long getMinute() {
+            return minute;
+        }
+
+        public int getTier() {
+            return tier;
+        }
+
+        public int getFullId() {
+            return fullId;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
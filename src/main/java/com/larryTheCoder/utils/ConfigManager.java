@@ -38,6 +38,7 @@ import com.larryTheCoder.integration.economy.EconomyAPI;
 import com.larryTheCoder.listener.LavaCheck;
 import com.larryTheCoder.locales.ASlocales;
 import com.larryTheCoder.locales.FileLister;
+import com.larryTheCoder.storage.IslandSettings;
 import com.larryTheCoder.storage.SettingsFlag;
 
 import java.io.File;
@@ -68,6 +69,8 @@ public class ConfigManager {
         Settings.teamChat = cfg.getBoolean("teamChat", true);
         Settings.islandMaxNameLong = cfg.getInt("island.nameLimit", 20);
         Settings.cleanRate = cfg.getInt("island.chunkResetPerBlocks", 256);
+        Settings.deleteBudget = cfg.getInt("island.deleteBudget", 5);
+        Settings.biomeBudget = cfg.getInt("island.biomeBudget", 2);
         String cmd = cfg.getString("island.restrictedCommands", "");
         final String[] pieces = cmd.substring(cmd.length()).trim().split(",");
         String[] array;
@@ -150,6 +153,9 @@ public class ConfigManager {
                 Utils.send("&cUnknown setting in config.yml:protection.world " + setting.toUpperCase() + " skipping...");
             }
         }
+        Settings.defaultWorldFlags = IslandSettings.toMask(Settings.defaultWorldSettings);
+        Settings.defaultIslandFlags = IslandSettings.toMask(Settings.defaultIslandSettings);
+        Settings.defaultSpawnFlags = IslandSettings.toMask(Settings.defaultSpawnSettings);
         // Get the default language
         Settings.defaultLanguage = cfg.getString("defaultlanguage", "en_US");
 
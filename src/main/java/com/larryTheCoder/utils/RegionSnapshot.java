@@ -0,0 +1,111 @@
+/*
+ * Adapted from the Wizardry License
+ *
+ * Copyright (c) 2016-2018 larryTheCoder and contributors
+ *
+ * Permission is hereby granted to any persons and/or organizations
+ * using this software to copy, modify, merge, publish, and distribute it.
+ * Said persons and/or organizations are not allowed to use the software or
+ * any derivatives of the work for commercial use or any other means to generate
+ * income, nor are they allowed to claim this software as their own.
+ *
+ * The persons and/or organizations are also disallowed from sub-licensing
+ * and/or trademarking this software without explicit permission from larryTheCoder.
+ *
+ * Any persons and/or organizations using this software must disclose their
+ * source code and have it publicly available, include this license,
+ * provide sufficient credit to the original authors of the project (IE: larryTheCoder),
+ * as well as provide a link to the original project.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,FITNESS FOR A PARTICULAR
+ * PURPOSE AND NON INFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+ * USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.larryTheCoder.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only copy of the block ids of a rectangle of chunks,
+ * for example a whole island. It is safe to read from any
+ * thread, and from several threads at once.
+ *
+ * @author larryTheCoder
+ */
+public final class RegionSnapshot {
+
+    private final String levelName;
+    private final int minChunkX;
+    private final int minChunkZ;
+    private final int sizeX;
+    private final int sizeZ;
+    // Chunks that were not generated are null
+    private final ChunkSnapshot[] chunks;
+
+    public RegionSnapshot(String levelName, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ, ChunkSnapshot[] chunks) {
+        this.levelName = levelName;
+        this.minChunkX = minChunkX;
+        this.minChunkZ = minChunkZ;
+        this.sizeX = maxChunkX - minChunkX + 1;
+        this.sizeZ = maxChunkZ - minChunkZ + 1;
+        if (chunks.length != sizeX * sizeZ) {
+            throw new IllegalArgumentException("Expected " + sizeX * sizeZ + " chunks, got " + chunks.length);
+        }
+        this.chunks = chunks;
+    }
+
+    static int index(int chunkX, int chunkZ, int minChunkX, int minChunkZ, int sizeZ) {
+        return (chunkX - minChunkX) * sizeZ + (chunkZ - minChunkZ);
+    }
+
+    public String getLevelName() {
+        return levelName;
+    }
+
+    /**
+     * @param chunkX The chunk x
+     * @param chunkZ The chunk z
+     * @return The chunk, or null if it is outside of this region or not generated
+     */
+    public ChunkSnapshot getChunk(int chunkX, int chunkZ) {
+        if (chunkX < minChunkX || chunkZ < minChunkZ || chunkX >= minChunkX + sizeX || chunkZ >= minChunkZ + sizeZ) {
+            return null;
+        }
+        return chunks[index(chunkX, chunkZ, minChunkX, minChunkZ, sizeZ)];
+    }
+
+    /**
+     * @return Every chunk of this region that was generated
+     */
+    public List<ChunkSnapshot> getChunks() {
+        List<ChunkSnapshot> list = new ArrayList<>(chunks.length);
+        for (ChunkSnapshot chunk : chunks) {
+            if (chunk != null) {
+                list.add(chunk);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Get the block id at the world coordinates.
+     *
+     * @param x The x
+     * @param y The y
+     * @param z The z
+     * @return The block id, air outside of this region
+     */
+    public int getBlockId(int x, int y, int z) {
+        if (y < 0 || y > 255) {
+            return 0;
+        }
+        ChunkSnapshot chunk = getChunk(x >> 4, z >> 4);
+        return chunk == null ? 0 : chunk.getBlockId(x & 0x0f, y, z & 0x0f);
+    }
+}
@@ -47,6 +47,8 @@ public class Settings {
     public static int islandHeight = 60;
     public static int islandMaxNameLong;
     public static int cleanRate;
+    public static int deleteBudget;
+    public static int biomeBudget;
     public static boolean respawnOnIsland;
     public static int deathPenalty;
     public static final ArrayList<String> bannedCommands = new ArrayList<>();
@@ -77,6 +79,13 @@ public class Settings {
      * Default spawn protection settings
      */
     public static final HashMap<SettingsFlag, Boolean> defaultSpawnSettings = new HashMap<>();
+    /**
+     * The default protection settings above as bit masks,
+     * see {@link SettingsFlag#getMask()}
+     */
+    public static long defaultWorldFlags = 0;
+    public static long defaultIslandFlags = 0;
+    public static long defaultSpawnFlags = 0;
 
     public static boolean allowTNTDamage;
     public static boolean allowChestDamage;